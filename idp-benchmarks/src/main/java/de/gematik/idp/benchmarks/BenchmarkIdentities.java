@@ -0,0 +1,64 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.tests.PkiKeyResolver;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resolves the p12 identities shipped with idp-server (idp_sig, idp_enc and the client test
+ * certificates) for the benchmarks. The search root can be set with the system property {@code
+ * idp.benchmarks.identityDirectory}, by default idp-server/src is looked up relative to the working
+ * directory (repository root or idp-benchmarks).
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BenchmarkIdentities {
+
+  static final String IDP_SIG = "idp_sig";
+  static final String IDP_ENC = "idp_enc";
+  static final String CLIENT_EGK_ECC = "c.ch.aut-ecc";
+
+  private static final String IDENTITY_DIRECTORY_PROPERTY = "idp.benchmarks.identityDirectory";
+
+  static PkiIdentity get(final String fileFilter) {
+    return PkiKeyResolver.retrieveIdentityFromDirectory(identityDirectory(), fileFilter);
+  }
+
+  private static Path identityDirectory() {
+    final String configuredDirectory = System.getProperty(IDENTITY_DIRECTORY_PROPERTY);
+    if (configuredDirectory != null) {
+      return Paths.get(configuredDirectory);
+    }
+    return Stream.of(Paths.get("idp-server", "src"), Paths.get("..", "idp-server", "src"))
+        .filter(Files::isDirectory)
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalStateException(
+                    "idp-server/src not found, set -D" + IDENTITY_DIRECTORY_PROPERTY));
+  }
+}
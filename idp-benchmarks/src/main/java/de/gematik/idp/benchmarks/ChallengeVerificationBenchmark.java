@@ -0,0 +1,201 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import static de.gematik.idp.brainPoolExtension.BrainpoolAlgorithmSuiteIdentifiers.BRAINPOOL256_USING_SHA256;
+
+import de.gematik.idp.authentication.AuthenticationChallengeVerifier;
+import de.gematik.idp.authentication.ChallengeVerificationContext;
+import de.gematik.idp.brainPoolExtension.BrainpoolCurves;
+import de.gematik.idp.field.ClaimName;
+import de.gematik.idp.token.IdpJwe;
+import de.gematik.idp.token.JsonWebToken;
+import de.gematik.idp.token.JwtVerifierRegistry;
+import de.gematik.idp.token.TokenClaimExtraction;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocation profile of the signed challenge POST (decryption, exp cross check, claim extraction
+ * and signature checks) with the former per-stage parsing compared to a shared {@link
+ * ChallengeVerificationContext}. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChallengeVerificationBenchmark {
+
+  private PrivateKey encryptionKey;
+  private AuthenticationChallengeVerifier verifier;
+  private IdpJwe encryptedChallenge;
+
+  @Setup
+  public void setUp() throws Exception {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    BrainpoolCurves.init();
+
+    final KeyPair serverKeyPair = generateBrainpoolKeyPair();
+    final KeyPair clientKeyPair = generateBrainpoolKeyPair();
+    final KeyPair encryptionKeyPair = generateBrainpoolKeyPair();
+    encryptionKey = encryptionKeyPair.getPrivate();
+    verifier =
+        AuthenticationChallengeVerifier.builder()
+            .serverPublicKey(serverKeyPair.getPublic())
+            .build();
+
+    final JwtClaims challengeClaims = new JwtClaims();
+    challengeClaims.setIssuer("https://idp.example");
+    challengeClaims.setClaim(ClaimName.CLIENT_ID.getJoseName(), "eRezeptApp");
+    challengeClaims.setClaim(ClaimName.REDIRECT_URI.getJoseName(), "http://redirect.example");
+    challengeClaims.setClaim(ClaimName.STATE.getJoseName(), "state");
+    challengeClaims.setClaim(ClaimName.NONCE.getJoseName(), "nonce");
+    challengeClaims.setClaim(ClaimName.SCOPE.getJoseName(), "openid e-rezept");
+    challengeClaims.setExpirationTimeMinutesInTheFuture(60);
+    final JsonWebSignature serverChallenge = signedJws(challengeClaims, serverKeyPair);
+
+    final JwtClaims responseClaims = new JwtClaims();
+    responseClaims.setClaim(
+        ClaimName.NESTED_JWT.getJoseName(), serverChallenge.getCompactSerialization());
+    final JsonWebSignature signedChallenge = signedJws(responseClaims, clientKeyPair);
+    signedChallenge.setHeader(ClaimName.CONTENT_TYPE.getJoseName(), "NJWT");
+    signedChallenge.setCertificateChainHeaderValue(selfSignedCertificate(clientKeyPair));
+
+    encryptedChallenge =
+        new JsonWebToken(signedChallenge.getCompactSerialization())
+            .encryptAsNjwt(encryptionKeyPair.getPublic());
+  }
+
+  /** Mirrors the former pipeline: the njwt is parsed once per stage that needs it. */
+  @Benchmark
+  public Map<String, Object> parsePerStage() {
+    final IdpJwe jwe = new IdpJwe(encryptedChallenge.getRawString());
+    final JsonWebToken decrypted = jwe.decryptNestedJwt(encryptionKey);
+    final String njwt = decrypted.getStringBodyClaim(ClaimName.NESTED_JWT).orElseThrow();
+
+    final Object expInChallenge =
+        new JsonWebToken(njwt).getBodyClaim(ClaimName.EXPIRES_AT).orElseThrow();
+    checkExp(jwe, expInChallenge);
+    final Map<String, Object> claims = TokenClaimExtraction.extractClaimsFromJwtBody(njwt);
+
+    final X509Certificate clientCertificate =
+        decrypted.getClientCertificateFromHeader().orElseThrow();
+    verifyClientSignature(clientCertificate, decrypted);
+    final JsonWebToken serverChallenge = new JsonWebToken(njwt);
+    serverChallenge.getExpiresAt();
+    serverChallenge.verify(verifier.getServerPublicKey());
+    decrypted.getClientCertificateFromHeader().orElseThrow();
+    return claims;
+  }
+
+  @Benchmark
+  public Map<String, Object> sharedContext() {
+    final IdpJwe jwe = new IdpJwe(encryptedChallenge.getRawString());
+    final ChallengeVerificationContext context =
+        new ChallengeVerificationContext(jwe, jwe.decryptNestedJwt(encryptionKey));
+
+    final JsonWebToken serverChallenge = context.getServerChallenge().orElseThrow();
+    checkExp(jwe, serverChallenge.getBodyClaim(ClaimName.EXPIRES_AT).orElseThrow());
+    final Map<String, Object> claims = context.getServerChallengeClaims().orElseThrow();
+
+    verifier.verifyChallengeAndThrowExceptionIfFail(context);
+    context.getClientCertificate().orElseThrow();
+    return claims;
+  }
+
+  private static void checkExp(final IdpJwe jwe, final Object expInChallenge) {
+    if (!expInChallenge.equals(jwe.getHeaderClaim(ClaimName.EXPIRES_AT).orElseThrow())) {
+      throw new IllegalStateException("exp mismatch");
+    }
+  }
+
+  private static void verifyClientSignature(
+      final X509Certificate clientCertificate, final JsonWebToken signedChallenge) {
+    try {
+      JwtVerifierRegistry.getDefault()
+          .getConsumer(clientCertificate.getPublicKey(), BRAINPOOL256_USING_SHA256)
+          .process(signedChallenge.getRawString());
+    } catch (final Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static JsonWebSignature signedJws(final JwtClaims claims, final KeyPair keyPair)
+      throws JoseException {
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setPayload(claims.toJson());
+    jws.setKey(keyPair.getPrivate());
+    jws.setAlgorithmHeaderValue(BRAINPOOL256_USING_SHA256);
+    jws.setHeader(ClaimName.TYPE.getJoseName(), "JWT");
+    return jws;
+  }
+
+  private static KeyPair generateBrainpoolKeyPair() throws Exception {
+    final KeyPairGenerator keyPairGenerator =
+        KeyPairGenerator.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME);
+    keyPairGenerator.initialize(BrainpoolCurves.BP256);
+    return keyPairGenerator.generateKeyPair();
+  }
+
+  private static X509Certificate selfSignedCertificate(final KeyPair keyPair) throws Exception {
+    final X500Name subject = new X500Name("CN=benchmark client");
+    final Date notBefore = new Date();
+    final Date notAfter = Date.from(ZonedDateTime.now().plusDays(1).toInstant());
+    return new JcaX509CertificateConverter()
+        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+        .getCertificate(
+            new JcaX509v3CertificateBuilder(
+                    subject, BigInteger.ONE, notBefore, notAfter, subject, keyPair.getPublic())
+                .build(
+                    new JcaContentSignerBuilder("SHA256withECDSA")
+                        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                        .build(keyPair.getPrivate())));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.brainPoolExtension.BrainpoolCurves;
+import de.gematik.idp.token.EcdhEsDecryptionEngine;
+import de.gematik.idp.token.IdpJwe;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency distribution (p50/p99 in the sample time report) of decrypting an ECDH-ES JWE for the
+ * BP-256 idpEnc key with plain jose4j compared to the {@link EcdhEsDecryptionEngine}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class EcdhDecryptBenchmark {
+
+  private static final String JOSE4J = "JOSE4J";
+
+  @Param({JOSE4J, "ENGINE"})
+  private String engine;
+
+  private KeyPair encryptionKeyPair;
+  private String encryptedChallenge;
+
+  @Setup
+  public void setUp() throws Exception {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    BrainpoolCurves.init();
+
+    final KeyPairGenerator keyPairGenerator =
+        KeyPairGenerator.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME);
+    keyPairGenerator.initialize(BrainpoolCurves.BP256);
+    encryptionKeyPair = keyPairGenerator.generateKeyPair();
+    encryptedChallenge =
+        IdpJwe.createJweWithPayloadAndHeaders(
+                "{\"njwt\":\"" + "x".repeat(1500) + "\"}",
+                encryptionKeyPair.getPublic(),
+                jwe -> jwe.setHeader("cty", "NJWT"))
+            .getRawString();
+
+    if (!JOSE4J.equals(engine)) {
+      EcdhEsDecryptionEngine.register(encryptionKeyPair.getPrivate());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    EcdhEsDecryptionEngine.unregister(encryptionKeyPair.getPrivate());
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return new IdpJwe(encryptedChallenge)
+        .decryptJweAndReturnPayloadString(encryptionKeyPair.getPrivate());
+  }
+}
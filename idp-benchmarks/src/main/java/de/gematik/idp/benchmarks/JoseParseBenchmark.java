@@ -0,0 +1,124 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.token.CompactSerialization;
+import de.gematik.idp.token.JsonWebToken;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jose4j.json.JsonUtil;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Header and body extraction of a token that is wrapped three times, as happens with the njwt of a
+ * signed challenge. Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoseParseBenchmark {
+
+  private static final int WRAP_COUNT = 3;
+
+  private String jwt;
+
+  @Setup
+  public void setUp() throws Exception {
+    final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+    keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+    final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+    final JwtClaims claims = new JwtClaims();
+    claims.setIssuer("https://idp.example");
+    claims.setExpirationTimeMinutesInTheFuture(60);
+    claims.setClaim("redirect_uri", "https://client.example/callback");
+    claims.setClaim("state", "xyz");
+
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setPayload(claims.toJson());
+    jws.setKey(keyPair.getPrivate());
+    jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+    jws.setHeader("typ", "JWT");
+    jwt = jws.getCompactSerialization();
+  }
+
+  @Benchmark
+  public void jose4jPerWrap(final Blackhole blackhole) throws Exception {
+    for (int i = 0; i < WRAP_COUNT; i++) {
+      final JsonWebSignature jws = new JsonWebSignature();
+      jws.setCompactSerialization(jwt);
+      blackhole.consume(JsonUtil.parseJson(jws.getHeaders().getFullHeaderAsJsonString()));
+      blackhole.consume(
+          new JwtConsumerBuilder()
+              .setSkipSignatureVerification()
+              .setSkipDefaultAudienceValidation()
+              .setSkipAllValidators()
+              .build()
+              .process(jwt)
+              .getJwtClaims()
+              .getClaimsMap());
+      blackhole.consume(jwt.split("\\."));
+    }
+  }
+
+  @Benchmark
+  public void compactSerializationUnscoped(final Blackhole blackhole) {
+    for (int i = 0; i < WRAP_COUNT; i++) {
+      consume(new JsonWebToken(jwt), blackhole);
+    }
+  }
+
+  @Benchmark
+  public void compactSerializationScoped(final Blackhole blackhole) {
+    try (final CompactSerialization.Scope ignored = CompactSerialization.openScope()) {
+      for (int i = 0; i < WRAP_COUNT; i++) {
+        consume(new JsonWebToken(jwt), blackhole);
+      }
+    }
+  }
+
+  private static void consume(final JsonWebToken token, final Blackhole blackhole) {
+    final Map<String, Object> headerClaims = token.getHeaderClaims();
+    blackhole.consume(headerClaims);
+    blackhole.consume(token.getBodyClaims());
+    blackhole.consume(token.getPayloadDecoded());
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.token.JsonWebToken;
+import de.gematik.idp.token.JwtVerifierRegistry;
+import de.gematik.idp.token.TokenClaimExtraction;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Verify throughput of a consumer built per call (the former behaviour of {@code
+ * JsonWebToken.verify}) compared to the shared consumers of {@link JwtVerifierRegistry}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtVerifyBenchmark {
+
+  private KeyPair keyPair;
+  private String jwt;
+
+  @Setup
+  public void setUp() throws Exception {
+    final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+    keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+    keyPair = keyPairGenerator.generateKeyPair();
+
+    final JwtClaims claims = new JwtClaims();
+    claims.setIssuer("https://idp.example");
+    claims.setSubject("subject");
+    claims.setExpirationTimeMinutesInTheFuture(60);
+    claims.setIssuedAtToNow();
+    jwt = sign(claims);
+  }
+
+  @Benchmark
+  public JwtClaims consumerPerCall() throws InvalidJwtException {
+    return new JwtConsumerBuilder()
+        .setVerificationKey(keyPair.getPublic())
+        .setSkipDefaultAudienceValidation()
+        .build()
+        .processToClaims(jwt);
+  }
+
+  @Benchmark
+  public JwtClaims registryConsumer() throws InvalidJwtException {
+    return JwtVerifierRegistry.getDefault().getConsumer(keyPair.getPublic()).processToClaims(jwt);
+  }
+
+  @Benchmark
+  public void jsonWebTokenVerify() {
+    new JsonWebToken(jwt).verify(keyPair.getPublic());
+  }
+
+  @Benchmark
+  public Map<String, Object> claimsOnly() {
+    return TokenClaimExtraction.extractClaimsFromJwtBody(jwt);
+  }
+
+  private String sign(final JwtClaims claims) throws JoseException {
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setPayload(claims.toJson());
+    jws.setKey(keyPair.getPrivate());
+    jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256);
+    return jws.getCompactSerialization();
+  }
+}
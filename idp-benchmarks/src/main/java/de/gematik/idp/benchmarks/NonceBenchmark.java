@@ -0,0 +1,77 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.crypto.Nonce;
+import de.gematik.idp.crypto.SecureRandomProvider;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Nonces per second of the former {@code SecureRandom.getInstanceStrong()} per call approach
+ * compared to the striped DRBG pool. Run with {@code -t 1,4,16} to see the effect of contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class NonceBenchmark {
+
+  @Param({"16", "32"})
+  private int byteAmount;
+
+  @Benchmark
+  public byte[] instanceStrongPerCall() throws NoSuchAlgorithmException {
+    final byte[] bytes = new byte[byteAmount];
+    SecureRandom.getInstanceStrong().nextBytes(bytes);
+    return bytes;
+  }
+
+  @Benchmark
+  public byte[] pooledDrbg() {
+    return SecureRandomProvider.getDefault().randomBytes(byteAmount);
+  }
+
+  @Benchmark
+  public String hexJti() {
+    return Nonce.getNonceAsHex(byteAmount * 2);
+  }
+
+  @Benchmark
+  public String base64Nonce() {
+    return Nonce.getNonceAsBase64UrlEncodedString(byteAmount);
+  }
+}
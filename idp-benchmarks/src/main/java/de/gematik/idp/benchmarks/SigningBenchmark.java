@@ -0,0 +1,137 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import static de.gematik.idp.brainPoolExtension.BrainpoolAlgorithmSuiteIdentifiers.BRAINPOOL256_USING_SHA256;
+
+import de.gematik.idp.authentication.JwtBuilder;
+import de.gematik.idp.brainPoolExtension.BrainpoolCurves;
+import de.gematik.idp.crypto.CryptoPrimitivePool;
+import de.gematik.idp.crypto.RsaSignerUtility;
+import de.gematik.idp.token.JsonWebToken;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.Signature;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signatures per second on a single thread, i.e. per core. The {@code perCall} variants obtain
+ * their {@link Signature} the way the signer utilities did before they used {@link
+ * CryptoPrimitivePool}. Run with {@code -t <cores>} to check that the pool scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class SigningBenchmark {
+
+  private static final byte[] DATA =
+      "eyJhbGciOiJCUDI1NlIxIn0.eyJzdWIiOiJzdWJqZWN0In0".getBytes(StandardCharsets.US_ASCII);
+
+  private KeyPair brainpoolKeyPair;
+  private KeyPair rsaKeyPair;
+
+  @Setup
+  public void setUp() throws Exception {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    BrainpoolCurves.init();
+
+    final KeyPairGenerator ecGenerator =
+        KeyPairGenerator.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME);
+    ecGenerator.initialize(BrainpoolCurves.BP256);
+    brainpoolKeyPair = ecGenerator.generateKeyPair();
+
+    final KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+    rsaGenerator.initialize(2048);
+    rsaKeyPair = rsaGenerator.generateKeyPair();
+  }
+
+  @Benchmark
+  public byte[] ecdsaPerCall() throws GeneralSecurityException {
+    final Signature signer = Signature.getInstance("SHA256withECDSA");
+    signer.initSign(brainpoolKeyPair.getPrivate());
+    signer.update(DATA);
+    return signer.sign();
+  }
+
+  @Benchmark
+  public byte[] ecdsaPooled() {
+    return CryptoPrimitivePool.sign("SHA256withECDSA", brainpoolKeyPair.getPrivate(), DATA);
+  }
+
+  @Benchmark
+  public byte[] rsaPssPerCall() throws GeneralSecurityException {
+    final Signature signer =
+        Signature.getInstance("SHA256withRSAAndMGF1", new BouncyCastleProvider());
+    signer.initSign(rsaKeyPair.getPrivate());
+    signer.update(DATA);
+    return signer.sign();
+  }
+
+  @Benchmark
+  public byte[] rsaPssPooled() {
+    return RsaSignerUtility.createRsaSignature(DATA, rsaKeyPair.getPrivate());
+  }
+
+  /** Brainpool JWS through jose4j, signed by the pooled algorithm suite. */
+  @Benchmark
+  public String brainpoolJws() throws JoseException {
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setPayload("{\"sub\":\"subject\"}");
+    jws.setKey(brainpoolKeyPair.getPrivate());
+    jws.setAlgorithmHeaderValue(BRAINPOOL256_USING_SHA256);
+    return jws.getCompactSerialization();
+  }
+
+  /** Complete token as minted by the server, including claim serialization. */
+  @Benchmark
+  public JsonWebToken brainpoolJwt() {
+    return new JwtBuilder()
+        .addAllBodyClaims(Map.of("sub", "subject", "scope", "openid e-rezept"))
+        .addAllHeaderClaims(Map.of("typ", "JWT"))
+        .expiresAt(ZonedDateTime.now().plusMinutes(5))
+        .setSignerKey(brainpoolKeyPair.getPrivate())
+        .buildJwt();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import static de.gematik.idp.IdpConstants.EREZEPT;
+import static de.gematik.idp.IdpConstants.OPENID;
+
+import de.gematik.idp.authentication.AuthenticationChallenge;
+import de.gematik.idp.authentication.AuthenticationChallengeBuilder;
+import de.gematik.idp.authentication.AuthenticationTokenBuilder;
+import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.brainPoolExtension.BrainpoolCurves;
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.data.ScopeConfiguration;
+import de.gematik.idp.data.UserConsentConfiguration;
+import de.gematik.idp.data.UserConsentDescriptionTexts;
+import de.gematik.idp.token.AccessTokenBuilder;
+import de.gematik.idp.token.IdTokenBuilder;
+import de.gematik.idp.token.IdpJwe;
+import de.gematik.idp.token.JsonWebToken;
+import de.gematik.idp.token.SsoTokenBuilder;
+import java.security.Key;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of every token builder of the authorization flow, set up like the server (idp_sig signer,
+ * symmetric key derived from the configured secret) with the shipped eGK test identity as client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBuilderBenchmark {
+
+  static final String CLIENT_ID = "eRezeptApp";
+  static final String REDIRECT_URI = "https://redirect.gematik.de/erezept";
+  static final String SCOPE = OPENID + " " + EREZEPT;
+  static final String ISSUER = "https://idp.zentral.idp.splitdns.ti-dienste.de";
+
+  private AuthenticationChallengeBuilder authenticationChallengeBuilder;
+  private AuthenticationTokenBuilder authenticationTokenBuilder;
+  private AccessTokenBuilder accessTokenBuilder;
+  private IdTokenBuilder idTokenBuilder;
+  private SsoTokenBuilder ssoTokenBuilder;
+  private X509Certificate clientCertificate;
+  private Map<String, Object> challengeClaims;
+  private JsonWebToken authenticationToken;
+  private JsonWebToken accessToken;
+
+  static Key symmetricEncryptionKey() {
+    return new SecretKeySpec(DigestUtils.sha256("geheimerSchluesselDerNochGehashtWird"), "AES");
+  }
+
+  @Setup
+  public void setUp() {
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    BrainpoolCurves.init();
+    final IdpJwtProcessor serverSigner =
+        new IdpJwtProcessor(BenchmarkIdentities.get(BenchmarkIdentities.IDP_SIG));
+    final PkiIdentity clientIdentity = BenchmarkIdentities.get(BenchmarkIdentities.CLIENT_EGK_ECC);
+    final Key symmetricEncryptionKey = symmetricEncryptionKey();
+    clientCertificate = clientIdentity.getCertificate();
+
+    authenticationChallengeBuilder =
+        AuthenticationChallengeBuilder.builder()
+            .serverSigner(serverSigner)
+            .uriIdpServer(ISSUER)
+            .userConsentConfiguration(
+                UserConsentConfiguration.builder()
+                    .descriptionTexts(
+                        UserConsentDescriptionTexts.builder().claims(Map.of()).build())
+                    .build())
+            .scopesConfiguration(
+                Map.of(
+                    OPENID,
+                    ScopeConfiguration.builder().description("openid").build(),
+                    EREZEPT,
+                    ScopeConfiguration.builder()
+                        .description("e-rezept")
+                        .audienceUrl("https://erp.zentral.erp.splitdns.ti-dienste.de/")
+                        .build()))
+            .build();
+    authenticationTokenBuilder =
+        new AuthenticationTokenBuilder(serverSigner, symmetricEncryptionKey, ISSUER);
+    accessTokenBuilder =
+        new AccessTokenBuilder(
+            serverSigner,
+            ISSUER,
+            "saltValue",
+            Map.of(EREZEPT, "https://erp.zentral.erp.splitdns.ti-dienste.de/"));
+    idTokenBuilder = new IdTokenBuilder(serverSigner, ISSUER, "saltValue");
+    ssoTokenBuilder = new SsoTokenBuilder(serverSigner, ISSUER, symmetricEncryptionKey);
+
+    challengeClaims = authenticationChallenge().getChallenge().getBodyClaims();
+    authenticationToken = authenticationToken().decryptNestedJwt(symmetricEncryptionKey);
+    accessToken = accessToken();
+  }
+
+  @Benchmark
+  public AuthenticationChallenge authenticationChallenge() {
+    return authenticationChallengeBuilder.buildAuthenticationChallenge(
+        CLIENT_ID, "state", REDIRECT_URI, "codeChallenge", SCOPE, "nonce");
+  }
+
+  @Benchmark
+  public IdpJwe authenticationToken() {
+    return authenticationTokenBuilder.buildAuthenticationToken(
+        clientCertificate, challengeClaims, ZonedDateTime.now());
+  }
+
+  @Benchmark
+  public JsonWebToken accessToken() {
+    return accessTokenBuilder.buildAccessToken(authenticationToken);
+  }
+
+  @Benchmark
+  public JsonWebToken idToken() {
+    return idTokenBuilder.buildIdToken(CLIENT_ID, authenticationToken, accessToken);
+  }
+
+  @Benchmark
+  public IdpJwe ssoToken() {
+    return ssoTokenBuilder.buildSsoToken(
+        clientCertificate, ZonedDateTime.now(), List.of("mfa", "sc", "pin"));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.benchmarks;
+
+import de.gematik.idp.brainPoolExtension.BrainpoolCurves;
+import de.gematik.idp.crypto.CertificateProfileExtractor;
+import de.gematik.idp.crypto.X509ClaimExtraction;
+import de.gematik.idp.crypto.model.CertificateProfile;
+import de.gematik.idp.token.IdpJwe;
+import de.gematik.idp.token.JsonWebToken;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the verifying side of the flow: decryption of the authorization code, signature
+ * verification of the access token and claim extraction from the client certificate (cached and
+ * uncached). The tokens are produced once by {@link TokenBuilderBenchmark} and parsed from their
+ * raw form on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerifierBenchmark {
+
+  private Key symmetricEncryptionKey;
+  private PublicKey idpSigPublicKey;
+  private X509Certificate clientCertificate;
+  private String authorizationCode;
+  private String accessToken;
+
+  @Setup
+  public void setUp() {
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+    BrainpoolCurves.init();
+    final TokenBuilderBenchmark tokenBuilder = new TokenBuilderBenchmark();
+    tokenBuilder.setUp();
+    symmetricEncryptionKey = TokenBuilderBenchmark.symmetricEncryptionKey();
+    idpSigPublicKey =
+        BenchmarkIdentities.get(BenchmarkIdentities.IDP_SIG).getCertificate().getPublicKey();
+    clientCertificate =
+        BenchmarkIdentities.get(BenchmarkIdentities.CLIENT_EGK_ECC).getCertificate();
+    authorizationCode = tokenBuilder.authenticationToken().getRawString();
+    accessToken = tokenBuilder.accessToken().getRawString();
+  }
+
+  @Benchmark
+  public JsonWebToken decryptNestedJwt() {
+    return new IdpJwe(authorizationCode).decryptNestedJwt(symmetricEncryptionKey);
+  }
+
+  @Benchmark
+  public void verify() {
+    new JsonWebToken(accessToken).verify(idpSigPublicKey);
+  }
+
+  @Benchmark
+  public Map<String, Object> extractClaimsFromCertificate() {
+    return X509ClaimExtraction.extractClaimsFromCertificate(clientCertificate);
+  }
+
+  @Benchmark
+  public CertificateProfile extractCertificateProfileUncached() {
+    return CertificateProfileExtractor.extract(clientCertificate);
+  }
+}
@@ -26,8 +26,8 @@ import de.gematik.idp.exceptions.ChallengeExpiredException;
 import de.gematik.idp.exceptions.ChallengeSignatureInvalidException;
 import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.exceptions.NoNestedJwtFoundException;
-import de.gematik.idp.field.ClaimName;
 import de.gematik.idp.token.JsonWebToken;
+import de.gematik.idp.token.JwtVerifierRegistry;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.time.ZonedDateTime;
@@ -36,11 +36,8 @@ import java.util.Optional;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import org.jose4j.jwa.AlgorithmConstraints;
-import org.jose4j.jwa.AlgorithmConstraints.ConstraintType;
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jwt.consumer.JwtConsumer;
-import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 
 @Data
 @Builder
@@ -50,15 +47,31 @@ public class AuthenticationChallengeVerifier {
   private PublicKey serverPublicKey;
 
   public void verifyResponseAndThrowExceptionIfFail(final JsonWebToken authenticationResponse) {
-    final X509Certificate clientCertificate =
-        extractClientCertificateFromChallenge(authenticationResponse)
-            .orElseThrow(
-                () ->
-                    new IdpJoseException(
-                        "Could not extract client certificate from challenge response header"));
+    verifyChallengeAndThrowExceptionIfFail(
+        new ChallengeVerificationContext(authenticationResponse));
+  }
 
-    performClientSignatureValidation(clientCertificate, authenticationResponse.getRawString());
-    performServerSignatureValidationOfNjwt(authenticationResponse);
+  /**
+   * Verifies client and server signature of the challenge carried by the given context. Checks
+   * already recorded in the context are not repeated.
+   */
+  public void verifyChallengeAndThrowExceptionIfFail(final ChallengeVerificationContext context) {
+    if (!context.isClientSignatureVerified()) {
+      final X509Certificate clientCertificate =
+          context
+              .getClientCertificate()
+              .orElseThrow(
+                  () ->
+                      new IdpJoseException(
+                          "Could not extract client certificate from challenge response header"));
+      performClientSignatureValidation(
+          clientCertificate, context.getSignedChallenge().getRawString());
+      context.markClientSignatureVerified();
+    }
+    if (!context.isServerSignatureVerified()) {
+      performServerSignatureValidationOfNjwt(context);
+      context.markServerSignatureVerified();
+    }
   }
 
   public void verifyResponseWithCertAndThrowExceptionIfFail(
@@ -69,15 +82,11 @@ public class AuthenticationChallengeVerifier {
   private void performClientSignatureValidation(
       final X509Certificate clientCertificate, final String authResponse) {
     final JwtConsumer serverJwtConsumer =
-        new JwtConsumerBuilder()
-            .setVerificationKey(clientCertificate.getPublicKey())
-            .setSkipDefaultAudienceValidation()
-            .setJwsAlgorithmConstraints(
-                (new AlgorithmConstraints(
-                    ConstraintType.PERMIT,
-                    AlgorithmIdentifiers.RSA_PSS_USING_SHA256,
-                    BRAINPOOL256_USING_SHA256)))
-            .build();
+        JwtVerifierRegistry.getDefault()
+            .getConsumer(
+                clientCertificate.getPublicKey(),
+                AlgorithmIdentifiers.RSA_PSS_USING_SHA256,
+                BRAINPOOL256_USING_SHA256);
     try {
       serverJwtConsumer.process(authResponse);
     } catch (final Exception e) {
@@ -85,12 +94,9 @@ public class AuthenticationChallengeVerifier {
     }
   }
 
-  private void performServerSignatureValidationOfNjwt(final JsonWebToken authenticationResponse) {
+  private void performServerSignatureValidationOfNjwt(final ChallengeVerificationContext context) {
     final JsonWebToken serverChallenge =
-        authenticationResponse
-            .getBodyClaim(ClaimName.NESTED_JWT)
-            .map(njwt -> new JsonWebToken(njwt.toString()))
-            .orElseThrow(NoNestedJwtFoundException::new);
+        context.getServerChallenge().orElseThrow(NoNestedJwtFoundException::new);
 
     if (serverChallenge.getExpiresAt().isBefore(ZonedDateTime.now())
         || serverChallenge.getExpiresAtBody().isBefore(ZonedDateTime.now())) {
@@ -0,0 +1,98 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.authentication;
+
+import de.gematik.idp.field.ClaimName;
+import de.gematik.idp.token.IdpJwe;
+import de.gematik.idp.token.JsonWebToken;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.Optional;
+import lombok.Getter;
+
+/**
+ * Carries one signed challenge through the verification pipeline of a single request. The nested
+ * server challenge ("njwt"), its claims and the client certificate are parsed at most once, and the
+ * outcome of the signature checks is recorded so that later stages do not repeat them.
+ *
+ * <p>Instances are not thread-safe and must not outlive the request they were created for.
+ */
+public class ChallengeVerificationContext {
+
+  /** the encrypted challenge as received, {@code null} when the caller only has the JWS */
+  @Getter private final IdpJwe encryptedChallenge;
+
+  /** the challenge signed by the client, i.e. the decrypted outer JWS */
+  @Getter private final JsonWebToken signedChallenge;
+
+  @Getter private boolean clientSignatureVerified;
+  @Getter private boolean serverSignatureVerified;
+  private Optional<JsonWebToken> serverChallenge;
+  private Optional<X509Certificate> clientCertificate;
+
+  public ChallengeVerificationContext(
+      final IdpJwe encryptedChallenge, final JsonWebToken signedChallenge) {
+    this.encryptedChallenge = encryptedChallenge;
+    this.signedChallenge = signedChallenge;
+  }
+
+  public ChallengeVerificationContext(final JsonWebToken signedChallenge) {
+    this(null, signedChallenge);
+  }
+
+  /**
+   * @return the server challenge nested in the "njwt" claim of the signed challenge
+   */
+  public Optional<JsonWebToken> getServerChallenge() {
+    if (serverChallenge == null) {
+      serverChallenge =
+          signedChallenge
+              .getBodyClaim(ClaimName.NESTED_JWT)
+              .map(njwt -> new JsonWebToken(njwt.toString()));
+    }
+    return serverChallenge;
+  }
+
+  /**
+   * @return the body claims of the server challenge, shared by all callers of this context
+   */
+  public Optional<Map<String, Object>> getServerChallengeClaims() {
+    return getServerChallenge().map(JsonWebToken::getBodyClaims);
+  }
+
+  /**
+   * @return the client certificate from the x5c header of the signed challenge
+   */
+  public Optional<X509Certificate> getClientCertificate() {
+    if (clientCertificate == null) {
+      clientCertificate = signedChallenge.getClientCertificateFromHeader();
+    }
+    return clientCertificate;
+  }
+
+  void markClientSignatureVerified() {
+    clientSignatureVerified = true;
+  }
+
+  void markServerSignatureVerified() {
+    serverSignatureVerified = true;
+  }
+}
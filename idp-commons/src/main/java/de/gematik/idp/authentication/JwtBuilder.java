@@ -23,6 +23,8 @@ package de.gematik.idp.authentication;
 import static de.gematik.idp.brainPoolExtension.BrainpoolAlgorithmSuiteIdentifiers.BRAINPOOL256_USING_SHA256;
 
 import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.crypto.jfr.IdpEvents;
+import de.gematik.idp.crypto.jfr.JwsEvent;
 import de.gematik.idp.crypto.model.PkiIdentity;
 import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.field.ClaimName;
@@ -128,10 +130,22 @@ public class JwtBuilder {
       jws.setCertificateChainHeaderValue(certificate);
     }
 
+    final JwsEvent event = new JwsEvent(IdpEvents.SIGN);
+    event.begin();
     try {
       return new JsonWebToken(jws.getCompactSerialization());
     } catch (final JoseException e) {
       throw new IdpJoseException(e);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event
+            .describe(
+                jws.getAlgorithmHeaderValue(),
+                Objects.toString(headerClaims.get(ClaimName.KEY_ID.getJoseName()), null),
+                Objects.toString(headerClaims.get(ClaimName.TYPE.getJoseName()), null))
+            .commit();
+      }
     }
   }
 
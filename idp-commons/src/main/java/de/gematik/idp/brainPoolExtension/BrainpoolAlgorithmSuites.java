@@ -20,18 +20,62 @@
 
 package de.gematik.idp.brainPoolExtension;
 
+import de.gematik.idp.crypto.CryptoPrimitivePool;
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.io.IOException;
+import java.security.Key;
+import java.security.PrivateKey;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.CryptoPrimitive;
 import org.jose4j.jws.EcdsaUsingShaAlgorithm;
 import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.lang.JoseException;
 
 public class BrainpoolAlgorithmSuites extends EcdsaUsingShaAlgorithm
     implements JsonWebSignatureAlgorithm {
 
+  private final int signatureByteLength;
+
   public BrainpoolAlgorithmSuites(
       final String id,
       final String javaAlgo,
       final String curveName,
       final int signatureByteLength) {
     super(id, javaAlgo, curveName, signatureByteLength);
+    this.signatureByteLength = signatureByteLength;
+  }
+
+  /**
+   * Hands out the bare key instead of a freshly initialized {@link java.security.Signature}, so
+   * that {@link #sign(CryptoPrimitive, byte[])} can use the thread-confined signer of {@link
+   * CryptoPrimitivePool}. A signature provider pinned in the provider context is still honored.
+   */
+  @Override
+  public CryptoPrimitive prepareForSign(final Key key, final ProviderContext providerContext)
+      throws JoseException {
+    if (!(key instanceof PrivateKey)
+        || providerContext != null
+            && providerContext.getSuppliedKeyProviderContext().getSignatureProvider() != null) {
+      return super.prepareForSign(key, providerContext);
+    }
+    validateSigningKey(key);
+    return new CryptoPrimitive(key);
+  }
+
+  @Override
+  public byte[] sign(final CryptoPrimitive cryptoPrimitive, final byte[] securedInputBytes)
+      throws JoseException {
+    if (cryptoPrimitive.getSignature() != null) {
+      return super.sign(cryptoPrimitive, securedInputBytes);
+    }
+    try {
+      return convertDerToConcatenated(
+          CryptoPrimitivePool.sign(
+              getJavaAlgorithm(), (PrivateKey) cryptoPrimitive.getKey(), securedInputBytes),
+          signatureByteLength);
+    } catch (final IdpCryptoException | IOException e) {
+      throw new JoseException("Problem creating signature: " + e.getMessage(), e);
+    }
   }
 
   public static class EcdsaBP256R1UsingSha256 extends BrainpoolAlgorithmSuites {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import de.gematik.idp.exceptions.IdpJoseException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.jose4j.json.JsonUtil;
+import org.jose4j.lang.JoseException;
+
+/**
+ * Parsed view of a JOSE compact serialization. The dot offsets are located once, the header and
+ * payload segments are decoded and parsed only when requested and kept for further calls. Inside a
+ * {@link Scope} the same raw string always resolves to the same instance, so repeated wrapping of
+ * one token (e.g. the njwt of a signed challenge) is parsed only once per request.
+ *
+ * <p>The claim maps held here are shared and unmodifiable, {@link IdpJoseObject} hands out copies.
+ */
+public final class CompactSerialization {
+
+  private static final ThreadLocal<Map<String, CompactSerialization>> SCOPED_INSTANCES =
+      new ThreadLocal<>();
+  private static final Scope NOOP_SCOPE = () -> {};
+
+  private final String rawString;
+  private final int[] dotOffsets;
+  private byte[] asciiBytes;
+  private String headerJson;
+  private String payload;
+  private Map<String, Object> headerClaims;
+  private Map<String, Object> bodyClaims;
+
+  private CompactSerialization(final String rawString) {
+    this.rawString = Objects.requireNonNull(rawString);
+    this.dotOffsets = findDotOffsets(rawString);
+  }
+
+  public static CompactSerialization of(final String rawString) {
+    final Map<String, CompactSerialization> scopedInstances = SCOPED_INSTANCES.get();
+    if (scopedInstances == null) {
+      return new CompactSerialization(rawString);
+    }
+    return scopedInstances.computeIfAbsent(rawString, CompactSerialization::new);
+  }
+
+  /**
+   * Binds an interning scope to the current thread until the returned scope is closed. Nested calls
+   * join the already open scope.
+   */
+  public static Scope openScope() {
+    if (SCOPED_INSTANCES.get() != null) {
+      return NOOP_SCOPE;
+    }
+    SCOPED_INSTANCES.set(new HashMap<>());
+    return SCOPED_INSTANCES::remove;
+  }
+
+  public String getRawString() {
+    return rawString;
+  }
+
+  public int getPartCount() {
+    return dotOffsets.length + 1;
+  }
+
+  /**
+   * @return number of parts as {@code rawString.split("\\.")} would report, i.e. without trailing
+   *     empty parts
+   */
+  public int getNonEmptyPartCount() {
+    int partCount = getPartCount();
+    while (partCount > 1 && getPartLength(partCount - 1) == 0) {
+      partCount--;
+    }
+    return partCount;
+  }
+
+  public String getHeaderJson() {
+    if (headerJson == null) {
+      headerJson = new String(decodePart(0), StandardCharsets.UTF_8);
+    }
+    return headerJson;
+  }
+
+  public String getPayload() {
+    if (payload == null) {
+      payload = new String(decodePart(1), StandardCharsets.UTF_8);
+    }
+    return payload;
+  }
+
+  /**
+   * @return header claims of a JWS, {@code null} if this is not a plain three part JWS
+   */
+  Map<String, Object> getJwsHeaderClaims() {
+    if (headerClaims == null && getPartCount() == 3) {
+      headerClaims = parseJson(getHeaderJson());
+    }
+    return headerClaims;
+  }
+
+  /**
+   * @return body claims of a signed, non nested JWT, {@code null} if the token needs the full
+   *     jose4j processing (other part count, nested content type or unsigned)
+   */
+  Map<String, Object> getJwtBodyClaims() {
+    if (bodyClaims == null && isSignedFlatJwt()) {
+      bodyClaims = parseJson(getPayload());
+    }
+    return bodyClaims;
+  }
+
+  private boolean isSignedFlatJwt() {
+    final Map<String, Object> header = getJwsHeaderClaims();
+    if (header == null) {
+      return false;
+    }
+    final Object contentType = header.get("cty");
+    final Object algorithm = header.get("alg");
+    return !(contentType instanceof final String cty
+            && ("JWT".equalsIgnoreCase(cty) || "application/jwt".equalsIgnoreCase(cty)))
+        && algorithm instanceof final String alg
+        && !"none".equals(alg);
+  }
+
+  byte[] decodePart(final int index) {
+    final int start = index == 0 ? 0 : dotOffsets[index - 1] + 1;
+    final int length = getPartLength(index);
+    if (asciiBytes == null) {
+      asciiBytes = rawString.getBytes(StandardCharsets.US_ASCII);
+    }
+    final ByteBuffer encoded = ByteBuffer.wrap(asciiBytes, start, length);
+    try {
+      final ByteBuffer decoded = Base64.getUrlDecoder().decode(encoded);
+      final byte[] bytes = new byte[decoded.remaining()];
+      decoded.get(bytes);
+      return bytes;
+    } catch (final IllegalArgumentException e) {
+      // fall back to the lenient decoder, which also accepts the standard alphabet
+      return org.apache.commons.codec.binary.Base64.decodeBase64(
+          rawString.substring(start, start + length));
+    }
+  }
+
+  /**
+   * @return length of the still encoded part, without decoding it
+   */
+  public int getPartLength(final int index) {
+    final int start = index == 0 ? 0 : dotOffsets[index - 1] + 1;
+    final int end = index < dotOffsets.length ? dotOffsets[index] : rawString.length();
+    return end - start;
+  }
+
+  private static Map<String, Object> parseJson(final String json) {
+    try {
+      return Collections.unmodifiableMap(JsonUtil.parseJson(json));
+    } catch (final JoseException e) {
+      throw new IdpJoseException(e);
+    }
+  }
+
+  private static int[] findDotOffsets(final String rawString) {
+    int count = 0;
+    for (int i = 0; i < rawString.length(); i++) {
+      if (rawString.charAt(i) == '.') {
+        count++;
+      }
+    }
+    final int[] offsets = new int[count];
+    int position = 0;
+    for (int i = 0; i < rawString.length(); i++) {
+      if (rawString.charAt(i) == '.') {
+        offsets[position++] = i;
+      }
+    }
+    return offsets;
+  }
+
+  /** Interning scope, closing it releases all instances parsed within. */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import de.gematik.idp.crypto.FixedKeyEcdh;
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.exceptions.IdpJoseException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.spec.SecretKeySpec;
+import org.jose4j.json.JsonUtil;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jwe.SimpleAeadCipher;
+import org.jose4j.jwe.kdf.KdfUtil;
+import org.jose4j.lang.JoseException;
+
+/**
+ * Decrypts ECDH-ES / A256GCM JWEs for one registered private key without the per message setup of
+ * the jose4j key agreement (JWK parsing, key factory and key agreement lookup and initialization).
+ * The shared secret comes from {@link FixedKeyEcdh}; key derivation and content decryption use the
+ * Concat KDF and AES-GCM implementations of jose4j.
+ *
+ * <p>Tokens using other algorithms, compression or critical headers are not handled here, {@link
+ * #decrypt(String)} returns an empty result and {@link IdpJwe} falls back to jose4j.
+ */
+public final class EcdhEsDecryptionEngine {
+
+  private static final Map<Key, EcdhEsDecryptionEngine> REGISTERED_ENGINES =
+      new ConcurrentHashMap<>();
+  private static final int KEY_LENGTH_BITS = 256;
+  private static final int TAG_LENGTH_BYTES = 16;
+  private static final SimpleAeadCipher AES_GCM =
+      new SimpleAeadCipher(SimpleAeadCipher.GCM_TRANSFORMATION_NAME, TAG_LENGTH_BYTES);
+
+  private final FixedKeyEcdh ecdh;
+
+  public EcdhEsDecryptionEngine(final PrivateKey privateKey) {
+    this.ecdh = new FixedKeyEcdh(privateKey);
+  }
+
+  /** Routes all ECDH-ES decryptions with the given key through a dedicated engine. */
+  public static EcdhEsDecryptionEngine register(final PrivateKey privateKey) {
+    final EcdhEsDecryptionEngine engine = new EcdhEsDecryptionEngine(privateKey);
+    REGISTERED_ENGINES.put(privateKey, engine);
+    return engine;
+  }
+
+  public static void unregister(final Key privateKey) {
+    REGISTERED_ENGINES.remove(privateKey);
+  }
+
+  public static Optional<EcdhEsDecryptionEngine> forKey(final Key key) {
+    if (key == null || REGISTERED_ENGINES.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(REGISTERED_ENGINES.get(key));
+  }
+
+  /**
+   * @param compactSerialization the JWE in compact serialization
+   * @return the decrypted payload, empty if the JWE is not ECDH-ES / A256GCM
+   */
+  public Optional<String> decrypt(final String compactSerialization) {
+    final CompactSerialization serialization = CompactSerialization.of(compactSerialization);
+    if (serialization.getPartCount() != 5 || serialization.getPartLength(1) != 0) {
+      return Optional.empty();
+    }
+    final Map<String, Object> header = parseHeader(serialization);
+    if (!KeyManagementAlgorithmIdentifiers.ECDH_ES.equals(header.get("alg"))
+        || !ContentEncryptionAlgorithmIdentifiers.AES_256_GCM.equals(header.get("enc"))
+        || header.containsKey("zip")
+        || header.containsKey("crit")
+        || !(header.get("epk") instanceof final Map<?, ?> epk)
+        || !"EC".equals(epk.get("kty"))
+        || !(epk.get("x") instanceof final String x)
+        || !(epk.get("y") instanceof final String y)) {
+      return Optional.empty();
+    }
+
+    try {
+      final byte[] sharedSecret =
+          ecdh.computeSharedSecret(decodeCoordinate(x), decodeCoordinate(y));
+      final byte[] contentEncryptionKey =
+          new KdfUtil()
+              .kdf(
+                  sharedSecret,
+                  KEY_LENGTH_BITS,
+                  ContentEncryptionAlgorithmIdentifiers.AES_256_GCM,
+                  stringOrNull(header.get("apu")),
+                  stringOrNull(header.get("apv")));
+      return Optional.of(
+          new String(decryptContent(serialization, contentEncryptionKey), StandardCharsets.UTF_8));
+    } catch (final IdpCryptoException | JoseException | IllegalArgumentException e) {
+      throw new IdpJoseException("Error during decryption", e);
+    }
+  }
+
+  private static byte[] decryptContent(
+      final CompactSerialization serialization, final byte[] contentEncryptionKey)
+      throws JoseException {
+    final String rawString = serialization.getRawString();
+    final byte[] additionalData =
+        rawString.substring(0, rawString.indexOf('.')).getBytes(StandardCharsets.US_ASCII);
+    return AES_GCM.decrypt(
+        new SecretKeySpec(contentEncryptionKey, "AES"),
+        serialization.decodePart(2),
+        serialization.decodePart(3),
+        serialization.decodePart(4),
+        additionalData,
+        null);
+  }
+
+  private static Map<String, Object> parseHeader(final CompactSerialization serialization) {
+    try {
+      return JsonUtil.parseJson(serialization.getHeaderJson());
+    } catch (final JoseException | IllegalArgumentException e) {
+      throw new IdpJoseException("Error during decryption", e);
+    }
+  }
+
+  private static BigInteger decodeCoordinate(final String coordinate) {
+    return new BigInteger(1, Base64.getUrlDecoder().decode(coordinate));
+  }
+
+  private static String stringOrNull(final Object value) {
+    return value instanceof final String string ? string : null;
+  }
+}
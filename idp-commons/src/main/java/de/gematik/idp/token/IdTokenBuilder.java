@@ -86,13 +86,18 @@ public class IdTokenBuilder {
       final String clientId,
       final JsonWebToken authenticationToken,
       final JsonWebToken accessToken) {
+    return buildIdToken(buildIdTokenClaims(clientId, authenticationToken), accessToken);
+  }
+
+  /**
+   * Builds every claim of the ID token that can be derived from the authentication token alone. The
+   * claims depending on the (signed) access token are added by {@link #buildIdToken(Map,
+   * JsonWebToken)}.
+   */
+  public Map<String, Object> buildIdTokenClaims(
+      final String clientId, final JsonWebToken authenticationToken) {
     final Map<String, Object> claimsMap = new HashMap<>();
     final ZonedDateTime now = ZonedDateTime.now();
-    final String atHashValue =
-        Base64.getUrlEncoder()
-            .withoutPadding()
-            .encodeToString(
-                ArrayUtils.subarray(DigestUtils.sha256(accessToken.getRawString()), 0, 16));
 
     claimsMap.put(ISSUER.getJoseName(), issuerUrl);
     claimsMap.put(AUDIENCE.getJoseName(), clientId);
@@ -121,11 +126,7 @@ public class IdTokenBuilder {
                 () ->
                     new IdpJoseException(
                         "Missing '" + AUTHORIZED_PARTY.getJoseName() + "' claim!")));
-    claimsMap.put(
-        AUTHENTICATION_METHODS_REFERENCE.getJoseName(),
-        accessToken.getBodyClaim(AUTHENTICATION_METHODS_REFERENCE).orElseThrow());
     claimsMap.put(AUTHENTICATION_CLASS_REFERENCE.getJoseName(), EIDAS_LOA_HIGH);
-    claimsMap.put(ACCESS_TOKEN_HASH.getJoseName(), atHashValue);
     claimsMap.put(
         SUBJECT.getJoseName(),
         buildSubjectClaim(
@@ -139,6 +140,25 @@ public class IdTokenBuilder {
     claimsMap.put(
         EXPIRES_AT.getJoseName(),
         NumericDate.fromSeconds(now.plusMinutes(5).toEpochSecond()).getValue());
+    return claimsMap;
+  }
+
+  /**
+   * Completes the claims built by {@link #buildIdTokenClaims(String, JsonWebToken)} with at_hash
+   * and amr of the given access token and signs the ID token.
+   */
+  public JsonWebToken buildIdToken(
+      final Map<String, Object> idTokenClaims, final JsonWebToken accessToken) {
+    final Map<String, Object> claimsMap = new HashMap<>(idTokenClaims);
+    final String atHashValue =
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                ArrayUtils.subarray(DigestUtils.sha256(accessToken.getRawString()), 0, 16));
+    claimsMap.put(
+        AUTHENTICATION_METHODS_REFERENCE.getJoseName(),
+        accessToken.getBodyClaim(AUTHENTICATION_METHODS_REFERENCE).orElseThrow());
+    claimsMap.put(ACCESS_TOKEN_HASH.getJoseName(), atHashValue);
 
     final Map<String, Object> headerClaims = new HashMap<>();
     headerClaims.put(TYPE.getJoseName(), "JWT");
@@ -39,8 +39,6 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.codec.binary.StringUtils;
 import tools.jackson.core.JacksonException;
 import tools.jackson.core.JsonGenerator;
 import tools.jackson.databind.SerializationContext;
@@ -50,6 +48,7 @@ import tools.jackson.databind.ValueSerializer;
 public abstract class IdpJoseObject {
 
   private final String rawString;
+  private CompactSerialization compactSerialization;
   private Map<String, Object> headerClaims;
   private Map<String, Object> bodyClaims;
 
@@ -127,21 +126,25 @@ public abstract class IdpJoseObject {
   }
 
   public String getHeaderDecoded() {
-    final String[] split = getRawString().split("\\.");
-    if (split.length < 2) {
+    final CompactSerialization serialization = getCompactSerialization();
+    if (serialization.getNonEmptyPartCount() < 2) {
       throw new IllegalStateException(
-          "Could not retrieve Header: only found " + split.length + " parts!");
+          "Could not retrieve Header: only found "
+              + serialization.getNonEmptyPartCount()
+              + " parts!");
     }
-    return StringUtils.newStringUtf8(Base64.decodeBase64(split[0]));
+    return serialization.getHeaderJson();
   }
 
   public String getPayloadDecoded() {
-    final String[] split = getRawString().split("\\.");
-    if (split.length < 2) {
+    final CompactSerialization serialization = getCompactSerialization();
+    if (serialization.getNonEmptyPartCount() < 2) {
       throw new IllegalStateException(
-          "Could not retrieve Body: only found " + split.length + " parts!");
+          "Could not retrieve Body: only found "
+              + serialization.getNonEmptyPartCount()
+              + " parts!");
     }
-    return StringUtils.newStringUtf8(Base64.decodeBase64(split[1]));
+    return serialization.getPayload();
   }
 
   public Optional<Object> getBodyClaim(final ClaimName claimName) {
@@ -149,6 +152,15 @@ public abstract class IdpJoseObject {
         .filter(Objects::nonNull);
   }
 
+  /** Header value for flight recorder events, which must not fail on malformed tokens. */
+  protected String findHeaderClaimForEvent(final ClaimName claimName) {
+    try {
+      return getHeaderClaim(claimName).map(Object::toString).orElse(null);
+    } catch (final RuntimeException e) {
+      return null;
+    }
+  }
+
   public Optional<Object> getHeaderClaim(final ClaimName claimName) {
     return Optional.ofNullable(getHeaderClaims().get(claimName.getJoseName()))
         .filter(Objects::nonNull);
@@ -181,6 +193,13 @@ public abstract class IdpJoseObject {
     return rawString;
   }
 
+  public CompactSerialization getCompactSerialization() {
+    if (compactSerialization == null) {
+      compactSerialization = CompactSerialization.of(rawString);
+    }
+    return compactSerialization;
+  }
+
   public static class Serializer extends ValueSerializer<IdpJoseObject> {
 
     @Override
@@ -23,6 +23,8 @@ package de.gematik.idp.token;
 import static de.gematik.idp.field.ClaimName.EXPIRES_AT;
 import static de.gematik.idp.field.ClaimName.NESTED_JWT;
 
+import de.gematik.idp.crypto.jfr.IdpEvents;
+import de.gematik.idp.crypto.jfr.JweEvent;
 import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.field.ClaimName;
 import java.security.Key;
@@ -53,6 +55,8 @@ import tools.jackson.databind.annotation.JsonSerialize;
 @JsonDeserialize(using = ValueDeserializer.class)
 public class IdpJwe extends IdpJoseObject {
 
+  public static final int JWE_PART_COUNT = 5;
+
   private Key decryptionKey;
 
   public IdpJwe(final String rawString) {
@@ -82,12 +86,7 @@ public class IdpJwe extends IdpJoseObject {
         .map(TokenClaimExtraction::zonedDateTimeToClaim)
         .ifPresent(expValue -> jwe.setHeader(ClaimName.EXPIRES_AT.getJoseName(), expValue));
     jwe.setHeader(ClaimName.CONTENT_TYPE.getJoseName(), contentType);
-
-    try {
-      return new IdpJwe(jwe.getCompactSerialization());
-    } catch (final JoseException e) {
-      throw new IdpJoseException("Error during token encryption", e);
-    }
+    return encrypt(jwe, payload);
   }
 
   public static IdpJwe createJweWithPayloadAndHeaders(
@@ -96,10 +95,27 @@ public class IdpJwe extends IdpJoseObject {
     jwe.setPlaintext(payload);
     configureKeyForJwe(key, jwe);
     setHeaderOperator.accept(jwe);
+    return encrypt(jwe, payload);
+  }
+
+  private static IdpJwe encrypt(final JsonWebEncryption jwe, final String payload) {
+    final JweEvent event = new JweEvent(IdpEvents.ENCRYPT);
+    event.begin();
     try {
       return new IdpJwe(jwe.getCompactSerialization());
     } catch (final JoseException e) {
       throw new IdpJoseException("Error during token encryption", e);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event
+            .describe(
+                jwe.getAlgorithmHeaderValue(),
+                jwe.getEncryptionMethodHeaderParameter(),
+                jwe.getHeader(ClaimName.CONTENT_TYPE.getJoseName()),
+                payload.length())
+            .commit();
+      }
     }
   }
 
@@ -131,6 +147,32 @@ public class IdpJwe extends IdpJoseObject {
   }
 
   public String decryptJweAndReturnPayloadString(final Key key) {
+    final JweEvent event = new JweEvent(IdpEvents.DECRYPT);
+    event.begin();
+    String payload = null;
+    try {
+      payload = decryptPayload(key);
+      return payload;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event
+            .describe(
+                findHeaderClaimForEvent(ClaimName.ALGORITHM),
+                findHeaderClaimForEvent(ClaimName.ENCRYPTION_ALGORITHM),
+                findHeaderClaimForEvent(ClaimName.CONTENT_TYPE),
+                payload == null ? 0 : payload.length())
+            .commit();
+      }
+    }
+  }
+
+  private String decryptPayload(final Key key) {
+    final Optional<String> fastPathPayload =
+        EcdhEsDecryptionEngine.forKey(key).flatMap(engine -> engine.decrypt(getRawString()));
+    if (fastPathPayload.isPresent()) {
+      return fastPathPayload.get();
+    }
     final JsonWebEncryption receiverJwe = new JsonWebEncryption();
 
     receiverJwe.setAlgorithmConstraints(
@@ -152,12 +194,22 @@ public class IdpJwe extends IdpJoseObject {
     }
   }
 
+  /**
+   * Decodes only the header part, ciphertext and tag are neither split off nor copied. This keeps
+   * header checks cheap for tokens that are rejected before their decryption.
+   */
   @Override
   public Map<String, Object> extractHeaderClaims() {
-    final JsonWebEncryption jwe = new JsonWebEncryption();
+    final CompactSerialization serialization = getCompactSerialization();
+    if (serialization.getPartCount() != JWE_PART_COUNT) {
+      throw new IdpJoseException(
+          "Invalid JWE compact serialization: expected "
+              + JWE_PART_COUNT
+              + " parts, found "
+              + serialization.getPartCount());
+    }
     try {
-      jwe.setCompactSerialization(getRawString());
-      return JsonUtil.parseJson(jwe.getHeaders().getFullHeaderAsJsonString());
+      return JsonUtil.parseJson(serialization.getHeaderJson());
     } catch (final JoseException e) {
       throw new IdpJoseException(e);
     }
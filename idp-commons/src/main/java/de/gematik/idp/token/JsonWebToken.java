@@ -21,6 +21,8 @@
 package de.gematik.idp.token;
 
 import de.gematik.idp.authentication.JwtBuilder;
+import de.gematik.idp.crypto.jfr.IdpEvents;
+import de.gematik.idp.crypto.jfr.JwsEvent;
 import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.exceptions.IdpJwtExpiredException;
 import de.gematik.idp.exceptions.IdpJwtSignatureInvalidException;
@@ -37,8 +39,6 @@ import org.jose4j.jwe.JsonWebEncryption;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwt.consumer.ErrorCodes;
 import org.jose4j.jwt.consumer.InvalidJwtException;
-import org.jose4j.jwt.consumer.JwtConsumer;
-import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import tools.jackson.core.JacksonException;
 import tools.jackson.core.JsonParser;
 import tools.jackson.databind.DeserializationContext;
@@ -57,14 +57,10 @@ public class JsonWebToken extends IdpJoseObject {
   }
 
   public void verify(final PublicKey publicKey) {
-    final JwtConsumer jwtConsumer =
-        new JwtConsumerBuilder()
-            .setVerificationKey(publicKey)
-            .setSkipDefaultAudienceValidation()
-            .build();
-
+    final JwsEvent event = new JwsEvent(IdpEvents.VERIFY);
+    event.begin();
     try {
-      jwtConsumer.process(getRawString());
+      JwtVerifierRegistry.getDefault().getConsumer(publicKey).process(getRawString());
     } catch (final InvalidJwtException e) {
       if (e.getErrorDetails().stream()
           .anyMatch(error -> error.getErrorCode() == ErrorCodes.EXPIRED)) {
@@ -75,6 +71,16 @@ public class JsonWebToken extends IdpJoseObject {
         throw new IdpJwtSignatureInvalidException(e);
       }
       throw new IdpJoseException("Invalid JWT encountered", e);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event
+            .describe(
+                findHeaderClaimForEvent(ClaimName.ALGORITHM),
+                findHeaderClaimForEvent(ClaimName.KEY_ID),
+                findHeaderClaimForEvent(ClaimName.TYPE))
+            .commit();
+      }
     }
   }
 
@@ -140,12 +146,12 @@ public class JsonWebToken extends IdpJoseObject {
 
   @Override
   public Map<String, Object> extractHeaderClaims() {
-    return TokenClaimExtraction.extractClaimsFromJwtHeader(getRawString());
+    return TokenClaimExtraction.extractClaimsFromJwtHeader(getCompactSerialization());
   }
 
   @Override
   public Map<String, Object> extractBodyClaims() {
-    return TokenClaimExtraction.extractClaimsFromJwtBody(getRawString());
+    return TokenClaimExtraction.extractClaimsFromJwtBody(getCompactSerialization());
   }
 
   public static class Deserializer extends ValueDeserializer<IdpJoseObject> {
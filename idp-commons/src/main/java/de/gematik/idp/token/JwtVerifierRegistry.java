@@ -0,0 +1,111 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwa.AlgorithmConstraints.ConstraintType;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+
+/**
+ * Keeps configured {@link JwtConsumer}s per verification key and permitted signature algorithms.
+ * Consumers are immutable once built and validate time based claims at processing time, so one
+ * instance can be shared by all threads verifying tokens of the same key. The number of cached
+ * consumers is bounded, least recently used entries are dropped first.
+ */
+public final class JwtVerifierRegistry {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  private static final JwtVerifierRegistry DEFAULT = new JwtVerifierRegistry(DEFAULT_MAX_ENTRIES);
+  private static final JwtConsumer CLAIMS_ONLY_CONSUMER =
+      new JwtConsumerBuilder()
+          .setSkipSignatureVerification()
+          .setSkipDefaultAudienceValidation()
+          .setSkipAllValidators()
+          .build();
+
+  private final Map<VerifierKey, JwtConsumer> consumers;
+
+  public JwtVerifierRegistry(final int maxEntries) {
+    consumers =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  final Map.Entry<VerifierKey, JwtConsumer> eldest) {
+                return size() > maxEntries;
+              }
+            });
+  }
+
+  public static JwtVerifierRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Consumer that only parses the token. Signature and all claim validators are skipped, use it for
+   * reading claims of tokens that are verified elsewhere.
+   */
+  public static JwtConsumer getClaimsOnlyConsumer() {
+    return CLAIMS_ONLY_CONSUMER;
+  }
+
+  /**
+   * @param publicKey verification key
+   * @param permittedAlgorithms permitted JWS algorithms, no constraint if empty
+   * @return shared consumer verifying signature, exp, iat and nbf
+   */
+  public JwtConsumer getConsumer(final PublicKey publicKey, final String... permittedAlgorithms) {
+    final VerifierKey verifierKey =
+        new VerifierKey(Objects.requireNonNull(publicKey), List.of(permittedAlgorithms));
+    return consumers.computeIfAbsent(verifierKey, JwtVerifierRegistry::buildConsumer);
+  }
+
+  public int size() {
+    return consumers.size();
+  }
+
+  public void clear() {
+    consumers.clear();
+  }
+
+  private static JwtConsumer buildConsumer(final VerifierKey verifierKey) {
+    final JwtConsumerBuilder jwtConsumerBuilder =
+        new JwtConsumerBuilder()
+            .setVerificationKey(verifierKey.publicKey())
+            .setSkipDefaultAudienceValidation();
+    if (!verifierKey.permittedAlgorithms().isEmpty()) {
+      jwtConsumerBuilder.setJwsAlgorithmConstraints(
+          new AlgorithmConstraints(
+              ConstraintType.PERMIT, verifierKey.permittedAlgorithms().toArray(new String[0])));
+    }
+    return jwtConsumerBuilder.build();
+  }
+
+  private record VerifierKey(PublicKey publicKey, List<String> permittedAlgorithms) {}
+}
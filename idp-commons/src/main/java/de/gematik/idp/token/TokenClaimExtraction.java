@@ -25,6 +25,7 @@ import java.security.interfaces.ECPublicKey;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import lombok.AccessLevel;
@@ -35,8 +36,6 @@ import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.consumer.InvalidJwtException;
-import org.jose4j.jwt.consumer.JwtConsumer;
-import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.lang.JoseException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
@@ -50,24 +49,36 @@ public class TokenClaimExtraction {
    * @desc Implements the extraction of claims from json web tokens
    */
   public static Map<String, Object> extractClaimsFromJwtBody(final String token) {
-    final JwtConsumer jwtConsumer =
-        new JwtConsumerBuilder()
-            .setSkipSignatureVerification()
-            .setSkipDefaultAudienceValidation()
-            .setSkipAllValidators()
-            .build();
+    return extractClaimsFromJwtBody(CompactSerialization.of(token));
+  }
 
+  public static Map<String, Object> extractClaimsFromJwtBody(final CompactSerialization token) {
+    final Map<String, Object> claims = token.getJwtBodyClaims();
+    if (claims != null) {
+      return new LinkedHashMap<>(claims);
+    }
     try {
-      return jwtConsumer.process(token).getJwtClaims().getClaimsMap();
+      return JwtVerifierRegistry.getClaimsOnlyConsumer()
+          .process(token.getRawString())
+          .getJwtClaims()
+          .getClaimsMap();
     } catch (final InvalidJwtException e) {
       throw new IdpJoseException(e);
     }
   }
 
   public static Map<String, Object> extractClaimsFromJwtHeader(final String token) {
+    return extractClaimsFromJwtHeader(CompactSerialization.of(token));
+  }
+
+  public static Map<String, Object> extractClaimsFromJwtHeader(final CompactSerialization token) {
+    final Map<String, Object> claims = token.getJwsHeaderClaims();
+    if (claims != null) {
+      return new LinkedHashMap<>(claims);
+    }
     final JsonWebSignature jsonWebSignature = new JsonWebSignature();
     try {
-      jsonWebSignature.setCompactSerialization(token);
+      jsonWebSignature.setCompactSerialization(token.getRawString());
       return JsonUtil.parseJson(jsonWebSignature.getHeaders().getFullHeaderAsJsonString());
     } catch (final JoseException e) {
       throw new IdpJoseException(e);
@@ -75,16 +86,14 @@ public class TokenClaimExtraction {
   }
 
   public static JsonWebKeySet extractJwksFromBody(final String token) {
-    final JwtConsumer jwtConsumer =
-        new JwtConsumerBuilder()
-            .setSkipSignatureVerification()
-            .setSkipDefaultAudienceValidation()
-            .setSkipAllValidators()
-            .build();
     try {
       final JsonMapper mapper = JsonMapper.builder().build();
       final JsonNode payload =
-          mapper.readTree(jwtConsumer.process(token).getJwtClaims().getRawJson());
+          mapper.readTree(
+              JwtVerifierRegistry.getClaimsOnlyConsumer()
+                  .process(token)
+                  .getJwtClaims()
+                  .getRawJson());
       return new JsonWebKeySet(payload.get("jwks").toString());
     } catch (final InvalidJwtException | JoseException e) {
       throw new IdpJoseException(e);
@@ -233,6 +233,38 @@ class AuthenticationChallengeVerifierTest {
         .isInstanceOf(ChallengeSignatureInvalidException.class);
   }
 
+  @Test
+  void verifyChallengeContext_shouldParseNestedChallengeOnceAndRecordResults() {
+    final AuthenticationResponse authenticationResponse =
+        authenticationResponseBuilder.buildResponseForChallenge(
+            authenticationChallenge, clientIdentity);
+    final ChallengeVerificationContext context =
+        new ChallengeVerificationContext(authenticationResponse.getSignedChallenge());
+    final JsonWebToken serverChallenge = context.getServerChallenge().orElseThrow();
+
+    authenticationChallengeVerifier.verifyChallengeAndThrowExceptionIfFail(context);
+
+    assertThat(context.isClientSignatureVerified()).isTrue();
+    assertThat(context.isServerSignatureVerified()).isTrue();
+    assertThat(context.getServerChallenge()).containsSame(serverChallenge);
+    assertThat(context.getServerChallengeClaims().orElseThrow())
+        .isSameAs(serverChallenge.getBodyClaims())
+        .containsEntry("client_id", "goo");
+  }
+
+  @Test
+  void verifyChallengeContext_shouldNotRepeatRecordedChecks() {
+    final AuthenticationResponse authenticationResponse =
+        buildInvalidResponseForChallenge(authenticationChallenge, rsaClientIdentity);
+    final ChallengeVerificationContext context =
+        new ChallengeVerificationContext(authenticationResponse.getSignedChallenge());
+    context.markClientSignatureVerified();
+
+    authenticationChallengeVerifier.verifyChallengeAndThrowExceptionIfFail(context);
+
+    assertThat(context.isServerSignatureVerified()).isTrue();
+  }
+
   private AuthenticationResponse buildInvalidResponseForChallenge(
       final AuthenticationChallenge authenticationChallenge, final PkiIdentity clientIdentity) {
     final JwtClaims claims = new JwtClaims();
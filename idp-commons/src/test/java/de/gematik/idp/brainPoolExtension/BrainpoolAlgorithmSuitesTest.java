@@ -0,0 +1,87 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.brainPoolExtension;
+
+import static de.gematik.idp.brainPoolExtension.BrainpoolAlgorithmSuiteIdentifiers.BRAINPOOL256_USING_SHA256;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.tests.PkiKeyResolver;
+import java.security.Security;
+import lombok.SneakyThrows;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jose4j.jca.ProviderContext;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwa.AlgorithmConstraints.ConstraintType;
+import org.jose4j.jws.JsonWebSignature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class BrainpoolAlgorithmSuitesTest {
+
+  static {
+    if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+      Security.addProvider(new BouncyCastleProvider());
+    }
+    BrainpoolCurves.init();
+  }
+
+  @Test
+  void signaturesFromPooledSignerShouldVerify(final PkiIdentity ecc) {
+    for (int i = 0; i < 3; i++) {
+      assertThat(verify(sign(ecc, null, "payload" + i), ecc)).isTrue();
+    }
+  }
+
+  @Test
+  void pinnedSignatureProviderShouldStillBeUsable(final PkiIdentity ecc) {
+    final ProviderContext providerContext = new ProviderContext();
+    providerContext
+        .getSuppliedKeyProviderContext()
+        .setSignatureProvider(BouncyCastleProvider.PROVIDER_NAME);
+
+    assertThat(verify(sign(ecc, providerContext, "payload"), ecc)).isTrue();
+  }
+
+  @SneakyThrows
+  private static String sign(
+      final PkiIdentity identity, final ProviderContext providerContext, final String payload) {
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setAlgorithmHeaderValue(BRAINPOOL256_USING_SHA256);
+    jws.setKey(identity.getPrivateKey());
+    jws.setPayload(payload);
+    if (providerContext != null) {
+      jws.setProviderContext(providerContext);
+    }
+    return jws.getCompactSerialization();
+  }
+
+  @SneakyThrows
+  private static boolean verify(final String compactSerialization, final PkiIdentity identity) {
+    final JsonWebSignature jws = new JsonWebSignature();
+    jws.setAlgorithmConstraints(
+        new AlgorithmConstraints(ConstraintType.PERMIT, BRAINPOOL256_USING_SHA256));
+    jws.setCompactSerialization(compactSerialization);
+    jws.setKey(identity.getCertificate().getPublicKey());
+    return jws.verifySignature();
+  }
+}
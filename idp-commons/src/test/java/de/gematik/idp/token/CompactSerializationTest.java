@@ -0,0 +1,131 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.authentication.JwtBuilder;
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.exceptions.IdpJoseException;
+import de.gematik.idp.field.ClaimName;
+import de.gematik.idp.tests.PkiKeyResolver;
+import java.security.Security;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class CompactSerializationTest {
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  private JsonWebToken jsonWebToken;
+
+  @BeforeEach
+  public void setup(@PkiKeyResolver.Filename("ecc") final PkiIdentity identity) {
+    jsonWebToken =
+        new IdpJwtProcessor(identity)
+            .buildJwt(
+                new JwtBuilder()
+                    .addBodyClaim(ClaimName.ISSUER, "issuer")
+                    .expiresAt(ZonedDateTime.now().plusMinutes(5)));
+  }
+
+  @Test
+  void partsAreLocatedOnce() {
+    final CompactSerialization serialization = CompactSerialization.of(jsonWebToken.getRawString());
+
+    assertThat(serialization.getPartCount()).isEqualTo(3);
+    assertThat(serialization.getHeaderJson()).contains("\"alg\"");
+    assertThat(serialization.getPayload()).contains("\"iss\":\"issuer\"");
+  }
+
+  @Test
+  void claimsMatchJose4jExtraction() throws InvalidJwtException {
+    final CompactSerialization serialization = CompactSerialization.of(jsonWebToken.getRawString());
+
+    assertThat(TokenClaimExtraction.extractClaimsFromJwtBody(serialization))
+        .isEqualTo(
+            JwtVerifierRegistry.getClaimsOnlyConsumer()
+                .process(jsonWebToken.getRawString())
+                .getJwtClaims()
+                .getClaimsMap())
+        .containsEntry("iss", "issuer");
+    assertThat(serialization.getJwtBodyClaims().get("exp")).isInstanceOf(Long.class);
+  }
+
+  @Test
+  void extractedClaimsAreIndependentCopies() {
+    final Map<String, Object> claims =
+        TokenClaimExtraction.extractClaimsFromJwtBody(jsonWebToken.getRawString());
+    claims.put("foo", "bar");
+
+    assertThat(new JsonWebToken(jsonWebToken.getRawString()).getBodyClaims())
+        .doesNotContainKey("foo");
+  }
+
+  @Test
+  void sameStringIsInternedOnlyWithinScope() {
+    final String rawString = jsonWebToken.getRawString();
+    assertThat(CompactSerialization.of(rawString)).isNotSameAs(CompactSerialization.of(rawString));
+
+    try (final CompactSerialization.Scope ignored = CompactSerialization.openScope()) {
+      try (final CompactSerialization.Scope nested = CompactSerialization.openScope()) {
+        assertThat(new JsonWebToken(rawString).getCompactSerialization())
+            .isSameAs(new JsonWebToken(rawString).getCompactSerialization());
+      }
+      assertThat(CompactSerialization.of(rawString)).isSameAs(CompactSerialization.of(rawString));
+    }
+
+    assertThat(CompactSerialization.of(rawString)).isNotSameAs(CompactSerialization.of(rawString));
+  }
+
+  @Test
+  void nestedJwtContentTypeFallsBackToJose4j() {
+    final String nestedHeader = "eyJhbGciOiJub25lIiwiY3R5IjoiSldUIn0";
+    final CompactSerialization serialization = CompactSerialization.of(nestedHeader + ".e30.");
+
+    assertThat(serialization.getJwsHeaderClaims()).containsEntry("cty", "JWT");
+    assertThat(serialization.getJwtBodyClaims()).isNull();
+  }
+
+  @Test
+  void invalidJsonShouldThrowIdpJoseException() {
+    assertThatThrownBy(() -> TokenClaimExtraction.extractClaimsFromJwtBody("e30.bm9qc29u.sig"))
+        .isInstanceOf(IdpJoseException.class);
+  }
+
+  @Test
+  void nonEmptyPartCountBehavesLikeSplit() {
+    assertThat(CompactSerialization.of("abc").getNonEmptyPartCount()).isEqualTo(1);
+    assertThat(CompactSerialization.of("abc.").getNonEmptyPartCount()).isEqualTo(1);
+    assertThat(CompactSerialization.of("a.b.").getNonEmptyPartCount()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import static de.gematik.idp.field.ClaimName.CONFIRMATION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.exceptions.IdpJoseException;
+import de.gematik.idp.tests.PkiKeyResolver;
+import de.gematik.idp.tests.PkiKeyResolver.Filename;
+import java.security.Security;
+import java.util.Base64;
+import javax.crypto.spec.SecretKeySpec;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class EcdhEsDecryptionEngineTest {
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  private PkiIdentity identity;
+  private IdpJwe encryptedToken;
+
+  @BeforeEach
+  public void setUp(@Filename("109500969_X114428530-2_c.ch.aut-ecc") final PkiIdentity identity) {
+    this.identity = identity;
+    encryptedToken =
+        IdpJwe.createWithPayloadAndEncryptWithKey(
+            "{\"" + CONFIRMATION.getJoseName() + "\":\"foobarschmar\"}",
+            identity.getCertificate().getPublicKey(),
+            "JSON");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    EcdhEsDecryptionEngine.unregister(identity.getPrivateKey());
+  }
+
+  @Test
+  void decrypt_shouldMatchJose4jDecryption() {
+    final String expectedPayload =
+        encryptedToken.decryptJweAndReturnPayloadString(identity.getPrivateKey());
+
+    final EcdhEsDecryptionEngine engine = EcdhEsDecryptionEngine.register(identity.getPrivateKey());
+
+    assertThat(engine.decrypt(encryptedToken.getRawString())).contains(expectedPayload);
+    assertThat(encryptedToken.decryptJweAndReturnPayloadString(identity.getPrivateKey()))
+        .isEqualTo(expectedPayload);
+  }
+
+  @Test
+  void decrypt_manipulatedCipherText_shouldThrow() {
+    final EcdhEsDecryptionEngine engine = EcdhEsDecryptionEngine.register(identity.getPrivateKey());
+    final String[] parts = encryptedToken.getRawString().split("\\.");
+    final byte[] cipherText = Base64.getUrlDecoder().decode(parts[3]);
+    cipherText[0] ^= 1;
+    parts[3] = Base64.getUrlEncoder().withoutPadding().encodeToString(cipherText);
+    final String manipulated = String.join(".", parts);
+
+    assertThatThrownBy(() -> engine.decrypt(manipulated)).isInstanceOf(IdpJoseException.class);
+  }
+
+  @Test
+  void decrypt_directEncryption_shouldBeLeftToJose4j() {
+    final EcdhEsDecryptionEngine engine = EcdhEsDecryptionEngine.register(identity.getPrivateKey());
+    final IdpJwe directlyEncrypted =
+        IdpJwe.createWithPayloadAndEncryptWithKey(
+            "{}", new SecretKeySpec(new byte[32], "AES"), "JSON");
+
+    assertThat(engine.decrypt(directlyEncrypted.getRawString())).isEmpty();
+  }
+
+  @Test
+  void forKey_unregisteredKey_shouldBeEmpty() {
+    assertThat(EcdhEsDecryptionEngine.forKey(identity.getPrivateKey())).isEmpty();
+  }
+}
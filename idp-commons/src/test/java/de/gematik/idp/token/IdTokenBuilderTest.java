@@ -160,6 +160,26 @@ class IdTokenBuilderTest {
         .hasSize(128 / 8);
   }
 
+  @Test
+  void idTokenClaimsBuiltUpFrontShouldBeCompletedWithAccessTokenClaims() {
+    final Map<String, Object> idTokenClaims =
+        idTokenBuilder.buildIdTokenClaims(
+            TestConstants.CLIENT_ID_E_REZEPT_APP, authenticationToken);
+
+    assertThat(idTokenClaims)
+        .containsEntry(AUDIENCE.getJoseName(), TestConstants.CLIENT_ID_E_REZEPT_APP)
+        .doesNotContainKey(ACCESS_TOKEN_HASH.getJoseName())
+        .doesNotContainKey(AUTHENTICATION_METHODS_REFERENCE.getJoseName());
+
+    final JsonWebToken idToken = idTokenBuilder.buildIdToken(idTokenClaims, authenticationToken);
+
+    assertThat(idToken.getBodyClaims())
+        .containsEntry(NONCE.getJoseName(), NONCE_VALUE)
+        .containsEntry(AUTHENTICATION_METHODS_REFERENCE.getJoseName(), List.of("foo", "bar"))
+        .containsKey(ACCESS_TOKEN_HASH.getJoseName());
+    assertThat(idTokenClaims).doesNotContainKey(ACCESS_TOKEN_HASH.getJoseName());
+  }
+
   @Test
   void checkIdTokenWithoutNotExistingUserConsentTokenFromAuthenticationToken(
       @PkiKeyResolver.Filename("apo-rsa") final PkiIdentity clientIdentity) {
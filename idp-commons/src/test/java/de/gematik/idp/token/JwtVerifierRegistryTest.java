@@ -0,0 +1,117 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.token;
+
+import static de.gematik.idp.brainPoolExtension.BrainpoolAlgorithmSuiteIdentifiers.BRAINPOOL256_USING_SHA256;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.authentication.JwtBuilder;
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.tests.PkiKeyResolver;
+import java.security.PublicKey;
+import java.security.Security;
+import java.time.ZonedDateTime;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class JwtVerifierRegistryTest {
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  private JsonWebToken jsonWebToken;
+  private PublicKey publicKey;
+  private PublicKey otherPublicKey;
+
+  @BeforeEach
+  public void setup(
+      @PkiKeyResolver.Filename("ecc") final PkiIdentity identityBrainpool,
+      @PkiKeyResolver.Filename("nist") final PkiIdentity identityNist) {
+    jsonWebToken =
+        new IdpJwtProcessor(identityBrainpool)
+            .buildJwt(new JwtBuilder().expiresAt(ZonedDateTime.now().plusMinutes(5)));
+    publicKey = identityBrainpool.getCertificate().getPublicKey();
+    otherPublicKey = identityNist.getCertificate().getPublicKey();
+  }
+
+  @Test
+  void sameKeyAndConstraints_shouldReturnSameConsumer() {
+    final JwtVerifierRegistry registry = new JwtVerifierRegistry(10);
+
+    assertThat(registry.getConsumer(publicKey, BRAINPOOL256_USING_SHA256))
+        .isSameAs(registry.getConsumer(publicKey, BRAINPOOL256_USING_SHA256))
+        .isNotSameAs(registry.getConsumer(publicKey))
+        .isNotSameAs(registry.getConsumer(otherPublicKey, BRAINPOOL256_USING_SHA256));
+    assertThat(registry.size()).isEqualTo(3);
+  }
+
+  @Test
+  void cachedConsumer_shouldVerifyRepeatedly() throws InvalidJwtException {
+    final JwtVerifierRegistry registry = new JwtVerifierRegistry(10);
+
+    registry.getConsumer(publicKey).process(jsonWebToken.getRawString());
+    registry.getConsumer(publicKey).process(jsonWebToken.getRawString());
+    assertThatThrownBy(
+            () -> registry.getConsumer(otherPublicKey).process(jsonWebToken.getRawString()))
+        .isInstanceOf(InvalidJwtException.class);
+  }
+
+  @Test
+  void algorithmConstraints_shouldBeApplied() {
+    final JwtVerifierRegistry registry = new JwtVerifierRegistry(10);
+
+    assertThatThrownBy(
+            () ->
+                registry
+                    .getConsumer(publicKey, AlgorithmIdentifiers.RSA_PSS_USING_SHA256)
+                    .process(jsonWebToken.getRawString()))
+        .isInstanceOf(InvalidJwtException.class);
+  }
+
+  @Test
+  void registry_shouldBeBounded() {
+    final JwtVerifierRegistry registry = new JwtVerifierRegistry(1);
+
+    registry.getConsumer(publicKey);
+    registry.getConsumer(otherPublicKey);
+
+    assertThat(registry.size()).isEqualTo(1);
+  }
+
+  @Test
+  void claimsOnlyConsumer_shouldReturnClaims() throws InvalidJwtException {
+    assertThat(
+            JwtVerifierRegistry.getClaimsOnlyConsumer()
+                .process(jsonWebToken.getRawString())
+                .getJwtClaims()
+                .getClaimsMap())
+        .containsKey("exp");
+  }
+}
@@ -23,6 +23,8 @@ package de.gematik.idp.crypto;
 import de.gematik.idp.crypto.exceptions.IdpCryptoException;
 import java.io.IOException;
 import java.security.cert.X509Certificate;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -35,42 +37,47 @@ import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class CertificateAnalysis {
 
-  private static final String OID_HBA_AUT = "1.2.276.0.76.4.75"; // A_4445, gemSpec_oid
-  private static final String OID_SMC_B_AUT = "1.2.276.0.76.4.77"; // A_4445, gemSpec_oid
-  private static final String OID_EGK_AUT = "1.2.276.0.76.4.70"; // A_4445, gemSpec_oid
+  private static final ASN1ObjectIdentifier OID_HBA_AUT =
+      new ASN1ObjectIdentifier("1.2.276.0.76.4.75"); // A_4445, gemSpec_oid
+  private static final ASN1ObjectIdentifier OID_SMC_B_AUT =
+      new ASN1ObjectIdentifier("1.2.276.0.76.4.77"); // A_4445, gemSpec_oid
+  private static final ASN1ObjectIdentifier OID_EGK_AUT =
+      new ASN1ObjectIdentifier("1.2.276.0.76.4.70"); // A_4445, gemSpec_oid
 
   public static boolean doesCertificateContainPolicyExtensionOid(
       final X509Certificate certificate, final ASN1ObjectIdentifier policyOid) {
+    return getPolicyOids(certificate).contains(policyOid);
+  }
+
+  public static TiCertificateType determineCertificateType(final X509Certificate certificate) {
+    final Set<ASN1ObjectIdentifier> policyOids = getPolicyOids(certificate);
+    if (policyOids.contains(OID_HBA_AUT)) {
+      return TiCertificateType.HBA;
+    }
+    if (policyOids.contains(OID_SMC_B_AUT)) {
+      return TiCertificateType.SMCB;
+    }
+    if (policyOids.contains(OID_EGK_AUT)) {
+      return TiCertificateType.EGK;
+    }
+    return TiCertificateType.UNKNOWN;
+  }
+
+  private static Set<ASN1ObjectIdentifier> getPolicyOids(final X509Certificate certificate) {
     try {
       final byte[] policyBytes =
           certificate.getExtensionValue(Extension.certificatePolicies.toString());
       if (policyBytes == null) {
-        return false;
+        return Set.of();
       }
 
       final CertificatePolicies policies =
           CertificatePolicies.getInstance(JcaX509ExtensionUtils.parseExtensionValue(policyBytes));
       return Stream.of(policies.getPolicyInformation())
           .map(PolicyInformation::getPolicyIdentifier)
-          .anyMatch(policyId -> policyId.equals(policyOid));
+          .collect(Collectors.toSet());
     } catch (final IOException e) {
       throw new IdpCryptoException("Error while checking Policy-Extension!", e);
     }
   }
-
-  public static TiCertificateType determineCertificateType(final X509Certificate certificate) {
-    if (doesCertificateContainPolicyExtensionOid(
-        certificate, new ASN1ObjectIdentifier(OID_HBA_AUT))) {
-      return TiCertificateType.HBA;
-    }
-    if (doesCertificateContainPolicyExtensionOid(
-        certificate, new ASN1ObjectIdentifier(OID_SMC_B_AUT))) {
-      return TiCertificateType.SMCB;
-    }
-    if (doesCertificateContainPolicyExtensionOid(
-        certificate, new ASN1ObjectIdentifier(OID_EGK_AUT))) {
-      return TiCertificateType.EGK;
-    }
-    return TiCertificateType.UNKNOWN;
-  }
 }
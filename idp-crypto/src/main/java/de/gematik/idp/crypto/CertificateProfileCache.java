@@ -0,0 +1,90 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.crypto.model.CertificateProfile;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Keeps the {@link CertificateProfile}s of recently seen certificates, keyed by the SHA-256 hash of
+ * their DER encoding. A profile only depends on the certificate content, so entries never become
+ * stale. The number of entries is bounded, least recently used entries are dropped first.
+ * Certificates whose extraction fails are not cached.
+ */
+public final class CertificateProfileCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  private static final CertificateProfileCache DEFAULT =
+      new CertificateProfileCache(DEFAULT_MAX_ENTRIES);
+
+  private final Map<String, CertificateProfile> profiles;
+
+  public CertificateProfileCache(final int maxEntries) {
+    profiles =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  final Map.Entry<String, CertificateProfile> eldest) {
+                return size() > maxEntries;
+              }
+            });
+  }
+
+  public static CertificateProfileCache getDefault() {
+    return DEFAULT;
+  }
+
+  public CertificateProfile getProfile(final X509Certificate certificate) {
+    final String fingerprint = fingerprint(certificate);
+    final CertificateProfile cached = profiles.get(fingerprint);
+    if (cached != null) {
+      return cached;
+    }
+    final CertificateProfile profile = CertificateProfileExtractor.extract(certificate);
+    profiles.put(fingerprint, profile);
+    return profile;
+  }
+
+  public int size() {
+    return profiles.size();
+  }
+
+  public void clear() {
+    profiles.clear();
+  }
+
+  private static String fingerprint(final X509Certificate certificate) {
+    try {
+      return Hex.toHexString(
+          CryptoPrimitivePool.messageDigest("SHA-256").digest(certificate.getEncoded()));
+    } catch (final CertificateEncodingException e) {
+      throw new IdpCryptoException("Unable to encode certificate", e);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import static de.gematik.idp.crypto.TiCertificateType.EGK;
+import static de.gematik.idp.crypto.TiCertificateType.HBA;
+import static de.gematik.idp.crypto.TiCertificateType.SMCB;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.crypto.model.CertificateProfile;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DLSequence;
+import org.bouncycastle.asn1.isismtt.ISISMTTObjectIdentifiers;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.RFC4519Style;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+
+/**
+ * Builds the {@link CertificateProfile} of a certificate according to A_20524. The subject DN, the
+ * certificate policies and the admission extension are parsed exactly once.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CertificateProfileExtractor {
+
+  private static final int MAX_VALUE_LENGTH = 64;
+  private static final String VAL_IN_CERT_TOO_LONG = "Value in certificate too long!";
+
+  public static CertificateProfile extract(final X509Certificate certificate) {
+    final TiCertificateType certificateType =
+        CertificateAnalysis.determineCertificateType(certificate);
+    final Map<ASN1ObjectIdentifier, List<String>> subjectDn = parseSubjectDn(certificate);
+    final CertificateProfile.CertificateProfileBuilder profile =
+        CertificateProfile.builder()
+            .certificateType(certificateType)
+            .givenName(getNameValue(subjectDn, certificateType, RFC4519Style.givenName))
+            .familyName(getNameValue(subjectDn, certificateType, RFC4519Style.sn))
+            .organizationIk(
+                getAllValues(subjectDn, RFC4519Style.ou).stream()
+                    .filter(ou -> ou.matches("\\d{9}"))
+                    .findFirst()
+                    .orElse(null));
+    if (certificateType == SMCB) {
+      profile.organizationName(getLimitedValue(subjectDn, RFC4519Style.cn).orElse(null));
+    } else if (certificateType == EGK) {
+      profile.organizationName(getLimitedValue(subjectDn, RFC4519Style.o).orElse(null));
+    }
+
+    final DLSequence admissionEntry =
+        getAdmissionEntry(certificate)
+            .orElseThrow(() -> new IdpCryptoException("No profession OID found!"));
+    profile.professionOid(getProfessionOid(admissionEntry).toString());
+
+    if (certificateType == HBA || certificateType == SMCB) {
+      profile.idNumber(getRegistrationNumber(admissionEntry).orElse(null));
+    } else if (certificateType == EGK) {
+      profile.idNumber(
+          getAllValues(subjectDn, RFC4519Style.ou).stream()
+              .filter(ou -> ou.matches("[a-zA-Z]\\d{9}"))
+              .findFirst()
+              .orElseThrow(
+                  () ->
+                      new IdpCryptoException(
+                          "Could not find OU in EGK Subject-DN: '"
+                              + certificate.getSubjectX500Principal().toString())));
+    }
+    return profile.build();
+  }
+
+  private static Map<ASN1ObjectIdentifier, List<String>> parseSubjectDn(
+      final X509Certificate certificate) {
+    final Map<ASN1ObjectIdentifier, List<String>> valuesByType = new HashMap<>();
+    for (final RDN rdn :
+        X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded()).getRDNs()) {
+      for (final AttributeTypeAndValue attributeTypeAndValue : rdn.getTypesAndValues()) {
+        valuesByType
+            .computeIfAbsent(attributeTypeAndValue.getType(), type -> new ArrayList<>())
+            .add(String.valueOf(attributeTypeAndValue.getValue()));
+      }
+    }
+    return valuesByType;
+  }
+
+  private static List<String> getAllValues(
+      final Map<ASN1ObjectIdentifier, List<String>> subjectDn, final ASN1ObjectIdentifier field) {
+    return subjectDn.getOrDefault(field, List.of());
+  }
+
+  private static Optional<String> getLimitedValue(
+      final Map<ASN1ObjectIdentifier, List<String>> subjectDn, final ASN1ObjectIdentifier field) {
+    final Optional<String> value = getAllValues(subjectDn, field).stream().findFirst();
+    if (value.isPresent() && value.get().length() > MAX_VALUE_LENGTH) {
+      throw new IdpCryptoException(VAL_IN_CERT_TOO_LONG);
+    }
+    return value;
+  }
+
+  private static String getNameValue(
+      final Map<ASN1ObjectIdentifier, List<String>> subjectDn,
+      final TiCertificateType certificateType,
+      final ASN1ObjectIdentifier identifier) {
+    final Optional<String> value = getLimitedValue(subjectDn, identifier);
+    if (value.isEmpty() && ((certificateType == EGK) || (certificateType == HBA))) {
+      throw new IdpCryptoException("No value found in certificate!");
+    }
+    return value.orElse(null);
+  }
+
+  private static ASN1ObjectIdentifier getProfessionOid(final DLSequence admissionEntry) {
+    for (final ASN1Encodable encodable : admissionEntry) {
+      if (encodable instanceof final DLSequence dlSequence
+          && dlSequence.getObjectAt(0) instanceof final ASN1ObjectIdentifier professionOid) {
+        return professionOid;
+      }
+    }
+    throw new IdpCryptoException("No profession OID found!");
+  }
+
+  private static Optional<String> getRegistrationNumber(final DLSequence admissionEntry) {
+    for (final ASN1Encodable encodable : admissionEntry) {
+      if (encodable instanceof final DERPrintableString derPrintableString) {
+        return Optional.of(derPrintableString.getString());
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<DLSequence> getAdmissionEntry(final X509Certificate certificate) {
+    try {
+      final byte[] data =
+          certificate.getExtensionValue(ISISMTTObjectIdentifiers.id_isismtt_at_admission.getId());
+      if (data == null) {
+        return Optional.empty();
+      }
+
+      final ASN1Encodable parsedValue = JcaX509ExtensionUtils.parseExtensionValue(data);
+      final DLSequence a = (DLSequence) parsedValue;
+      DLSequence b = null;
+      for (final ASN1Encodable next : a) {
+        if (next instanceof final DLSequence dlSequence) {
+          b = dlSequence;
+        }
+      }
+      if (b == null) {
+        return Optional.empty();
+      }
+      final DLSequence c = (DLSequence) b.getObjectAt(0);
+      final DLSequence d = (DLSequence) c.getObjectAt(0);
+      return Optional.ofNullable((DLSequence) d.getObjectAt(0));
+    } catch (final IOException e) {
+      throw new IdpCryptoException(e);
+    }
+  }
+}
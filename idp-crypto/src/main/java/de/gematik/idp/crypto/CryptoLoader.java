@@ -21,6 +21,8 @@
 package de.gematik.idp.crypto;
 
 import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.crypto.jfr.CertificateEvent;
+import de.gematik.idp.crypto.jfr.IdpEvents;
 import de.gematik.idp.crypto.model.PkiIdentity;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -66,6 +68,8 @@ public class CryptoLoader {
   }
 
   public static X509Certificate getCertificateFromPem(final byte[] crt) {
+    final CertificateEvent event = new CertificateEvent(IdpEvents.PARSE);
+    event.begin();
     try {
       final CertificateFactory certFactory =
           CertificateFactory.getInstance("X.509", BOUNCY_CASTLE_PROVIDER);
@@ -77,6 +81,11 @@ public class CryptoLoader {
       return x509Certificate;
     } catch (final CertificateException ex) {
       throw new IdpCryptoException("Error while loading certificate!", ex);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.describe(crt.length, null).commit();
+      }
     }
   }
 
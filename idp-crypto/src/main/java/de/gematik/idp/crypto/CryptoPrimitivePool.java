@@ -0,0 +1,140 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Thread-confined JCA primitives. Provider lookup happens once per thread and algorithm instead of
+ * once per token, and a signer stays initialized for the key it was last used with, since {@link
+ * Signature#sign()} resets it to exactly that state.
+ *
+ * <p>Instances handed out by {@link #messageDigest(String)} belong to the calling thread and must
+ * neither be cached nor passed to other threads.
+ *
+ * <p>On virtual threads, which are created per task and never reused, the primitives live only as
+ * long as that task. Callers that sign or encrypt in bulk should therefore run on a pool of
+ * platform threads, like the crypto executor of the server.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CryptoPrimitivePool {
+
+  /** Shared provider instance for algorithms only BouncyCastle offers. */
+  public static final Provider BOUNCY_CASTLE_PROVIDER =
+      Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) != null
+          ? Security.getProvider(BouncyCastleProvider.PROVIDER_NAME)
+          : new BouncyCastleProvider();
+
+  private static final ThreadLocal<Map<String, Signer>> SIGNERS =
+      ThreadLocal.withInitial(HashMap::new);
+  private static final ThreadLocal<Map<String, Signature>> VERIFIERS =
+      ThreadLocal.withInitial(HashMap::new);
+  private static final ThreadLocal<Map<String, MessageDigest>> MESSAGE_DIGESTS =
+      ThreadLocal.withInitial(HashMap::new);
+
+  /**
+   * @param algorithm JCA signature algorithm, e.g. SHA256withECDSA
+   * @return the signature in the encoding of the provider (DER for ECDSA)
+   */
+  public static byte[] sign(final String algorithm, final PrivateKey key, final byte[] data) {
+    final Map<String, Signer> signers = SIGNERS.get();
+    final Signer signer = signers.computeIfAbsent(algorithm, alg -> new Signer(newSignature(alg)));
+    try {
+      if (signer.key != key) {
+        signer.key = null;
+        signer.signature.initSign(key);
+        signer.key = key;
+      }
+      signer.signature.update(data);
+      return signer.signature.sign();
+    } catch (final GeneralSecurityException e) {
+      signers.remove(algorithm);
+      throw new IdpCryptoException(e);
+    }
+  }
+
+  public static boolean verify(
+      final String algorithm, final PublicKey key, final byte[] data, final byte[] signature) {
+    final Map<String, Signature> verifiers = VERIFIERS.get();
+    final Signature verifier =
+        verifiers.computeIfAbsent(algorithm, CryptoPrimitivePool::newSignature);
+    try {
+      verifier.initVerify(key);
+      verifier.update(data);
+      return verifier.verify(signature);
+    } catch (final GeneralSecurityException e) {
+      verifiers.remove(algorithm);
+      throw new IdpCryptoException(e);
+    }
+  }
+
+  public static MessageDigest messageDigest(final String algorithm) {
+    final MessageDigest messageDigest =
+        MESSAGE_DIGESTS
+            .get()
+            .computeIfAbsent(
+                algorithm,
+                alg -> {
+                  try {
+                    return MessageDigest.getInstance(alg);
+                  } catch (final NoSuchAlgorithmException e) {
+                    throw new IdpCryptoException("Message digest " + alg + " not available", e);
+                  }
+                });
+    messageDigest.reset();
+    return messageDigest;
+  }
+
+  private static Signature newSignature(final String algorithm) {
+    try {
+      return Signature.getInstance(algorithm);
+    } catch (final NoSuchAlgorithmException e) {
+      try {
+        return Signature.getInstance(algorithm, BOUNCY_CASTLE_PROVIDER);
+      } catch (final NoSuchAlgorithmException bcException) {
+        throw new IdpCryptoException("Signature " + algorithm + " not available", bcException);
+      }
+    }
+  }
+
+  private static final class Signer {
+
+    private final Signature signature;
+    private PrivateKey key;
+
+    private Signer(final Signature signature) {
+      this.signature = signature;
+    }
+  }
+}
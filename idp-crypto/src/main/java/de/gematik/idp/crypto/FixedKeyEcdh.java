@@ -0,0 +1,102 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import javax.crypto.KeyAgreement;
+import org.bouncycastle.jcajce.provider.asymmetric.util.EC5Util;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECCurve;
+
+/**
+ * ECDH key agreement for one fixed private key, e.g. the idpEnc key that decrypts every ECDH-ES JWE
+ * sent to the server. The scalar multiplication itself is left to the JCA provider; what is saved
+ * per message is the provider lookup and the initialization with the private key, since one
+ * initialized {@link KeyAgreement} is kept per thread. The peer point is checked to be on the curve
+ * of the private key before it is used.
+ *
+ * <p>On virtual threads, which are never reused, the agreement is set up again for every task.
+ */
+public final class FixedKeyEcdh {
+
+  private final ECPrivateKey privateKey;
+  private final java.security.spec.ECParameterSpec parameterSpec;
+  private final ECCurve curve;
+  private final ThreadLocal<AgreementState> agreementStates;
+
+  public FixedKeyEcdh(final PrivateKey privateKey) {
+    if (!(privateKey instanceof final ECPrivateKey ecPrivateKey)) {
+      throw new IdpCryptoException("ECDH requires an EC private key");
+    }
+    this.privateKey = ecPrivateKey;
+    this.parameterSpec = ecPrivateKey.getParams();
+    this.curve = EC5Util.convertCurve(parameterSpec.getCurve());
+    this.agreementStates = ThreadLocal.withInitial(this::initAgreementState);
+  }
+
+  /**
+   * @param x affine x coordinate of the peer public key
+   * @param y affine y coordinate of the peer public key
+   * @return the shared secret Z, i.e. the x coordinate of the product, in field size bytes
+   */
+  public byte[] computeSharedSecret(final BigInteger x, final BigInteger y) {
+    try {
+      curve.validatePoint(x, y);
+    } catch (final IllegalArgumentException e) {
+      throw new IdpCryptoException("Peer public key is not a point on the curve", e);
+    }
+    final AgreementState state = agreementStates.get();
+    try {
+      state
+          .keyAgreement()
+          .doPhase(
+              state
+                  .keyFactory()
+                  .generatePublic(new ECPublicKeySpec(new ECPoint(x, y), parameterSpec)),
+              true);
+      return state.keyAgreement().generateSecret();
+    } catch (final GeneralSecurityException | IllegalStateException e) {
+      agreementStates.remove();
+      throw new IdpCryptoException("ECDH key agreement failed", e);
+    }
+  }
+
+  private AgreementState initAgreementState() {
+    try {
+      final KeyAgreement keyAgreement =
+          KeyAgreement.getInstance("ECDH", BouncyCastleProvider.PROVIDER_NAME);
+      keyAgreement.init(privateKey);
+      return new AgreementState(
+          keyAgreement, KeyFactory.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME));
+    } catch (final GeneralSecurityException e) {
+      throw new IdpCryptoException("Unable to initialize ECDH key agreement", e);
+    }
+  }
+
+  private record AgreementState(KeyAgreement keyAgreement, KeyFactory keyFactory) {}
+}
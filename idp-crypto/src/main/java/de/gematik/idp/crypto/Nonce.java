@@ -21,8 +21,7 @@
 package de.gematik.idp.crypto;
 
 import de.gematik.idp.crypto.exceptions.IdpCryptoException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import de.gematik.idp.crypto.jfr.NonceEvent;
 import java.util.Base64;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -65,12 +64,13 @@ public final class Nonce {
   }
 
   public static byte[] randomBytes(final int numberOfBytes) {
-    final byte[] bytes = new byte[numberOfBytes];
-    try {
-      SecureRandom.getInstanceStrong().nextBytes(bytes);
-    } catch (final NoSuchAlgorithmException e) {
-      throw new IdpCryptoException("Error while generating random bytes", e);
+    final NonceEvent event = new NonceEvent();
+    event.begin();
+    final byte[] randomBytes = SecureRandomProvider.getDefault().randomBytes(numberOfBytes);
+    event.end();
+    if (event.shouldCommit()) {
+      event.describe(numberOfBytes).commit();
     }
-    return bytes;
+    return randomBytes;
   }
 }
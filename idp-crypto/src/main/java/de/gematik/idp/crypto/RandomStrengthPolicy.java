@@ -0,0 +1,48 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Configuration of the DRBG instances held by {@link SecureRandomProvider}. A value of {@code 0}
+ * for {@code stripes} derives the number of instances from the available processors.
+ */
+@Value
+@Builder
+public class RandomStrengthPolicy {
+
+  public static final RandomStrengthPolicy DEFAULT = RandomStrengthPolicy.builder().build();
+  public static final RandomStrengthPolicy STRONG =
+      RandomStrengthPolicy.builder()
+          .predictionResistance(true)
+          .reseedInterval(Duration.ofMinutes(1))
+          .build();
+
+  @Builder.Default String algorithm = "DRBG";
+  @Builder.Default int securityStrength = 256;
+  @Builder.Default boolean predictionResistance = false;
+  @Builder.Default Duration reseedInterval = Duration.ofMinutes(10);
+  @Builder.Default long reseedAfterBytes = 1L << 20;
+  @Builder.Default int stripes = 0;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DrbgParameters;
+import java.security.DrbgParameters.Capability;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Non-blocking source of random bytes. Instead of asking for {@code
+ * SecureRandom.getInstanceStrong()} on every call, which may block on the entropy pool and
+ * serializes all callers, a fixed set of seeded DRBG instances is kept and callers are spread over
+ * them by thread id. Every instance is reseeded from the platform entropy source after a
+ * configurable amount of output or time.
+ */
+public final class SecureRandomProvider {
+
+  private static volatile SecureRandomProvider defaultProvider =
+      new SecureRandomProvider(RandomStrengthPolicy.DEFAULT);
+
+  @Getter private final RandomStrengthPolicy policy;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+
+  public SecureRandomProvider(final RandomStrengthPolicy policy) {
+    this.policy = Objects.requireNonNull(policy);
+    if (policy.getReseedAfterBytes() <= 0 || policy.getReseedInterval().isNegative()) {
+      throw new IdpCryptoException("Reseed thresholds are expected to be positive");
+    }
+    final int stripeCount =
+        nextPowerOfTwo(
+            policy.getStripes() > 0
+                ? policy.getStripes()
+                : Runtime.getRuntime().availableProcessors() * 2);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new Stripe(createSecureRandom(policy, i));
+    }
+    this.stripeMask = stripeCount - 1;
+  }
+
+  public static SecureRandomProvider getDefault() {
+    return defaultProvider;
+  }
+
+  public static void configure(final RandomStrengthPolicy policy) {
+    defaultProvider = new SecureRandomProvider(policy);
+  }
+
+  public void nextBytes(final byte[] bytes) {
+    stripes[(int) Thread.currentThread().threadId() & stripeMask].nextBytes(bytes);
+  }
+
+  public byte[] randomBytes(final int numberOfBytes) {
+    final byte[] bytes = new byte[numberOfBytes];
+    nextBytes(bytes);
+    return bytes;
+  }
+
+  public int getStripeCount() {
+    return stripes.length;
+  }
+
+  private static SecureRandom createSecureRandom(
+      final RandomStrengthPolicy policy, final int stripeIndex) {
+    final byte[] personalization =
+        ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+            .putInt(stripeIndex)
+            .putLong(System.nanoTime())
+            .array();
+    try {
+      return SecureRandom.getInstance(
+          policy.getAlgorithm(),
+          DrbgParameters.instantiation(
+              policy.getSecurityStrength(),
+              policy.isPredictionResistance() ? Capability.PR_AND_RESEED : Capability.RESEED_ONLY,
+              personalization));
+    } catch (final NoSuchAlgorithmException | IllegalArgumentException e) {
+      throw new IdpCryptoException(
+          "Unable to instantiate "
+              + policy.getAlgorithm()
+              + " with security strength "
+              + policy.getSecurityStrength(),
+          e);
+    }
+  }
+
+  private static int nextPowerOfTwo(final int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  private final class Stripe {
+
+    private final SecureRandom secureRandom;
+    private final DrbgParameters.NextBytes nextBytesParameters;
+    private long bytesSinceReseed;
+    private long lastReseedNanos;
+
+    private Stripe(final SecureRandom secureRandom) {
+      this.secureRandom = secureRandom;
+      this.nextBytesParameters =
+          DrbgParameters.nextBytes(
+              policy.getSecurityStrength(),
+              policy.isPredictionResistance(),
+              "idp".getBytes(StandardCharsets.US_ASCII));
+      this.lastReseedNanos = System.nanoTime();
+    }
+
+    private synchronized void nextBytes(final byte[] bytes) {
+      if (isReseedDue()) {
+        secureRandom.reseed();
+        bytesSinceReseed = 0;
+        lastReseedNanos = System.nanoTime();
+      }
+      secureRandom.nextBytes(bytes, nextBytesParameters);
+      bytesSinceReseed += bytes.length;
+    }
+
+    private boolean isReseedDue() {
+      return bytesSinceReseed >= policy.getReseedAfterBytes()
+          || System.nanoTime() - lastReseedNanos >= policy.getReseedInterval().toNanos();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Shared settings of the IDP flight recorder events. Without further settings an event is recorded
+ * once it takes {@link #DEFAULT_THRESHOLD}, which keeps an always-on recording cheap. Enablement
+ * and thresholds can be overridden per event name in a .jfc file, e.g. {@code
+ * -XX:StartFlightRecording:settings=default,settings=idp.jfc}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IdpEvents {
+
+  public static final String CATEGORY = "gematik IDP";
+  public static final String DEFAULT_THRESHOLD = "1 ms";
+  public static final String ENCRYPT = "encrypt";
+  public static final String DECRYPT = "decrypt";
+  public static final String SIGN = "sign";
+  public static final String VERIFY = "verify";
+  public static final String PARSE = "parse";
+  public static final String EXTRACT_CLAIMS = "extract_claims";
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JWE encryption or decryption. Usage: create, {@link #begin()}, do the work, {@link #end()} and
+ * only if {@link #shouldCommit()} fill in the details and {@link #commit()}, so that disabled or
+ * too short events cost no header parsing.
+ */
+@Name(JweEvent.NAME)
+@Label("JWE Operation")
+@Category({IdpEvents.CATEGORY, "JOSE"})
+@Description("Encryption or decryption of a JWE")
+@StackTrace(false)
+@Threshold(IdpEvents.DEFAULT_THRESHOLD)
+public class JweEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "de.gematik.idp.JweOperation";
+
+  @Label("Operation")
+  private final String operation;
+
+  @Label("Key Management Algorithm")
+  private String algorithm;
+
+  @Label("Content Encryption Algorithm")
+  private String encryption;
+
+  @Label("Content Type")
+  @Description("cty header, NJWT for nested tokens")
+  private String contentType;
+
+  @Label("Payload Size")
+  @DataAmount
+  private long payloadSize;
+
+  public JweEvent(final String operation) {
+    this.operation = operation;
+  }
+
+  public JweEvent describe(
+      final String algorithm,
+      final String encryption,
+      final String contentType,
+      final long payloadSize) {
+    this.algorithm = algorithm;
+    this.encryption = encryption;
+    this.contentType = contentType;
+    this.payloadSize = payloadSize;
+    return this;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** JWS signing or verification, used like {@link JweEvent}. */
+@Name(JwsEvent.NAME)
+@Label("JWS Operation")
+@Category({IdpEvents.CATEGORY, "JOSE"})
+@Description("Signing or signature verification of a JWS")
+@StackTrace(false)
+@Threshold(IdpEvents.DEFAULT_THRESHOLD)
+public class JwsEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "de.gematik.idp.JwsOperation";
+
+  @Label("Operation")
+  private final String operation;
+
+  @Label("Algorithm")
+  private String algorithm;
+
+  @Label("Key Id")
+  private String keyId;
+
+  @Label("Token Type")
+  @Description("typ header of the token")
+  private String tokenType;
+
+  public JwsEvent(final String operation) {
+    this.operation = operation;
+  }
+
+  public JwsEvent describe(final String algorithm, final String keyId, final String tokenType) {
+    this.algorithm = algorithm;
+    this.keyId = keyId;
+    this.tokenType = tokenType;
+    return this;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** Generation of random bytes for nonces, used like {@link JweEvent}. */
+@Name(NonceEvent.NAME)
+@Label("Nonce Generation")
+@Category({IdpEvents.CATEGORY, "Random"})
+@Description("Random bytes drawn for a nonce")
+@StackTrace(false)
+@Threshold(IdpEvents.DEFAULT_THRESHOLD)
+public class NonceEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "de.gematik.idp.NonceGeneration";
+
+  @Label("Size")
+  @DataAmount
+  private long size;
+
+  public NonceEvent describe(final long size) {
+    this.size = size;
+    return this;
+  }
+}
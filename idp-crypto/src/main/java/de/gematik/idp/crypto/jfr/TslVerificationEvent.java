@@ -0,0 +1,52 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** Verification of a certificate against the TSL (TUC_PKI_018), used like {@link JweEvent}. */
+@Name(TslVerificationEvent.NAME)
+@Label("TSL Verification")
+@Category({IdpEvents.CATEGORY, "Certificates"})
+@Description("TUC_PKI_018 checks of a certificate against the trust service status list")
+@StackTrace(false)
+@Threshold(IdpEvents.DEFAULT_THRESHOLD)
+public class TslVerificationEvent extends jdk.jfr.Event {
+
+  public static final String NAME = "de.gematik.idp.TslVerification";
+
+  @Label("Issuer")
+  private String issuer;
+
+  @Label("Valid")
+  private boolean valid;
+
+  public TslVerificationEvent describe(final String issuer, final boolean valid) {
+    this.issuer = issuer;
+    this.valid = valid;
+    return this;
+  }
+}
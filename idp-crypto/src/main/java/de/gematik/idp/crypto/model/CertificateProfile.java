@@ -0,0 +1,65 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.model;
+
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.FAMILY_NAME;
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.GIVEN_NAME;
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.ID_NUMMER;
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.IK_NUMMER;
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.ORGANIZATION_NAME;
+import static de.gematik.idp.crypto.model.CertificateExtractedFieldEnum.PROFESSION_OID;
+
+import de.gematik.idp.crypto.TiCertificateType;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+
+/** Immutable result of the claim extraction (A_20524) from a TI authentication certificate. */
+@Value
+@Builder
+public class CertificateProfile {
+
+  TiCertificateType certificateType;
+  String givenName;
+  String familyName;
+  String organizationName;
+  String organizationIk;
+  String professionOid;
+  String idNumber;
+
+  /**
+   * @return a new, modifiable map with the claims of the certificate. organizationName and idNummer
+   *     are only contained for HBA, SMC-B and eGK certificates.
+   */
+  public Map<String, Object> toClaims() {
+    final Map<String, Object> claimMap = new HashMap<>();
+    claimMap.put(GIVEN_NAME.getFieldname(), givenName);
+    claimMap.put(FAMILY_NAME.getFieldname(), familyName);
+    claimMap.put(IK_NUMMER.getFieldname(), organizationIk);
+    claimMap.put(PROFESSION_OID.getFieldname(), professionOid);
+    if (certificateType != TiCertificateType.UNKNOWN) {
+      claimMap.put(ORGANIZATION_NAME.getFieldname(), organizationName);
+      claimMap.put(ID_NUMMER.getFieldname(), idNumber);
+    }
+    return claimMap;
+  }
+}
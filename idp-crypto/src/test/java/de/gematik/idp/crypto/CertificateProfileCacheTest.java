@@ -0,0 +1,97 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import de.gematik.idp.crypto.model.CertificateProfile;
+import java.io.File;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+
+class CertificateProfileCacheTest {
+
+  private static final String EGK_FILE =
+      "src/test/resources/109500969_X114428530-2_c.ch.aut-ecc.p12";
+  private static final String SMCB_FILE =
+      "src/test/resources/833621999741600-2_c.hci.aut-apo-ecc.p12";
+  private static final String HBA_CERT_FILE = "src/test/resources/hba_aut.pem";
+
+  @Test
+  void profileShouldBeExtractedOncePerCertificate() throws IOException {
+    final CertificateProfileCache cache = new CertificateProfileCache(10);
+    final X509Certificate egkCertificate = certificateFromP12(EGK_FILE);
+
+    final CertificateProfile profile = cache.getProfile(egkCertificate);
+
+    assertThat(cache.getProfile(certificateFromP12(EGK_FILE))).isSameAs(profile);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(profile.getCertificateType()).isEqualTo(TiCertificateType.EGK);
+    assertThat(profile.getIdNumber()).isEqualTo("X114428530");
+  }
+
+  @Test
+  void claimsOfCachedProfileShouldBeIndependentCopies() throws IOException {
+    final CertificateProfileCache cache = new CertificateProfileCache(10);
+    final X509Certificate smcbCertificate = certificateFromP12(SMCB_FILE);
+
+    final Map<String, Object> claims = cache.getProfile(smcbCertificate).toClaims();
+    claims.put("idNummer", "manipulated");
+
+    assertThat(cache.getProfile(smcbCertificate).toClaims())
+        .containsEntry("idNummer", "3-2.333398.TestOnly")
+        .containsEntry("organizationName", "Aschoffsche Apotheke TEST-ONLY");
+  }
+
+  @Test
+  void leastRecentlyUsedProfileShouldBeDropped() throws IOException {
+    final CertificateProfileCache cache = new CertificateProfileCache(1);
+    final X509Certificate egkCertificate = certificateFromP12(EGK_FILE);
+    final CertificateProfile egkProfile = cache.getProfile(egkCertificate);
+
+    cache.getProfile(
+        CryptoLoader.getCertificateFromPem(FileUtils.readFileToByteArray(new File(HBA_CERT_FILE))));
+
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getProfile(egkCertificate)).isNotSameAs(egkProfile).isEqualTo(egkProfile);
+  }
+
+  @Test
+  void failedExtractionShouldNotBeCached() throws IOException {
+    final CertificateProfileCache cache = new CertificateProfileCache(10);
+    final X509Certificate invalidCertificate =
+        certificateFromP12("src/test/resources/egk-idp-profid-null-ecc-2.p12");
+
+    assertThatThrownBy(() -> cache.getProfile(invalidCertificate))
+        .isInstanceOf(IdpCryptoException.class);
+    assertThat(cache.size()).isZero();
+  }
+
+  private X509Certificate certificateFromP12(final String filename) throws IOException {
+    return CryptoLoader.getCertificateFromP12(
+        FileUtils.readFileToByteArray(new File(filename)), "00");
+  }
+}
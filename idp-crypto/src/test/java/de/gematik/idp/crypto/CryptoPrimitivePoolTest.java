@@ -0,0 +1,109 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.CompletableFuture;
+import lombok.SneakyThrows;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+
+class CryptoPrimitivePoolTest {
+
+  private static final String EC_ALGORITHM = "SHA256withECDSA";
+  private static final byte[] DATA = "signed content".getBytes(StandardCharsets.UTF_8);
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  @Test
+  void sign_alternatingKeys_shouldSignWithTheGivenKey() {
+    final KeyPair first = generateEcKeyPair();
+    final KeyPair second = generateEcKeyPair();
+
+    for (int i = 0; i < 3; i++) {
+      final byte[] firstSignature =
+          CryptoPrimitivePool.sign(EC_ALGORITHM, first.getPrivate(), DATA);
+      final byte[] secondSignature =
+          CryptoPrimitivePool.sign(EC_ALGORITHM, second.getPrivate(), DATA);
+
+      assertThat(verifyEc(first, firstSignature)).isTrue();
+      assertThat(verifyEc(second, secondSignature)).isTrue();
+      assertThat(verifyEc(first, secondSignature)).isFalse();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void sign_rsaPss_shouldBeVerifiable() {
+    final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+    final byte[] signature = RsaSignerUtility.createRsaSignature(DATA, keyPair.getPrivate());
+
+    assertThat(
+            CryptoPrimitivePool.verify(
+                "SHA256withRSAAndMGF1", keyPair.getPublic(), DATA, signature))
+        .isTrue();
+  }
+
+  @Test
+  void sign_unknownAlgorithm_shouldThrow() {
+    final KeyPair keyPair = generateEcKeyPair();
+
+    assertThatThrownBy(() -> CryptoPrimitivePool.sign("Foo", keyPair.getPrivate(), DATA))
+        .isInstanceOf(IdpCryptoException.class);
+  }
+
+  @Test
+  void messageDigest_shouldBeConfinedToThread() {
+    final MessageDigest messageDigest = CryptoPrimitivePool.messageDigest("SHA-256");
+
+    assertThat(CryptoPrimitivePool.messageDigest("SHA-256")).isSameAs(messageDigest);
+    assertThat(
+            CompletableFuture.supplyAsync(() -> CryptoPrimitivePool.messageDigest("SHA-256"))
+                .join())
+        .isNotSameAs(messageDigest);
+  }
+
+  private static boolean verifyEc(final KeyPair keyPair, final byte[] signature) {
+    return CryptoPrimitivePool.verify(EC_ALGORITHM, keyPair.getPublic(), DATA, signature);
+  }
+
+  @SneakyThrows
+  private static KeyPair generateEcKeyPair() {
+    final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+    keyPairGenerator.initialize(new ECGenParameterSpec("brainpoolP256r1"));
+    return keyPairGenerator.generateKeyPair();
+  }
+}
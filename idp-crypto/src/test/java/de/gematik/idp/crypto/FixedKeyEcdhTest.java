@@ -0,0 +1,92 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import javax.crypto.KeyAgreement;
+import lombok.SneakyThrows;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FixedKeyEcdhTest {
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"brainpoolP256r1", "secp256r1", "brainpoolP384r1"})
+  void computeSharedSecret_shouldMatchJcaKeyAgreement(final String curveName) {
+    final KeyPair staticKeyPair = generateKeyPair(curveName);
+    final FixedKeyEcdh fixedKeyEcdh = new FixedKeyEcdh(staticKeyPair.getPrivate());
+
+    for (int i = 0; i < 20; i++) {
+      final KeyPair ephemeralKeyPair = generateKeyPair(curveName);
+      final ECPublicKey ephemeralPublicKey = (ECPublicKey) ephemeralKeyPair.getPublic();
+
+      assertThat(
+              fixedKeyEcdh.computeSharedSecret(
+                  ephemeralPublicKey.getW().getAffineX(), ephemeralPublicKey.getW().getAffineY()))
+          .isEqualTo(jcaSharedSecret(staticKeyPair, ephemeralKeyPair));
+    }
+  }
+
+  @Test
+  void computeSharedSecret_pointNotOnCurve_shouldThrow() {
+    final KeyPair staticKeyPair = generateKeyPair("brainpoolP256r1");
+    final ECPublicKey publicKey = (ECPublicKey) staticKeyPair.getPublic();
+    final FixedKeyEcdh fixedKeyEcdh = new FixedKeyEcdh(staticKeyPair.getPrivate());
+    final BigInteger x = publicKey.getW().getAffineX();
+    final BigInteger y = publicKey.getW().getAffineY().add(BigInteger.ONE);
+
+    assertThatThrownBy(() -> fixedKeyEcdh.computeSharedSecret(x, y))
+        .isInstanceOf(IdpCryptoException.class);
+  }
+
+  @SneakyThrows
+  private static KeyPair generateKeyPair(final String curveName) {
+    final KeyPairGenerator keyPairGenerator =
+        KeyPairGenerator.getInstance("EC", BouncyCastleProvider.PROVIDER_NAME);
+    keyPairGenerator.initialize(new ECGenParameterSpec(curveName));
+    return keyPairGenerator.generateKeyPair();
+  }
+
+  @SneakyThrows
+  private static byte[] jcaSharedSecret(final KeyPair staticKeyPair, final KeyPair ephemeral) {
+    final KeyAgreement keyAgreement =
+        KeyAgreement.getInstance("ECDH", BouncyCastleProvider.PROVIDER_NAME);
+    keyAgreement.init(staticKeyPair.getPrivate());
+    keyAgreement.doPhase(ephemeral.getPublic(), true);
+    return keyAgreement.generateSecret();
+  }
+}
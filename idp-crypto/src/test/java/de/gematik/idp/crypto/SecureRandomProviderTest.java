@@ -0,0 +1,93 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class SecureRandomProviderTest {
+
+  @Test
+  void stripeCountIsPowerOfTwo() {
+    final SecureRandomProvider provider =
+        new SecureRandomProvider(RandomStrengthPolicy.builder().stripes(5).build());
+    assertThat(provider.getStripeCount()).isEqualTo(8);
+  }
+
+  @Test
+  void randomBytesHaveRequestedLength() {
+    assertThat(SecureRandomProvider.getDefault().randomBytes(33)).hasSize(33);
+  }
+
+  @Test
+  void reseedAfterBytesDoesNotBreakGeneration() {
+    final SecureRandomProvider provider =
+        new SecureRandomProvider(
+            RandomStrengthPolicy.builder().stripes(1).reseedAfterBytes(16).build());
+    final Set<String> values = ConcurrentHashMap.newKeySet();
+    IntStream.range(0, 100).forEach(i -> values.add(Hex.toHexString(provider.randomBytes(32))));
+    assertThat(values).hasSize(100);
+  }
+
+  @Test
+  void strongPolicyWithPredictionResistance() {
+    final SecureRandomProvider provider = new SecureRandomProvider(RandomStrengthPolicy.STRONG);
+    assertThat(provider.randomBytes(32)).isNotEqualTo(provider.randomBytes(32));
+  }
+
+  @Test
+  void concurrentCallersGetUniqueValues() {
+    final SecureRandomProvider provider = new SecureRandomProvider(RandomStrengthPolicy.DEFAULT);
+    final Set<String> values = ConcurrentHashMap.newKeySet();
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      IntStream.range(0, 2000)
+          .forEach(
+              i -> executor.execute(() -> values.add(Hex.toHexString(provider.randomBytes(16)))));
+    }
+    assertThat(values).hasSize(2000);
+  }
+
+  @Test
+  void invalidSecurityStrengthIsRejected() {
+    final RandomStrengthPolicy policy =
+        RandomStrengthPolicy.builder().securityStrength(1024).build();
+    assertThatThrownBy(() -> new SecureRandomProvider(policy))
+        .isInstanceOf(IdpCryptoException.class)
+        .hasMessageContaining("security strength");
+  }
+
+  @Test
+  void invalidReseedIntervalIsRejected() {
+    final RandomStrengthPolicy policy =
+        RandomStrengthPolicy.builder().reseedInterval(Duration.ofSeconds(-1)).build();
+    assertThatThrownBy(() -> new SecureRandomProvider(policy))
+        .isInstanceOf(IdpCryptoException.class);
+  }
+}
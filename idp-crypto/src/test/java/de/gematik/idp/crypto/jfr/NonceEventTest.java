@@ -0,0 +1,54 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.crypto.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.idp.crypto.Nonce;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NonceEventTest {
+
+  @Test
+  void nonceGenerationIsRecorded(@TempDir final Path tempDir) throws Exception {
+    final Path dump = tempDir.resolve("nonce.jfr");
+    try (final Recording recording = new Recording()) {
+      recording.enable(NonceEvent.NAME).withThreshold(Duration.ZERO);
+      recording.start();
+      Nonce.getNonceAsBase64UrlEncodedString(32);
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+    assertThat(events)
+        .filteredOn(event -> event.getEventType().getName().equals(NonceEvent.NAME))
+        .isNotEmpty()
+        .allSatisfy(event -> assertThat(event.getLong("size")).isEqualTo(32));
+  }
+}
@@ -20,40 +20,35 @@
 
 package de.gematik.idp.server;
 
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_CH_AUT_ECC;
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_CH_AUT_RSA;
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HCI_AUT_ECC;
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HCI_AUT_RSA;
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HP_AUT_ECC;
-import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HP_AUT_RSA;
-
 import de.gematik.idp.authentication.AuthenticationChallengeBuilder;
 import de.gematik.idp.authentication.AuthenticationChallengeVerifier;
 import de.gematik.idp.authentication.AuthenticationTokenBuilder;
 import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.crypto.RandomStrengthPolicy;
+import de.gematik.idp.crypto.SecureRandomProvider;
 import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpRandomConfiguration;
 import de.gematik.idp.server.controllers.IdpKey;
 import de.gematik.idp.server.data.FedIdpListEntry;
 import de.gematik.idp.server.data.FederationIdpList;
 import de.gematik.idp.server.exceptions.IdpServerStartupException;
 import de.gematik.idp.server.services.DiscoveryDocumentBuilder;
 import de.gematik.idp.token.AccessTokenBuilder;
+import de.gematik.idp.token.EcdhEsDecryptionEngine;
 import de.gematik.idp.token.IdTokenBuilder;
 import de.gematik.idp.token.SsoTokenBuilder;
-import de.gematik.pki.gemlibpki.commons.certificate.TucPki018Verifier;
-import de.gematik.pki.gemlibpki.commons.tsl.TslConverter;
-import de.gematik.pki.gemlibpki.commons.tsl.TslInformationProvider;
-import de.gematik.pki.gemlibpki.commons.tsl.TspService;
-import eu.europa.esig.trustedlist.jaxb.tsl.TrustStatusListType;
-import java.io.IOException;
 import java.security.Key;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -61,6 +56,8 @@ import org.springframework.context.annotation.Configuration;
 @RequiredArgsConstructor
 public class FlowBeanCreation {
 
+  private static final int CRYPTO_EXECUTOR_QUEUE_SIZE_PER_THREAD = 64;
+
   private final IdpJwtProcessor idpSigProcessor;
   private final IdpKey idpEnc;
   private final IdpKey idpSig;
@@ -68,6 +65,66 @@ public class FlowBeanCreation {
   private final ServerUrlService serverUrlService;
   private final IdpConfiguration idpConfiguration;
 
+  @Bean
+  public SecureRandomProvider secureRandomProvider() {
+    final Optional<IdpRandomConfiguration> randomConfiguration =
+        Optional.ofNullable(idpConfiguration.getRandom());
+    final RandomStrengthPolicy.RandomStrengthPolicyBuilder policyBuilder =
+        RandomStrengthPolicy.builder()
+            .predictionResistance(
+                randomConfiguration
+                    .map(IdpRandomConfiguration::isPredictionResistance)
+                    .orElse(false));
+    randomConfiguration
+        .map(IdpRandomConfiguration::getSecurityStrength)
+        .ifPresent(policyBuilder::securityStrength);
+    randomConfiguration
+        .map(IdpRandomConfiguration::getReseedInterval)
+        .ifPresent(policyBuilder::reseedInterval);
+    randomConfiguration
+        .map(IdpRandomConfiguration::getReseedAfterBytes)
+        .ifPresent(policyBuilder::reseedAfterBytes);
+    randomConfiguration.map(IdpRandomConfiguration::getStripes).ifPresent(policyBuilder::stripes);
+    SecureRandomProvider.configure(policyBuilder.build());
+    return SecureRandomProvider.getDefault();
+  }
+
+  /** Off by default: idpEnc decryption then runs through the stock jose4j pipeline. */
+  @Bean
+  @ConditionalOnProperty(value = "idp.ecdhEngineEnabled", havingValue = "true")
+  public EcdhEsDecryptionEngine idpEncDecryptionEngine() {
+    return EcdhEsDecryptionEngine.register(idpEnc.getIdentity().getPrivateKey());
+  }
+
+  /**
+   * Bounded pool for the crypto operations of the token endpoint. A value of 0 (default) for
+   * idp.cryptoExecutorThreads sizes the pool to the available processors. When the queue is full
+   * the submitting request thread runs the task itself. The work is CPU bound, so the pool keeps
+   * its platform threads in virtual thread mode as well: request threads only park while they wait
+   * for a result, and the thread confined primitives of the CryptoPrimitivePool stay warm.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService cryptoExecutor() {
+    final int threads =
+        Optional.ofNullable(idpConfiguration.getCryptoExecutorThreads())
+            .filter(configuredThreads -> configuredThreads > 0)
+            .orElse(Runtime.getRuntime().availableProcessors());
+    final AtomicInteger threadCounter = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(threads * CRYPTO_EXECUTOR_QUEUE_SIZE_PER_THREAD),
+        runnable -> {
+          final Thread thread =
+              new Thread(runnable, "idp-crypto-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
   @Bean
   public AuthenticationTokenBuilder authenticationTokenBuilder() {
     return new AuthenticationTokenBuilder(
@@ -126,35 +183,6 @@ public class FlowBeanCreation {
     return new ModelMapper();
   }
 
-  @Bean
-  public TucPki018Verifier certificateVerifier() {
-    try {
-      final byte[] tslBytes =
-          Objects.requireNonNull(
-                  FlowBeanCreation.class.getClassLoader().getResourceAsStream("TSL_default.xml"),
-                  "Resource unavailable.")
-              .readAllBytes();
-      final TrustStatusListType tsl = TslConverter.bytesToTslUnsigned(tslBytes);
-      final List<TspService> tspServiceTypeList = new TslInformationProvider(tsl).getTspServices();
-
-      return TucPki018Verifier.builder()
-          .productType(idpConfiguration.getProductTypeDisplayString())
-          .tspServiceList(tspServiceTypeList)
-          .certificateProfiles(
-              List.of(
-                  CERT_PROFILE_C_CH_AUT_RSA,
-                  CERT_PROFILE_C_CH_AUT_ECC,
-                  CERT_PROFILE_C_HCI_AUT_RSA,
-                  CERT_PROFILE_C_HCI_AUT_ECC,
-                  CERT_PROFILE_C_HP_AUT_RSA,
-                  CERT_PROFILE_C_HP_AUT_ECC))
-          .withOcspCheck(false)
-          .build();
-    } catch (final IOException e) {
-      throw new IdpServerStartupException("Error while reading TSL, " + e.getMessage());
-    }
-  }
-
   @Bean
   public FederationIdpList fedIdpList() {
     final FederationIdpList theFederationIdpList = new FederationIdpList();
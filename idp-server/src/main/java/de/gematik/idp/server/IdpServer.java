@@ -35,6 +35,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.filter.CommonsRequestLoggingFilter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -42,6 +43,7 @@ import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
 @Slf4j
 @SpringBootApplication(scanBasePackages = {"de.gematik.idp"})
+@EnableScheduling
 @RequiredArgsConstructor
 public class IdpServer implements WebMvcConfigurer {
 
@@ -0,0 +1,98 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpPersistenceConfiguration;
+import java.util.Optional;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Data source setup of the "persistent" profile. The write pool is configured from {@code
+ * spring.datasource.*}. If {@code idp.persistence.readReplicaUrl} is set, read-only transactions of
+ * endpoints annotated with {@link ReadReplica} are served by a second pool with the same tuning,
+ * otherwise both routes share the write pool. Blank replica credentials fall back to the ones of
+ * the primary.
+ */
+@Slf4j
+@Configuration
+@Profile("persistent")
+@RequiredArgsConstructor
+public class PersistenceConfiguration {
+
+  private final Environment environment;
+  private final IdpConfiguration idpConfiguration;
+
+  @Bean
+  public ReadWriteRoutingDataSource readWriteRoutingDataSource() {
+    final Binder binder = Binder.get(environment);
+    final HikariConfig writeConfig = new HikariConfig();
+    binder.bind("spring.datasource.hikari", Bindable.ofInstance(writeConfig));
+    writeConfig.setJdbcUrl(binder.bind("spring.datasource.url", String.class).get());
+    binder.bind("spring.datasource.username", String.class).ifBound(writeConfig::setUsername);
+    binder.bind("spring.datasource.password", String.class).ifBound(writeConfig::setPassword);
+    binder
+        .bind("spring.datasource.driver-class-name", String.class)
+        .ifBound(writeConfig::setDriverClassName);
+    writeConfig.setPoolName("idp-write");
+    final HikariDataSource writeDataSource = new HikariDataSource(writeConfig);
+
+    final Optional<IdpPersistenceConfiguration> persistence =
+        Optional.ofNullable(idpConfiguration.getPersistence())
+            .filter(config -> StringUtils.isNotBlank(config.getReadReplicaUrl()));
+    if (persistence.isEmpty()) {
+      return new ReadWriteRoutingDataSource(writeDataSource, writeDataSource);
+    }
+
+    final HikariConfig readConfig = new HikariConfig();
+    writeConfig.copyStateTo(readConfig);
+    readConfig.setJdbcUrl(persistence.get().getReadReplicaUrl());
+    Optional.ofNullable(persistence.get().getReadReplicaUsername())
+        .filter(StringUtils::isNotBlank)
+        .ifPresent(readConfig::setUsername);
+    Optional.ofNullable(persistence.get().getReadReplicaPassword())
+        .filter(StringUtils::isNotBlank)
+        .ifPresent(readConfig::setPassword);
+    readConfig.setPoolName("idp-read");
+    readConfig.setReadOnly(true);
+    log.info("Routing read-only transactions to {}", readConfig.getJdbcUrl());
+    return new ReadWriteRoutingDataSource(writeDataSource, new HikariDataSource(readConfig));
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(final ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the read pool if the current thread opted in via
+ * {@link ReadReplica}, everything else goes to the write pool. Read-only alone is not enough:
+ * Spring Data runs every repository read (e.g. the device validation refresh right after an import)
+ * in a read-only transaction, and those must not see a lagging replica. The transaction flag is
+ * only known once the transaction has begun, so this data source has to sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  enum Route {
+    WRITE,
+    READ
+  }
+
+  private static final ThreadLocal<Boolean> READ_REPLICA_ALLOWED = new ThreadLocal<>();
+
+  private final HikariDataSource writeDataSource;
+  private final HikariDataSource readDataSource;
+
+  public ReadWriteRoutingDataSource(
+      final HikariDataSource writeDataSource, final HikariDataSource readDataSource) {
+    this.writeDataSource = writeDataSource;
+    this.readDataSource = readDataSource;
+    setTargetDataSources(Map.of(Route.WRITE, writeDataSource, Route.READ, readDataSource));
+    setDefaultTargetDataSource(writeDataSource);
+    afterPropertiesSet();
+  }
+
+  static void allowReadReplica() {
+    READ_REPLICA_ALLOWED.set(Boolean.TRUE);
+  }
+
+  static void disallowReadReplica() {
+    READ_REPLICA_ALLOWED.remove();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return Boolean.TRUE.equals(READ_REPLICA_ALLOWED.get())
+            && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        ? Route.READ
+        : Route.WRITE;
+  }
+
+  @Override
+  public void close() {
+    readDataSource.close();
+    writeDataSource.close();
+  }
+}
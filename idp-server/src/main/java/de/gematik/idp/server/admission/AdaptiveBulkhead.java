@@ -0,0 +1,237 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Concurrency limit with a short queue in front of it. Requests beyond the limit wait for at most
+ * {@code maxWait} in a queue of at most {@code maxQueue} entries and are rejected otherwise. Freed
+ * permits go to the queued requests in arrival order; a new request is only admitted directly while
+ * nobody is waiting.
+ *
+ * <p>The limit adapts to the measured latency, following the gradient idea of TCP Vegas: every
+ * completed request compares its latency to the long term average. While it stays within {@code
+ * latencyTolerance} times the average the limit grows by about its square root, provided it is
+ * actually used. Slower requests shrink it proportionally, by at most half. The limit is smoothed
+ * and stays between {@code minLimit} and {@code maxLimit}.
+ */
+public final class AdaptiveBulkhead {
+
+  public static final String LIMIT_METER = "idp.admission.limit";
+  public static final String IN_FLIGHT_METER = "idp.admission.in_flight";
+  public static final String QUEUE_SIZE_METER = "idp.admission.queue.size";
+  public static final String QUEUED_METER = "idp.admission.queued";
+  public static final String QUEUE_WAIT_METER = "idp.admission.queue.wait";
+  public static final String REJECTED_METER = "idp.admission.rejected";
+  private static final double LONG_LATENCY_SMOOTHING = 0.01;
+  private static final double LIMIT_SMOOTHING = 0.2;
+  private static final double MIN_GRADIENT = 0.5;
+
+  @Getter private final String name;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueue;
+  private final long maxWaitNanos;
+  private final double latencyTolerance;
+  private final LongSupplier nanoClock;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Deque<Condition> waiters = new ArrayDeque<>();
+  private final Counter queuedCounter;
+  private final Counter queueFullCounter;
+  private final Counter timeoutCounter;
+  private final Timer queueWaitTimer;
+  private volatile double limit;
+  private volatile int inFlight;
+  private volatile int queued;
+  private double longLatencyNanos;
+
+  @Builder
+  private AdaptiveBulkhead(
+      final String name,
+      final int initialLimit,
+      final int minLimit,
+      final int maxLimit,
+      final int maxQueue,
+      final Duration maxWait,
+      final double latencyTolerance,
+      final MeterRegistry meterRegistry,
+      final LongSupplier nanoClock) {
+    if (minLimit < 1 || minLimit > maxLimit || maxQueue < 0 || latencyTolerance < 1) {
+      throw new IllegalArgumentException(
+          "Invalid settings for bulkhead "
+              + name
+              + ": 1 <= minLimit <= maxLimit, maxQueue >= 0"
+              + " and latencyTolerance >= 1 are expected");
+    }
+    this.name = name;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxQueue = maxQueue;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.latencyTolerance = latencyTolerance;
+    this.nanoClock = nanoClock != null ? nanoClock : System::nanoTime;
+    this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+
+    Gauge.builder(LIMIT_METER, this, AdaptiveBulkhead::getLimit)
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(IN_FLIGHT_METER, this, AdaptiveBulkhead::getInFlight)
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(QUEUE_SIZE_METER, this, AdaptiveBulkhead::getQueued)
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    queuedCounter = meterRegistry.counter(QUEUED_METER, "bulkhead", name);
+    queueFullCounter = meterRegistry.counter(REJECTED_METER, "bulkhead", name, "reason", "full");
+    timeoutCounter = meterRegistry.counter(REJECTED_METER, "bulkhead", name, "reason", "timeout");
+    queueWaitTimer = meterRegistry.timer(QUEUE_WAIT_METER, "bulkhead", name);
+  }
+
+  /**
+   * @return a permit that must be closed once the request is done, empty if the request is rejected
+   */
+  public Optional<Permit> tryAcquire() {
+    lock.lock();
+    try {
+      if (queued == 0 && inFlight < getLimit()) {
+        return Optional.of(admit());
+      }
+      if (queued >= maxQueue) {
+        queueFullCounter.increment();
+        return Optional.empty();
+      }
+      return awaitPermit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  public int getQueued() {
+    return queued;
+  }
+
+  private Optional<Permit> awaitPermit() {
+    final Condition turn = lock.newCondition();
+    waiters.addLast(turn);
+    queued++;
+    queuedCounter.increment();
+    final long queuedAt = nanoClock.getAsLong();
+    long remainingNanos = maxWaitNanos;
+    try {
+      while (waiters.peekFirst() != turn || inFlight >= getLimit()) {
+        if (remainingNanos <= 0) {
+          timeoutCounter.increment();
+          return Optional.empty();
+        }
+        remainingNanos = turn.awaitNanos(remainingNanos);
+      }
+      return Optional.of(admit());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      timeoutCounter.increment();
+      return Optional.empty();
+    } finally {
+      waiters.remove(turn);
+      queued--;
+      signalFirstWaiter();
+      queueWaitTimer.record(Duration.ofNanos(nanoClock.getAsLong() - queuedAt));
+    }
+  }
+
+  /** Wakes the longest waiting request, it checks for a free permit itself. */
+  private void signalFirstWaiter() {
+    final Condition first = waiters.peekFirst();
+    if (first != null) {
+      first.signal();
+    }
+  }
+
+  private Permit admit() {
+    inFlight++;
+    return new Permit(nanoClock.getAsLong());
+  }
+
+  private void release(final long latencyNanos) {
+    lock.lock();
+    try {
+      final boolean limitUsed = inFlight * 2 >= limit;
+      inFlight--;
+      updateLimit(Math.max(latencyNanos, 1), limitUsed);
+      signalFirstWaiter();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void updateLimit(final long latencyNanos, final boolean limitUsed) {
+    longLatencyNanos =
+        longLatencyNanos == 0
+            ? latencyNanos
+            : longLatencyNanos * (1 - LONG_LATENCY_SMOOTHING)
+                + latencyNanos * LONG_LATENCY_SMOOTHING;
+    final double gradient =
+        Math.clamp(latencyTolerance * longLatencyNanos / latencyNanos, MIN_GRADIENT, 1.0);
+    final double headroom = limitUsed && gradient >= 1.0 ? Math.sqrt(limit) : 0;
+    final double newLimit = limit * gradient + headroom;
+    limit =
+        Math.clamp(limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING, minLimit, maxLimit);
+  }
+
+  /** Admission of one request, closing it more than once has no further effect. */
+  public final class Permit implements AutoCloseable {
+
+    private final long admittedAt;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(final long admittedAt) {
+      this.admittedAt = admittedAt;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        release(nanoClock.getAsLong() - admittedAt);
+      }
+    }
+  }
+}
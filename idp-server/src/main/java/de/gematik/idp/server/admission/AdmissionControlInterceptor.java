@@ -0,0 +1,169 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.admission;
+
+import de.gematik.idp.server.admission.AdaptiveBulkhead.Permit;
+import de.gematik.idp.server.configuration.IdpAdmissionControlConfiguration;
+import de.gematik.idp.server.configuration.IdpBulkheadConfiguration;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.exceptions.IdpServerOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Admission control for the endpoints annotated with {@link AdmissionControl}. Runs before all
+ * other interceptors, so a rejected request costs neither the decryption of an access token nor
+ * any other crypto operation. Rejections are answered with {@code idp.admission-control
+ * .rejectionStatus} (503 by default) in the usual error format. The cheap endpoints, e.g. discovery
+ * document and JWKS, are not limited at all.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor, WebMvcConfigurer {
+
+  private static final String PERMIT_ATTRIBUTE =
+      AdmissionControlInterceptor.class.getName() + ".permit";
+  private static final int DEFAULT_MAX_WAIT_MILLIS = 100;
+  private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+  private final IdpConfiguration idpConfiguration;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, AdaptiveBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  @Override
+  public void addInterceptors(final InterceptorRegistry registry) {
+    registry.addInterceptor(this).addPathPatterns("/**").order(Ordered.HIGHEST_PRECEDENCE);
+  }
+
+  @Override
+  public boolean preHandle(
+      final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+    if (!isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST) {
+      return true;
+    }
+    final Optional<String> bulkheadName = getBulkheadName(handler);
+    if (bulkheadName.isEmpty()) {
+      return true;
+    }
+    final AdaptiveBulkhead bulkhead =
+        bulkheads.computeIfAbsent(bulkheadName.get(), this::createBulkhead);
+    final Permit permit =
+        bulkhead
+            .tryAcquire()
+            .orElseThrow(
+                () -> {
+                  log.debug(
+                      "Rejected request to {} (limit {})", bulkhead.getName(), bulkhead.getLimit());
+                  return new IdpServerOverloadedException(
+                      bulkhead.getName(), getRejectionStatus(), Duration.ofSeconds(1));
+                });
+    request.setAttribute(PERMIT_ATTRIBUTE, permit);
+    return true;
+  }
+
+  /** Streaming responses give their permit back once the handler has returned. */
+  @Override
+  public void afterConcurrentHandlingStarted(
+      final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+    releasePermit(request);
+  }
+
+  @Override
+  public void afterCompletion(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final Object handler,
+      final Exception ex) {
+    releasePermit(request);
+  }
+
+  private static void releasePermit(final HttpServletRequest request) {
+    if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof final Permit permit) {
+      request.removeAttribute(PERMIT_ATTRIBUTE);
+      permit.close();
+    }
+  }
+
+  private boolean isEnabled() {
+    return Optional.ofNullable(idpConfiguration.getAdmissionControl())
+        .map(IdpAdmissionControlConfiguration::isEnabled)
+        .orElse(false);
+  }
+
+  private HttpStatus getRejectionStatus() {
+    return Optional.ofNullable(idpConfiguration.getAdmissionControl())
+        .map(IdpAdmissionControlConfiguration::getRejectionStatus)
+        .map(HttpStatus::valueOf)
+        .orElse(HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  private AdaptiveBulkhead createBulkhead(final String name) {
+    final Optional<IdpBulkheadConfiguration> configuration =
+        Optional.ofNullable(idpConfiguration.getAdmissionControl())
+            .map(IdpAdmissionControlConfiguration::getBulkheads)
+            .map(bulkheadConfigurations -> bulkheadConfigurations.get(name));
+    final int processors = Runtime.getRuntime().availableProcessors();
+    return AdaptiveBulkhead.builder()
+        .name(name)
+        .initialLimit(
+            configuration.map(IdpBulkheadConfiguration::getInitialLimit).orElse(processors * 2))
+        .minLimit(
+            configuration
+                .map(IdpBulkheadConfiguration::getMinLimit)
+                .orElse(Math.max(1, processors / 2)))
+        .maxLimit(configuration.map(IdpBulkheadConfiguration::getMaxLimit).orElse(processors * 8))
+        .maxQueue(configuration.map(IdpBulkheadConfiguration::getMaxQueue).orElse(processors * 2))
+        .maxWait(
+            configuration
+                .map(IdpBulkheadConfiguration::getMaxWait)
+                .orElse(Duration.ofMillis(DEFAULT_MAX_WAIT_MILLIS)))
+        .latencyTolerance(
+            configuration
+                .map(IdpBulkheadConfiguration::getLatencyTolerance)
+                .orElse(DEFAULT_LATENCY_TOLERANCE))
+        .meterRegistry(meterRegistry)
+        .build();
+  }
+
+  private static Optional<String> getBulkheadName(final Object handler) {
+    return Optional.ofNullable(handler)
+        .filter(HandlerMethod.class::isInstance)
+        .map(HandlerMethod.class::cast)
+        .map(handlerMethod -> handlerMethod.getMethodAnnotation(AdmissionControl.class))
+        .map(AdmissionControl::value);
+  }
+}
@@ -23,6 +23,7 @@ package de.gematik.idp.server.configuration;
 import de.gematik.idp.data.ScopeConfiguration;
 import de.gematik.idp.data.UserConsentConfiguration;
 import de.gematik.idp.server.data.IdpClientConfiguration;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -57,5 +58,19 @@ public class IdpConfiguration {
   private Map<String, IdpClientConfiguration> registeredClient;
   private UserConsentConfiguration userConsent;
   private IdpErrorConfiguration errors;
+  private IdpRandomConfiguration random;
+  private boolean ecdhEngineEnabled;
+  private Integer cryptoExecutorThreads;
+  private IdpAdmissionControlConfiguration admissionControl;
+  private IdpCertificateCacheConfiguration certificateVerificationCache;
+  private IdpPairingCacheConfiguration pairingCache;
+  private IdpPersistenceConfiguration persistence;
+  private IdpTslConfiguration tsl;
+  private IdpOcspConfiguration ocsp;
+  private Duration discoveryDocumentRefreshInterval;
+  private Duration deviceValidationRefreshInterval;
+  private String adminApiKey;
+  private Duration jwksMaxAge;
+  private Integer jweMaxLength;
   private Map<String, ScopeConfiguration> scopesConfiguration;
 }
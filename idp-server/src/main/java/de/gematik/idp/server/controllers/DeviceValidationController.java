@@ -0,0 +1,106 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.controllers;
+
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.data.DeviceValidationImportResult;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import de.gematik.idp.server.services.DeviceValidationImportService;
+import de.gematik.idp.server.services.DeviceValidationService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Function;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk import of device rules. Only available if {@code idp.adminApiKey} is set; the key has to be
+ * sent in the {@value #ADMIN_API_KEY_HEADER} header.
+ */
+@RestController
+@RequiredArgsConstructor
+public class DeviceValidationController {
+
+  public static final String DEVICE_VALIDATION_ENDPOINT = "/admin/device_validations";
+  public static final String ADMIN_API_KEY_HEADER = "X-Admin-Api-Key";
+  private static final String TEXT_CSV_VALUE = "text/csv";
+
+  private final IdpConfiguration idpConfiguration;
+  private final DeviceValidationImportService deviceValidationImportService;
+  private final DeviceValidationService deviceValidationService;
+
+  @PostMapping(
+      value = DEVICE_VALIDATION_ENDPOINT,
+      consumes = TEXT_CSV_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public DeviceValidationImportResult importCsv(
+      @RequestHeader(value = ADMIN_API_KEY_HEADER, required = false) final String adminApiKey,
+      final HttpServletRequest request)
+      throws IOException {
+    return importRules(adminApiKey, request, deviceValidationImportService::importCsv);
+  }
+
+  @PostMapping(
+      value = DEVICE_VALIDATION_ENDPOINT,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public DeviceValidationImportResult importJson(
+      @RequestHeader(value = ADMIN_API_KEY_HEADER, required = false) final String adminApiKey,
+      final HttpServletRequest request)
+      throws IOException {
+    return importRules(adminApiKey, request, deviceValidationImportService::importJson);
+  }
+
+  private DeviceValidationImportResult importRules(
+      final String adminApiKey,
+      final HttpServletRequest request,
+      final Function<InputStream, DeviceValidationImportResult> importer)
+      throws IOException {
+    verifyAdminApiKey(adminApiKey);
+    final DeviceValidationImportResult result;
+    try (final InputStream body = request.getInputStream()) {
+      result = importer.apply(body);
+    }
+    deviceValidationService.refresh();
+    return result;
+  }
+
+  private void verifyAdminApiKey(final String adminApiKey) {
+    final String expectedKey = idpConfiguration.getAdminApiKey();
+    if (StringUtils.isBlank(expectedKey)
+        || adminApiKey == null
+        || !MessageDigest.isEqual(
+            expectedKey.getBytes(StandardCharsets.UTF_8),
+            adminApiKey.getBytes(StandardCharsets.UTF_8))) {
+      throw new IdpServerException(
+          "Admin API key missing or invalid", IdpErrorType.ACCESS_DENIED, HttpStatus.FORBIDDEN);
+    }
+  }
+}
@@ -22,69 +22,30 @@ package de.gematik.idp.server.controllers;
 
 import static de.gematik.idp.IdpConstants.DISCOVERY_DOCUMENT_ENDPOINT;
 
-import de.gematik.idp.authentication.IdpJwtProcessor;
-import de.gematik.idp.data.IdpDiscoveryDocument;
-import de.gematik.idp.data.IdpJwksDocument;
-import de.gematik.idp.data.IdpKeyDescriptor;
-import de.gematik.idp.error.IdpErrorType;
 import de.gematik.idp.server.ServerUrlService;
-import de.gematik.idp.server.exceptions.IdpServerException;
-import de.gematik.idp.server.services.DiscoveryDocumentBuilder;
-import de.gematik.idp.server.services.ScopeService;
+import de.gematik.idp.server.services.DiscoveryDocumentService;
+import de.gematik.idp.server.services.DiscoveryDocumentService.SignedDiscoveryDocument;
+import de.gematik.idp.server.services.JwkDocumentService;
 import de.gematik.idp.server.validation.clientSystem.ValidateClientSystem;
-import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import tools.jackson.core.JacksonException;
-import tools.jackson.databind.json.JsonMapper;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequiredArgsConstructor
 public class DiscoveryDocumentController {
 
-  private final IdpKey idpSig;
-  private final IdpKey idpEnc;
-  private final IdpKey discSig;
   private final ServerUrlService serverUrlService;
-  private final DiscoveryDocumentBuilder discoveryDocumentBuilder;
-  private final String fedAuthEndpoint;
-  private IdpJwtProcessor jwtProcessor;
-  private final ScopeService scopeService;
-
-  @PostConstruct
-  public void setUp() {
-    jwtProcessor = new IdpJwtProcessor(discSig.getIdentity(), discSig.getKeyId());
-  }
+  private final DiscoveryDocumentService discoveryDocumentService;
+  private final JwkDocumentService jwkDocumentService;
 
   @GetMapping("/jwks")
-  public IdpJwksDocument getJwks() {
-    final List<IdpKey> identities = new ArrayList<>();
-    identities.add(idpSig);
-    identities.add(idpEnc);
-    return IdpJwksDocument.builder()
-        .keys(
-            identities.stream()
-                .map(
-                    identity -> {
-                      final IdpKeyDescriptor keyDesc =
-                          IdpKeyDescriptor.constructFromX509Certificate(
-                              identity.getIdentity().getCertificate(),
-                              identity.getKeyId().orElse("null"),
-                              identity
-                                  .getKeyId()
-                                  .map(id -> !id.equals("puk_idp_enc"))
-                                  .orElse(false));
-                      keyDesc.setPublicKeyUse(identity.getUse().orElse(null));
-                      return keyDesc;
-                    })
-                .toList())
-        .build();
+  public ResponseEntity<byte[]> getJwks() {
+    return jwkDocumentService.getJwks();
   }
 
   @GetMapping(
@@ -97,29 +58,15 @@ public class DiscoveryDocumentController {
   @ValidateClientSystem
   public String getDiscoveryDocument(
       final HttpServletRequest request, final HttpServletResponse response) {
-    final String[] scopes = scopeService.getScopes().toArray(new String[0]);
+    final SignedDiscoveryDocument signedDiscoveryDocument =
+        discoveryDocumentService.getSignedDiscoveryDocument(
+            serverUrlService.determineServerUrl(request));
     setNoCacheHeader(response);
-    return signDiscoveryDocument(
-        discoveryDocumentBuilder.buildDiscoveryDocument(
-            serverUrlService.determineServerUrl(request),
-            serverUrlService.getIssuerUrl(),
-            scopes,
-            fedAuthEndpoint));
-  }
-
-  private String signDiscoveryDocument(final IdpDiscoveryDocument discoveryDocument) {
-
-    final String payload;
-    try {
-      payload = JsonMapper.builder().build().writeValueAsString(discoveryDocument);
-    } catch (final JacksonException e) {
-      throw new IdpServerException(
-          2100, IdpErrorType.SERVER_ERROR, "Ein Fehler ist aufgetreten", e);
+    if (new ServletWebRequest(request, response)
+        .checkNotModified(signedDiscoveryDocument.getEtag())) {
+      return null;
     }
-
-    return jwtProcessor
-        .buildJws(payload, Map.ofEntries(Map.entry("typ", "JWT")), true)
-        .getRawString();
+    return signedDiscoveryDocument.getJws();
   }
 
   private void setNoCacheHeader(final HttpServletResponse response) {
@@ -29,6 +29,7 @@ import de.gematik.idp.authentication.AuthenticationChallenge;
 import de.gematik.idp.authentication.AuthenticationChallengeBuilder;
 import de.gematik.idp.data.TokenResponse;
 import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.admission.AdmissionControl;
 import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.services.IdpAuthenticator;
 import de.gematik.idp.server.services.TokenService;
@@ -100,6 +101,7 @@ public class IdpController {
 
   @PostMapping(BASIC_AUTHORIZATION_ENDPOINT)
   @ValidateClientSystem
+  @AdmissionControl("signed_challenge")
   public void validateChallengeAndGetTokenCode(
       @RequestParam(value = "signed_challenge", required = false) @NotNull(message = "2030")
           final IdpJwe signedChallenge,
@@ -113,6 +115,7 @@ public class IdpController {
 
   @PostMapping(ALTERNATIVE_AUTHORIZATION_ENDPOINT)
   @ValidateClientSystem
+  @AdmissionControl("alternative_authorization")
   public void validateSignedAuthenticationDataAndGetTokenCode(
       @RequestParam(value = "encrypted_signed_authentication_data", required = false) @NotNull
           final IdpJwe signedAuthenticationData,
@@ -126,6 +129,7 @@ public class IdpController {
 
   @PostMapping(value = SSO_ENDPOINT, consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
   @ValidateClientSystem
+  @AdmissionControl("sso")
   public void validateSsoTokenAndGetTokenCode(
       @RequestParam(value = "ssotoken", required = false) @NotNull(message = "2040")
           final IdpJwe ssoToken,
@@ -141,6 +145,7 @@ public class IdpController {
 
   @PostMapping(value = TOKEN_ENDPOINT, consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
   @ValidateClientSystem
+  @AdmissionControl("token")
   public TokenResponse getTokensForCode(
       @RequestParam("code") @NotNull(message = "3005") final IdpJwe authenticationToken,
       @RequestParam("key_verifier") @NotNull final IdpJwe keyVerifier,
@@ -20,9 +20,10 @@
 
 package de.gematik.idp.server.controllers;
 
-import de.gematik.idp.data.IdpKeyDescriptor;
+import de.gematik.idp.server.services.JwkDocumentService;
 import de.gematik.idp.server.validation.clientSystem.ValidateClientSystem;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,18 +33,17 @@ public class KeyInformationController {
 
   public static final String PUK_URI_SIG = "/idpSig/jwk.json";
   public static final String PUK_URI_ENC = "/idpEnc/jwk.json";
-  private final IdpKey idpEnc;
-  private final IdpKey idpSig;
+  private final JwkDocumentService jwkDocumentService;
 
   @GetMapping(PUK_URI_SIG)
   @ValidateClientSystem
-  public IdpKeyDescriptor getAuthJwk() {
-    return idpSig.buildJwk();
+  public ResponseEntity<byte[]> getAuthJwk() {
+    return jwkDocumentService.getSigJwk();
   }
 
   @GetMapping(PUK_URI_ENC)
   @ValidateClientSystem
-  public IdpKeyDescriptor getTokenJwk() {
-    return idpEnc.buildJwk();
+  public ResponseEntity<byte[]> getTokenJwk() {
+    return jwkDocumentService.getEncJwk();
   }
 }
@@ -22,7 +22,9 @@ package de.gematik.idp.server.controllers;
 
 import static de.gematik.idp.IdpConstants.PAIRING_ENDPOINT;
 
+import de.gematik.idp.server.ReadReplica;
 import de.gematik.idp.server.RequestAccessToken;
+import de.gematik.idp.server.admission.AdmissionControl;
 import de.gematik.idp.server.data.PairingDto;
 import de.gematik.idp.server.data.PairingList;
 import de.gematik.idp.server.services.PairingService;
@@ -43,6 +45,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -56,15 +59,40 @@ public class PairingController {
   @GetMapping(value = PAIRING_ENDPOINT, produces = MediaType.APPLICATION_JSON_VALUE)
   @ValidateClientSystem
   @ValidateAccessToken
-  public PairingList getAllPairingsForKvnr(final HttpServletResponse response) {
+  @AdmissionControl("pairing")
+  @ReadReplica
+  @Transactional(readOnly = true)
+  public PairingList getAllPairingsForKvnr(
+      final HttpServletResponse response,
+      @RequestParam(value = "page_size", required = false) final Integer pageSize,
+      @RequestParam(value = "page_token", required = false) final String pageToken) {
+    setNoCacheHeader(response);
+    if (pageSize == null && pageToken == null) {
+      return new PairingList(
+          pairingService.validateTokenAndGetPairingList(requestAccessToken.getAccessToken()));
+    }
+    return pairingService.validateTokenAndGetPairingPage(
+        requestAccessToken.getAccessToken(), pageSize, pageToken);
+  }
+
+  @GetMapping(
+      value = PAIRING_ENDPOINT,
+      params = "stream=true",
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @ValidateClientSystem
+  @ValidateAccessToken
+  @AdmissionControl("pairing")
+  @ReadReplica
+  @Transactional(readOnly = true)
+  public StreamingResponseBody streamAllPairingsForKvnr(final HttpServletResponse response) {
     setNoCacheHeader(response);
-    return new PairingList(
-        pairingService.validateTokenAndGetPairingList(requestAccessToken.getAccessToken()));
+    return pairingService.validateTokenAndStreamPairingList(requestAccessToken.getAccessToken());
   }
 
   @DeleteMapping(
       value = {PAIRING_ENDPOINT, PAIRING_ENDPOINT + "/", PAIRING_ENDPOINT + "/{key_identifier}"})
   @ValidateAccessToken
+  @AdmissionControl("pairing")
   @ValidateClientSystem
   @ResponseStatus(value = HttpStatus.NO_CONTENT)
   public void deleteSinglePairing(
@@ -80,6 +108,7 @@ public class PairingController {
       consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE,
       produces = MediaType.APPLICATION_JSON_VALUE)
   @ValidateAccessToken
+  @AdmissionControl("pairing")
   @ValidateClientSystem
   public PairingDto insertPairing(
       final HttpServletResponse response,
@@ -20,6 +20,7 @@
 
 package de.gematik.idp.server.data;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.Builder;
 import tools.jackson.databind.PropertyNamingStrategies;
@@ -27,4 +28,11 @@ import tools.jackson.databind.annotation.JsonNaming;
 
 @Builder
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
-public record PairingList(List<PairingDto> pairingEntries) {}
+public record PairingList(
+    List<PairingDto> pairingEntries,
+    @JsonInclude(JsonInclude.Include.NON_NULL) String nextPageToken) {
+
+  public PairingList(final List<PairingDto> pairingEntries) {
+    this(pairingEntries, null);
+  }
+}
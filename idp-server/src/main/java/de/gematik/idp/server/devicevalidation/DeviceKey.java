@@ -0,0 +1,35 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.devicevalidation;
+
+/** Composite key of the device_validation table. */
+public record DeviceKey(
+    String manufacturer, String product, String model, String os, String osVersion) {
+
+  public static DeviceKey of(final DeviceValidationData deviceValidationData) {
+    return new DeviceKey(
+        deviceValidationData.getManufacturer(),
+        deviceValidationData.getProduct(),
+        deviceValidationData.getModel(),
+        deviceValidationData.getOs(),
+        deviceValidationData.getOsVersion());
+  }
+}
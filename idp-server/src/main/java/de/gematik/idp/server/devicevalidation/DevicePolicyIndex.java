@@ -0,0 +1,136 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.devicevalidation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable, compiled copy of the device rules. Rules without any wildcard are looked up in a hash
+ * map, rules with an exact device but a version pattern by the device without version, and the
+ * remaining rules are scanned. If several rules match a device, BLOCK wins.
+ */
+@Slf4j
+public final class DevicePolicyIndex {
+
+  public static final DevicePolicyIndex EMPTY =
+      new DevicePolicyIndex(Map.of(), Map.of(), List.of());
+
+  private final Map<DeviceKey, DeviceValidationState> exactStates;
+  private final Map<DeviceKey, List<DeviceRule>> versionRulesByDevice;
+  private final List<DeviceRule> wildcardRules;
+
+  private DevicePolicyIndex(
+      final Map<DeviceKey, DeviceValidationState> exactStates,
+      final Map<DeviceKey, List<DeviceRule>> versionRulesByDevice,
+      final List<DeviceRule> wildcardRules) {
+    this.exactStates = exactStates;
+    this.versionRulesByDevice = versionRulesByDevice;
+    this.wildcardRules = wildcardRules;
+  }
+
+  /** Entries that are no valid rule (e.g. state UNKNOWN) are skipped. */
+  public static DevicePolicyIndex of(final List<DeviceValidationData> deviceValidations) {
+    final Map<DeviceKey, DeviceValidationState> exactStates = new HashMap<>();
+    final Map<DeviceKey, List<DeviceRule>> versionRulesByDevice = new HashMap<>();
+    final List<DeviceRule> wildcardRules = new ArrayList<>();
+    for (final DeviceValidationData deviceValidation : deviceValidations) {
+      final DeviceRule rule;
+      try {
+        rule = DeviceRule.compile(deviceValidation);
+      } catch (final IllegalArgumentException e) {
+        log.warn("Ignoring device rule {}: {}", deviceValidation.getId(), e.getMessage());
+        continue;
+      }
+      if (rule.isExact()) {
+        exactStates.merge(rule.toKey(), rule.state(), DevicePolicyIndex::combine);
+      } else if (rule.hasExactDevice()) {
+        versionRulesByDevice
+            .computeIfAbsent(withoutVersion(rule.toKey()), key -> new ArrayList<>())
+            .add(rule);
+      } else {
+        wildcardRules.add(rule);
+      }
+    }
+    final Map<DeviceKey, List<DeviceRule>> immutableVersionRules = new HashMap<>();
+    versionRulesByDevice.forEach(
+        (key, rules) -> immutableVersionRules.put(key, List.copyOf(rules)));
+    return new DevicePolicyIndex(
+        Map.copyOf(exactStates), Map.copyOf(immutableVersionRules), List.copyOf(wildcardRules));
+  }
+
+  public DeviceValidationState getState(final DeviceKey deviceKey) {
+    DeviceValidationState state =
+        exactStates.getOrDefault(deviceKey, DeviceValidationState.UNKNOWN);
+    if (state == DeviceValidationState.BLOCK) {
+      return state;
+    }
+    state =
+        combineMatching(
+            state,
+            versionRulesByDevice.getOrDefault(withoutVersion(deviceKey), List.of()),
+            deviceKey);
+    return state == DeviceValidationState.BLOCK
+        ? state
+        : combineMatching(state, wildcardRules, deviceKey);
+  }
+
+  public int size() {
+    return exactStates.size()
+        + versionRulesByDevice.values().stream().mapToInt(List::size).sum()
+        + wildcardRules.size();
+  }
+
+  private static DeviceValidationState combineMatching(
+      final DeviceValidationState initialState,
+      final List<DeviceRule> rules,
+      final DeviceKey deviceKey) {
+    DeviceValidationState state = initialState;
+    for (final DeviceRule rule : rules) {
+      if (rule.matches(deviceKey)) {
+        state = combine(state, rule.state());
+        if (state == DeviceValidationState.BLOCK) {
+          return state;
+        }
+      }
+    }
+    return state;
+  }
+
+  private static DeviceKey withoutVersion(final DeviceKey deviceKey) {
+    return new DeviceKey(
+        deviceKey.manufacturer(), deviceKey.product(), deviceKey.model(), deviceKey.os(), null);
+  }
+
+  private static DeviceValidationState combine(
+      final DeviceValidationState first, final DeviceValidationState second) {
+    if (first == DeviceValidationState.BLOCK || second == DeviceValidationState.BLOCK) {
+      return DeviceValidationState.BLOCK;
+    }
+    if (first == DeviceValidationState.ALLOW || second == DeviceValidationState.ALLOW) {
+      return DeviceValidationState.ALLOW;
+    }
+    return DeviceValidationState.UNKNOWN;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.devicevalidation;
+
+import java.util.Objects;
+
+/**
+ * Compiled device rule. Manufacturer, product, model and os match exactly or, given as {@code *},
+ * any value; the os_version is a {@link VersionPattern}.
+ */
+public record DeviceRule(
+    String manufacturer,
+    String product,
+    String model,
+    String os,
+    VersionPattern osVersion,
+    DeviceValidationState state) {
+
+  /**
+   * @throws IllegalArgumentException if a field is blank, the version pattern is malformed or the
+   *     state is not ALLOW or BLOCK
+   */
+  public static DeviceRule compile(final DeviceValidationData deviceValidationData) {
+    if (deviceValidationData.getState() != DeviceValidationState.ALLOW
+        && deviceValidationData.getState() != DeviceValidationState.BLOCK) {
+      throw new IllegalArgumentException("State must be ALLOW or BLOCK");
+    }
+    return new DeviceRule(
+        requireValue(deviceValidationData.getManufacturer(), "manufacturer"),
+        requireValue(deviceValidationData.getProduct(), "product"),
+        requireValue(deviceValidationData.getModel(), "model"),
+        requireValue(deviceValidationData.getOs(), "os"),
+        VersionPattern.compile(deviceValidationData.getOsVersion()),
+        deviceValidationData.getState());
+  }
+
+  /** Whether manufacturer, product, model and os are given without wildcard. */
+  public boolean hasExactDevice() {
+    return !isWildcard(manufacturer)
+        && !isWildcard(product)
+        && !isWildcard(model)
+        && !isWildcard(os);
+  }
+
+  /** Whether the rule matches exactly one device key. */
+  public boolean isExact() {
+    return hasExactDevice() && osVersion.isExact();
+  }
+
+  public DeviceKey toKey() {
+    return new DeviceKey(manufacturer, product, model, os, osVersion.toString());
+  }
+
+  public boolean matches(final DeviceKey deviceKey) {
+    return matches(manufacturer, deviceKey.manufacturer())
+        && matches(product, deviceKey.product())
+        && matches(model, deviceKey.model())
+        && matches(os, deviceKey.os())
+        && osVersion.test(deviceKey.osVersion());
+  }
+
+  private static boolean matches(final String pattern, final String value) {
+    return isWildcard(pattern) || Objects.equals(pattern, value);
+  }
+
+  private static boolean isWildcard(final String pattern) {
+    return VersionPattern.WILDCARD.equals(pattern);
+  }
+
+  private static String requireValue(final String value, final String name) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException(name + " must not be blank");
+    }
+    return value.trim();
+  }
+}
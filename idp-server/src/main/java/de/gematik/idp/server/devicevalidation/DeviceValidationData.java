@@ -27,6 +27,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -34,7 +35,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "device_validation", schema = "IDP")
+@Table(
+    name = "device_validation",
+    schema = "IDP",
+    indexes =
+        @Index(
+            name = "ix_device_validation_search",
+            columnList = "manufacturer, product, model, os, os_version",
+            unique = true))
 @Data
 @Builder
 @NoArgsConstructor
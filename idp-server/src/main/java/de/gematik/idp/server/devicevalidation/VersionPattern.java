@@ -0,0 +1,167 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.devicevalidation;
+
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Compiled os_version of a device rule. Supported notations:
+ *
+ * <ul>
+ *   <li>{@code *}: any version
+ *   <li>{@code 14.*}: every version starting with {@code 14.}
+ *   <li>{@code [10.0.0,12.0.0)}: range, square brackets include the bound, round brackets exclude
+ *       it, an empty bound is unlimited
+ *   <li>anything else: exactly this version
+ * </ul>
+ *
+ * Versions are compared segment by segment (separated by dots), numerically where both segments
+ * are numbers.
+ */
+public final class VersionPattern implements Predicate<String> {
+
+  public static final String WILDCARD = "*";
+  private static final Comparator<String> VERSION_ORDER = VersionPattern::compareVersions;
+
+  private final String pattern;
+  private final Predicate<String> matcher;
+  private final boolean exact;
+
+  private VersionPattern(
+      final String pattern, final Predicate<String> matcher, final boolean exact) {
+    this.pattern = pattern;
+    this.matcher = matcher;
+    this.exact = exact;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the pattern is blank or a malformed range
+   */
+  public static VersionPattern compile(final String pattern) {
+    if (pattern == null || pattern.isBlank()) {
+      throw new IllegalArgumentException("Version pattern must not be blank");
+    }
+    final String trimmed = pattern.trim();
+    if (WILDCARD.equals(trimmed)) {
+      return new VersionPattern(trimmed, version -> true, false);
+    }
+    if (trimmed.endsWith(WILDCARD)) {
+      final String prefix = trimmed.substring(0, trimmed.length() - 1);
+      return new VersionPattern(
+          trimmed, version -> version != null && version.startsWith(prefix), false);
+    }
+    if (isRange(trimmed)) {
+      return compileRange(trimmed);
+    }
+    return new VersionPattern(trimmed, trimmed::equals, true);
+  }
+
+  /** Whether the pattern is a plain version that can be looked up by equality. */
+  public boolean isExact() {
+    return exact;
+  }
+
+  @Override
+  public boolean test(final String version) {
+    return matcher.test(version);
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+
+  private static boolean isRange(final String pattern) {
+    return (pattern.startsWith("[") || pattern.startsWith("("))
+        && (pattern.endsWith("]") || pattern.endsWith(")"));
+  }
+
+  private static VersionPattern compileRange(final String pattern) {
+    final String[] bounds = pattern.substring(1, pattern.length() - 1).split(",", -1);
+    if (bounds.length != 2) {
+      throw new IllegalArgumentException("Version range needs exactly two bounds: " + pattern);
+    }
+    final boolean lowerInclusive = pattern.startsWith("[");
+    final boolean upperInclusive = pattern.endsWith("]");
+    final String lower = bounds[0].trim();
+    final String upper = bounds[1].trim();
+    if (!lower.isEmpty() && !upper.isEmpty() && VERSION_ORDER.compare(lower, upper) > 0) {
+      throw new IllegalArgumentException("Lower bound exceeds upper bound: " + pattern);
+    }
+    return new VersionPattern(
+        pattern,
+        version -> {
+          if (version == null) {
+            return false;
+          }
+          if (!lower.isEmpty()) {
+            final int comparison = VERSION_ORDER.compare(version, lower);
+            if (comparison < 0 || (comparison == 0 && !lowerInclusive)) {
+              return false;
+            }
+          }
+          if (!upper.isEmpty()) {
+            final int comparison = VERSION_ORDER.compare(version, upper);
+            return comparison < 0 || (comparison == 0 && upperInclusive);
+          }
+          return true;
+        },
+        false);
+  }
+
+  static int compareVersions(final String first, final String second) {
+    final String[] firstSegments = first.split("\\.");
+    final String[] secondSegments = second.split("\\.");
+    for (int i = 0; i < Math.max(firstSegments.length, secondSegments.length); i++) {
+      final String firstSegment = i < firstSegments.length ? firstSegments[i] : "0";
+      final String secondSegment = i < secondSegments.length ? secondSegments[i] : "0";
+      final int comparison = compareSegments(firstSegment, secondSegment);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  private static int compareSegments(final String first, final String second) {
+    if (isNumber(first) && isNumber(second)) {
+      final int lengthComparison =
+          Integer.compare(stripLeadingZeros(first).length(), stripLeadingZeros(second).length());
+      return lengthComparison != 0
+          ? lengthComparison
+          : stripLeadingZeros(first).compareTo(stripLeadingZeros(second));
+    }
+    return first.compareTo(second);
+  }
+
+  private static boolean isNumber(final String segment) {
+    return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+  }
+
+  private static String stripLeadingZeros(final String number) {
+    int start = 0;
+    while (start < number.length() - 1 && number.charAt(start) == '0') {
+      start++;
+    }
+    return number.substring(start);
+  }
+}
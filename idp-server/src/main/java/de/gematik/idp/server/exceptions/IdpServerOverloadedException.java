@@ -0,0 +1,52 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.exceptions;
+
+import de.gematik.idp.error.IdpErrorType;
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/** Request rejected by admission control, answered with a Retry-After header. */
+public class IdpServerOverloadedException extends IdpServerException {
+
+  public static final int ERROR_ID_OVERLOADED = 1501;
+  private static final long serialVersionUID = 4176028911561935024L;
+
+  private final long retryAfterSeconds;
+
+  public IdpServerOverloadedException(
+      final String bulkhead, final HttpStatus returnStatus, final Duration retryAfter) {
+    super(
+        ERROR_ID_OVERLOADED,
+        IdpErrorType.TEMPORARILY_UNAVAILABLE,
+        "Server ausgelastet (" + bulkhead + "), bitte später erneut versuchen",
+        returnStatus);
+    this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    final HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    return headers;
+  }
+}
@@ -31,6 +31,7 @@ import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.services.IdpAuthenticator;
 import de.gematik.idp.token.IdpJwe;
 import de.gematik.idp.token.JsonWebToken;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
@@ -68,11 +69,13 @@ import org.springframework.web.util.UriUtils;
 @Slf4j
 public class IdpServerExceptionHandler {
 
+  public static final String ERROR_METER = "idp.errors";
   private static final int MAX_HEADER_SIZE = 200;
   private final ServerUrlService serverUrlService;
   private final IdpKey idpEnc;
   private final IdpConfiguration idpConfiguration;
   private final IdpAuthenticator idpAuthenticator;
+  private final MeterRegistry meterRegistry;
 
   @ExceptionHandler(IdpServerException.class)
   public ResponseEntity<IdpErrorResponse> handleIdpServerException(
@@ -82,11 +85,14 @@ public class IdpServerExceptionHandler {
       body.setDetailMessage(exc.getMessage());
     }
     logEntry(body, exc);
+    countError(body, exc);
 
     if (exc.getStatusCode().is3xxRedirection()) {
       return buildForwardingError(body, request, response, exc);
     }
-    return new ResponseEntity<>(body, getHeader(), exc.getStatusCode());
+    final HttpHeaders headers = getHeader();
+    headers.addAll(exc.getHeaders());
+    return new ResponseEntity<>(body, headers, exc.getStatusCode());
   }
 
   private ResponseEntity<IdpErrorResponse> buildForwardingError(
@@ -355,6 +361,21 @@ public class IdpServerExceptionHandler {
     log.debug(body.toString(), exc);
   }
 
+  private void countError(final IdpErrorResponse body, final IdpServerException exc) {
+    meterRegistry
+        .counter(
+            ERROR_METER,
+            "gematik_code",
+            Optional.ofNullable(body.getCode()).orElse("-1"),
+            "error",
+            Optional.ofNullable(body.getError())
+                .map(IdpErrorType::getSerializationValue)
+                .orElse("none"),
+            "status",
+            String.valueOf(exc.getStatusCode().value()))
+        .increment();
+  }
+
   private HttpHeaders getHeader() {
     final HttpHeaders responseHeaders = new HttpHeaders();
     responseHeaders.add(HttpHeaders.CONTENT_TYPE, "application/json; charset=utf-8");
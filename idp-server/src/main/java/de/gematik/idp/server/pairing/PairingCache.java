@@ -0,0 +1,141 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pairing;
+
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpPairingCacheConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache for {@link PairingRepository#findByIdNumberAndKeyIdentifier}. Only existing
+ * pairings are cached, for {@code idp.pairingCache.ttl}; the TTL bounds how long a pairing deleted
+ * on another instance is still accepted here. Local changes have to go through {@link
+ * #invalidate(String, String)} and {@link #invalidateAll(String)}, which evict immediately and
+ * again after the surrounding transaction completed (a concurrent read may have re-cached the old
+ * row in between).
+ */
+@Service
+@RequiredArgsConstructor
+public class PairingCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+  public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+  private static final String CACHE_METER = "idp.pairing.cache";
+
+  private final PairingRepository pairingRepository;
+  private final IdpConfiguration idpConfiguration;
+  private final MeterRegistry meterRegistry;
+  private Map<PairingKey, CachedPairing> pairings;
+  private int maxEntries;
+  private Duration ttl;
+  private Counter hitCounter;
+  private Counter missCounter;
+
+  private record PairingKey(String idNumber, String keyIdentifier) {}
+
+  private record CachedPairing(PairingData pairingData, Instant expiresAt) {}
+
+  @PostConstruct
+  public void setUp() {
+    final Optional<IdpPairingCacheConfiguration> cacheConfiguration =
+        Optional.ofNullable(idpConfiguration.getPairingCache());
+    maxEntries =
+        cacheConfiguration
+            .map(IdpPairingCacheConfiguration::getMaxEntries)
+            .orElse(DEFAULT_MAX_ENTRIES);
+    ttl = cacheConfiguration.map(IdpPairingCacheConfiguration::getTtl).orElse(DEFAULT_TTL);
+    hitCounter = meterRegistry.counter(CACHE_METER, "result", "hit");
+    missCounter = meterRegistry.counter(CACHE_METER, "result", "miss");
+    pairings =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  final Map.Entry<PairingKey, CachedPairing> eldest) {
+                return size() > maxEntries;
+              }
+            });
+    meterRegistry.gaugeMapSize(CACHE_METER + ".size", Tags.empty(), pairings);
+  }
+
+  public Optional<PairingData> findByIdNumberAndKeyIdentifier(
+      final String idNumber, final String keyIdentifier) {
+    final PairingKey key = new PairingKey(idNumber, keyIdentifier);
+    final CachedPairing cached = pairings.get(key);
+    if (cached != null && Instant.now().isBefore(cached.expiresAt())) {
+      hitCounter.increment();
+      return Optional.of(cached.pairingData());
+    }
+    missCounter.increment();
+    final Optional<PairingData> pairingData =
+        pairingRepository.findByIdNumberAndKeyIdentifier(idNumber, keyIdentifier);
+    if (pairingData.isPresent() && maxEntries > 0) {
+      pairings.put(key, new CachedPairing(pairingData.get(), Instant.now().plus(ttl)));
+    } else if (cached != null) {
+      pairings.remove(key, cached);
+    }
+    return pairingData;
+  }
+
+  public void invalidate(final String idNumber, final String keyIdentifier) {
+    final PairingKey key = new PairingKey(idNumber, keyIdentifier);
+    evictNowAndAfterTransaction(() -> pairings.remove(key));
+  }
+
+  public void invalidateAll(final String idNumber) {
+    evictNowAndAfterTransaction(
+        () -> pairings.keySet().removeIf(key -> key.idNumber().equals(idNumber)));
+  }
+
+  public void clear() {
+    pairings.clear();
+  }
+
+  public int size() {
+    return pairings.size();
+  }
+
+  private static void evictNowAndAfterTransaction(final Runnable eviction) {
+    eviction.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(final int status) {
+              eviction.run();
+            }
+          });
+    }
+  }
+}
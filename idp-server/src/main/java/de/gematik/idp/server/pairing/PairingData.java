@@ -25,6 +25,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import java.time.ZonedDateTime;
@@ -34,7 +35,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "pairing", schema = "IDP")
+@Table(
+    name = "pairing",
+    schema = "IDP",
+    indexes =
+        @Index(
+            name = "ix_id_number_key_identifier",
+            columnList = "id_number, key_identifier",
+            unique = true))
 @Data
 @Builder
 @NoArgsConstructor
@@ -61,4 +69,24 @@ public class PairingData {
 
   @Column(name = "timestamp_pairing")
   private ZonedDateTime timestampPairing;
+
+  /**
+   * Key material taken from signedPairingData at registration, after the pairing data has been
+   * verified with the auth-cert key. Null for pairings registered before these columns existed or
+   * whose pairing data could not be verified that way.
+   */
+  @Column(name = "auth_cert_subject_public_key_info", length = 1024)
+  private String authCertSubjectPublicKeyInfo;
+
+  @Column(name = "se_subject_public_key_info", length = 1024)
+  private String seSubjectPublicKeyInfo;
+
+  @Column(name = "certificate_serial_number", length = 64)
+  private String certificateSerialNumber;
+
+  public boolean hasVerifiedKeyMaterial() {
+    return authCertSubjectPublicKeyInfo != null
+        && seSubjectPublicKeyInfo != null
+        && certificateSerialNumber != null;
+  }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pairing;
+
+import de.gematik.idp.crypto.CryptoLoader;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decoded EC public keys of pairings, keyed by their Base64URL encoded SubjectPublicKeyInfo as
+ * stored in {@link PairingData}. Spares the KeyFactory round trip on every biometric login.
+ */
+@Component
+public class PairingPublicKeyCache {
+
+  static final int MAX_ENTRIES = 10_000;
+
+  private final Map<String, PublicKey> publicKeys =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, PublicKey> eldest) {
+              return size() > MAX_ENTRIES;
+            }
+          });
+
+  /**
+   * @throws de.gematik.idp.crypto.exceptions.IdpCryptoException if the bytes are no EC key
+   * @throws IllegalArgumentException if the value is not Base64URL encoded
+   */
+  public PublicKey getEcPublicKey(final String encodedSubjectPublicKeyInfo) {
+    final PublicKey cached = publicKeys.get(encodedSubjectPublicKeyInfo);
+    if (cached != null) {
+      return cached;
+    }
+    final PublicKey publicKey =
+        CryptoLoader.getEcPublicKeyFromBytes(
+            Base64.getUrlDecoder().decode(encodedSubjectPublicKeyInfo));
+    publicKeys.put(encodedSubjectPublicKeyInfo, publicKey);
+    return publicKey;
+  }
+}
@@ -22,6 +22,7 @@ package de.gematik.idp.server.pairing;
 
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -35,4 +36,8 @@ public interface PairingRepository extends JpaRepository<PairingData, Long> {
   List<PairingData> findByIdNumber(String idNumber);
 
   Optional<PairingData> findByIdNumberAndKeyIdentifier(String idNumber, String keyIdentifier);
+
+  /** Keyset page of the pairings of an id number, ordered by key identifier. */
+  List<PairingListEntry> findByIdNumberAndKeyIdentifierGreaterThanOrderByKeyIdentifier(
+      String idNumber, String keyIdentifier, Limit limit);
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import de.gematik.idp.server.exceptions.OcspCheckException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Posts OCSP requests (RFC 6960, appendix A.1) asynchronously. Connect and request time are limited
+ * by the timeout, the number of outstanding requests by a semaphore: a request beyond the limit
+ * fails immediately instead of queueing up behind a slow responder.
+ */
+class OcspClient {
+
+  private static final String OCSP_REQUEST_CONTENT_TYPE = "application/ocsp-request";
+
+  private final HttpClient httpClient;
+  private final Duration timeout;
+  private final Semaphore permits;
+
+  OcspClient(final Duration timeout, final int maxConcurrentRequests, final Executor executor) {
+    this.httpClient =
+        HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    this.timeout = timeout;
+    this.permits = new Semaphore(maxConcurrentRequests);
+  }
+
+  CompletableFuture<byte[]> post(final URI responderUri, final byte[] ocspRequest) {
+    if (!permits.tryAcquire()) {
+      return CompletableFuture.failedFuture(
+          new OcspCheckException("Too many concurrent OCSP requests"));
+    }
+    final HttpRequest request =
+        HttpRequest.newBuilder(responderUri)
+            .timeout(timeout)
+            .header("Content-Type", OCSP_REQUEST_CONTENT_TYPE)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(ocspRequest))
+            .build();
+    return httpClient
+        .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .whenComplete((response, error) -> permits.release())
+        .thenApply(
+            response -> {
+              if (response.statusCode() != 200) {
+                throw new OcspCheckException(
+                    "OCSP responder " + responderUri + " answered " + response.statusCode());
+              }
+              return response.body();
+            });
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+public enum OcspMode {
+  /** No revocation check, TUC_PKI_018 runs without OCSP. */
+  OFF,
+  /**
+   * The revocation status is requested by the IDP itself. Responses are cached until their
+   * nextUpdate, concurrent requests for one certificate share one OCSP request and a request that
+   * can not be answered is rejected.
+   */
+  CACHED
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import de.gematik.idp.crypto.SecureRandomProvider;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpOcspConfiguration;
+import de.gematik.idp.server.exceptions.OcspCheckException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1IA5String;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revocation check of client certificates via OCSP (idp.ocsp.mode CACHED). Responses are cached per
+ * certificate and never served after their nextUpdate. During the last {@code
+ * idp.ocsp.staleWhileRevalidate} before it the cached status is served while a single background
+ * request refreshes it. Concurrent requests for the same certificate share one OCSP request. Only
+ * responses signed by the issuing CA, by a responder certified by it for OCSP signing or by an OCSP
+ * service of the TSL are accepted. Each request carries a nonce; a response echoing a different
+ * nonce, one without nonce whose thisUpdate is older than {@code idp.ocsp.maxResponseAge}, one
+ * whose thisUpdate lies in the future or whose nextUpdate has passed is rejected, each with a
+ * tolerance of {@code idp.ocsp.clockSkew}. A status other than good, a timeout and an invalid
+ * response reject the certificate.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OcspStatusService {
+
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+  public static final Duration DEFAULT_VALIDITY = Duration.ofMinutes(1);
+  public static final Duration DEFAULT_STALE_WHILE_REVALIDATE = Duration.ofSeconds(30);
+  public static final Duration DEFAULT_CLOCK_SKEW = Duration.ofMillis(37_500);
+  public static final Duration DEFAULT_MAX_RESPONSE_AGE = Duration.ofMinutes(15);
+  private static final String CACHE_METER = "idp.ocsp.cache";
+  private static final int HTTP_THREADS = 2;
+  private static final int NONCE_LENGTH = 16;
+
+  private final IdpConfiguration idpConfiguration;
+  private final TslManager tslManager;
+  private final MeterRegistry meterRegistry;
+  private final Environment environment;
+  private final SecureRandomProvider secureRandomProvider;
+  private final Map<String, CompletableFuture<CertificateStatus>> inFlight =
+      new ConcurrentHashMap<>();
+  private Map<String, CertificateStatus> statuses;
+  private OcspMode mode;
+  private Optional<URI> responderUri;
+  private Duration timeout;
+  private Duration defaultValidity;
+  private Duration staleWhileRevalidate;
+  private Duration clockSkew;
+  private Duration maxResponseAge;
+  private ExecutorService httpExecutor;
+  private OcspClient ocspClient;
+  private Counter hitCounter;
+  private Counter staleCounter;
+  private Counter missCounter;
+
+  public enum Status {
+    GOOD,
+    REVOKED,
+    UNKNOWN
+  }
+
+  /**
+   * @param freshUntil start of the stale-while-revalidate period
+   * @param staleUntil nextUpdate of the response, the status is not served afterwards
+   */
+  public record CertificateStatus(Status status, Instant freshUntil, Instant staleUntil) {}
+
+  @PostConstruct
+  public void setUp() {
+    final Optional<IdpOcspConfiguration> configuration =
+        Optional.ofNullable(idpConfiguration.getOcsp());
+    mode = configuration.map(IdpOcspConfiguration::getMode).orElse(OcspMode.OFF);
+    responderUri =
+        configuration
+            .map(IdpOcspConfiguration::getResponderUrl)
+            .filter(StringUtils::isNotBlank)
+            .map(URI::create);
+    timeout = configuration.map(IdpOcspConfiguration::getTimeout).orElse(DEFAULT_TIMEOUT);
+    defaultValidity =
+        configuration.map(IdpOcspConfiguration::getDefaultValidity).orElse(DEFAULT_VALIDITY);
+    staleWhileRevalidate =
+        configuration
+            .map(IdpOcspConfiguration::getStaleWhileRevalidate)
+            .orElse(DEFAULT_STALE_WHILE_REVALIDATE);
+    clockSkew = configuration.map(IdpOcspConfiguration::getClockSkew).orElse(DEFAULT_CLOCK_SKEW);
+    maxResponseAge =
+        configuration.map(IdpOcspConfiguration::getMaxResponseAge).orElse(DEFAULT_MAX_RESPONSE_AGE);
+    final int maxEntries =
+        configuration.map(IdpOcspConfiguration::getMaxEntries).orElse(DEFAULT_MAX_ENTRIES);
+    statuses =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  final Map.Entry<String, CertificateStatus> eldest) {
+                return size() > maxEntries;
+              }
+            });
+
+    httpExecutor = createHttpExecutor();
+    ocspClient =
+        new OcspClient(
+            timeout,
+            configuration
+                .map(IdpOcspConfiguration::getMaxConcurrentRequests)
+                .orElse(DEFAULT_MAX_CONCURRENT_REQUESTS),
+            httpExecutor);
+    hitCounter = meterRegistry.counter(CACHE_METER, "result", "hit");
+    staleCounter = meterRegistry.counter(CACHE_METER, "result", "stale");
+    missCounter = meterRegistry.counter(CACHE_METER, "result", "miss");
+  }
+
+  /**
+   * In virtual thread mode (spring.threads.virtual.enabled) every HTTP exchange gets its own
+   * virtual thread, the semaphore of the {@link OcspClient} still bounds the outstanding requests.
+   */
+  private ExecutorService createHttpExecutor() {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("idp-ocsp-", 1).factory());
+    }
+    final AtomicInteger threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        HTTP_THREADS,
+        runnable -> {
+          final Thread thread = new Thread(runnable, "idp-ocsp-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  @PreDestroy
+  public void shutDown() {
+    httpExecutor.shutdownNow();
+  }
+
+  public boolean isEnabled() {
+    return mode != OcspMode.OFF;
+  }
+
+  /**
+   * Does nothing if OCSP is switched off.
+   *
+   * @throws OcspCheckException if the certificate is not confirmed to be good
+   */
+  public void checkRevocationStatus(final X509Certificate certificate) {
+    if (!isEnabled()) {
+      return;
+    }
+    final X509Certificate issuer =
+        tslManager
+            .getSnapshot()
+            .findIssuerCertificate(certificate)
+            .orElseThrow(() -> new OcspCheckException("Issuer of certificate not found in TSL"));
+    final CertificateStatus certificateStatus;
+    try {
+      certificateStatus =
+          getStatus(certificate, issuer).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OcspCheckException("Interrupted while waiting for OCSP response", e);
+    } catch (final TimeoutException e) {
+      throw new OcspCheckException("No OCSP response within " + timeout, e);
+    } catch (final ExecutionException e) {
+      throw asOcspCheckException(e.getCause());
+    }
+    if (certificateStatus.status() != Status.GOOD) {
+      throw new OcspCheckException("OCSP status of certificate is " + certificateStatus.status());
+    }
+  }
+
+  /** Cached status of the certificate, requested from the responder if necessary. */
+  public CompletableFuture<CertificateStatus> getStatus(
+      final X509Certificate certificate, final X509Certificate issuer) {
+    final String key = cacheKey(certificate, issuer);
+    final CertificateStatus cached = statuses.get(key);
+    final Instant now = Instant.now();
+    if (cached != null && now.isBefore(cached.freshUntil())) {
+      hitCounter.increment();
+      return CompletableFuture.completedFuture(cached);
+    }
+    if (cached != null && now.isBefore(cached.staleUntil())) {
+      staleCounter.increment();
+      requestStatusOnce(key, certificate, issuer)
+          .exceptionally(
+              error -> {
+                log.warn("Revalidation of OCSP status failed", error);
+                return null;
+              });
+      return CompletableFuture.completedFuture(cached);
+    }
+    missCounter.increment();
+    return requestStatusOnce(key, certificate, issuer);
+  }
+
+  public void clear() {
+    statuses.clear();
+  }
+
+  private CompletableFuture<CertificateStatus> requestStatusOnce(
+      final String key, final X509Certificate certificate, final X509Certificate issuer) {
+    final CompletableFuture<CertificateStatus> request = new CompletableFuture<>();
+    final CompletableFuture<CertificateStatus> running = inFlight.putIfAbsent(key, request);
+    if (running != null) {
+      return running;
+    }
+    requestStatus(certificate, issuer)
+        .whenComplete(
+            (certificateStatus, error) -> {
+              if (certificateStatus != null) {
+                statuses.put(key, certificateStatus);
+              }
+              inFlight.remove(key, request);
+              if (error != null) {
+                request.completeExceptionally(error);
+              } else {
+                request.complete(certificateStatus);
+              }
+            });
+    return request;
+  }
+
+  private CompletableFuture<CertificateStatus> requestStatus(
+      final X509Certificate certificate, final X509Certificate issuer) {
+    try {
+      final CertificateID certificateId = certificateId(certificate, issuer);
+      final Extension nonce = createNonce();
+      final byte[] ocspRequest =
+          new OCSPReqBuilder()
+              .addRequest(certificateId)
+              .setRequestExtensions(new Extensions(nonce))
+              .build()
+              .getEncoded();
+      return ocspClient
+          .post(getResponderUri(certificate), ocspRequest)
+          .thenApply(response -> parseResponse(response, certificateId, nonce, issuer));
+    } catch (final OcspCheckException e) {
+      return CompletableFuture.failedFuture(e);
+    } catch (final OCSPException | IOException e) {
+      return CompletableFuture.failedFuture(
+          new OcspCheckException("Unable to build OCSP request", e));
+    }
+  }
+
+  private Extension createNonce() throws IOException {
+    return Extension.create(
+        OCSPObjectIdentifiers.id_pkix_ocsp_nonce,
+        false,
+        new DEROctetString(secureRandomProvider.randomBytes(NONCE_LENGTH)));
+  }
+
+  private CertificateStatus parseResponse(
+      final byte[] response,
+      final CertificateID certificateId,
+      final Extension nonce,
+      final X509Certificate issuer) {
+    try {
+      final OCSPResp ocspResponse = new OCSPResp(response);
+      if (ocspResponse.getStatus() != OCSPResp.SUCCESSFUL) {
+        throw new OcspCheckException("OCSP response status " + ocspResponse.getStatus());
+      }
+      final BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
+      verifyResponder(basicResponse, issuer);
+      final boolean nonceVerified = verifyNonce(basicResponse, nonce);
+      for (final SingleResp singleResponse : basicResponse.getResponses()) {
+        if (singleResponse.getCertID().equals(certificateId)) {
+          return toCertificateStatus(singleResponse, nonceVerified);
+        }
+      }
+      throw new OcspCheckException("OCSP response does not contain the requested certificate");
+    } catch (final IOException | OCSPException | ClassCastException e) {
+      throw new OcspCheckException("Invalid OCSP response", e);
+    }
+  }
+
+  /**
+   * @return true if the response echoes the nonce of the request, false if it carries none
+   */
+  private static boolean verifyNonce(final BasicOCSPResp basicResponse, final Extension nonce) {
+    final Extension responseNonce =
+        basicResponse.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+    if (responseNonce == null) {
+      return false;
+    }
+    if (!Arrays.equals(
+        responseNonce.getExtnValue().getOctets(), nonce.getExtnValue().getOctets())) {
+      throw new OcspCheckException("OCSP response nonce does not match the request");
+    }
+    return true;
+  }
+
+  private CertificateStatus toCertificateStatus(
+      final SingleResp singleResponse, final boolean nonceVerified) {
+    final Instant now = Instant.now();
+    final Instant thisUpdate = singleResponse.getThisUpdate().toInstant();
+    final Optional<Instant> nextUpdate =
+        Optional.ofNullable(singleResponse.getNextUpdate()).map(Date::toInstant);
+    if (thisUpdate.isAfter(now.plus(clockSkew))) {
+      throw new OcspCheckException("OCSP response thisUpdate " + thisUpdate + " is in the future");
+    }
+    if (!nonceVerified && thisUpdate.isBefore(now.minus(maxResponseAge).minus(clockSkew))) {
+      throw new OcspCheckException(
+          "OCSP response thisUpdate " + thisUpdate + " is older than " + maxResponseAge);
+    }
+    if (nextUpdate.filter(update -> update.isBefore(now.minus(clockSkew))).isPresent()) {
+      throw new OcspCheckException("OCSP response expired at " + nextUpdate.get());
+    }
+    final Status status;
+    if (singleResponse.getCertStatus() == null) {
+      status = Status.GOOD;
+    } else if (singleResponse.getCertStatus() instanceof RevokedStatus) {
+      status = Status.REVOKED;
+    } else {
+      status = Status.UNKNOWN;
+    }
+    final Instant staleUntil = nextUpdate.orElseGet(() -> now.plus(defaultValidity));
+    final Instant freshUntil = staleUntil.minus(staleWhileRevalidate);
+    return new CertificateStatus(status, freshUntil.isAfter(now) ? freshUntil : now, staleUntil);
+  }
+
+  private void verifyResponder(final BasicOCSPResp basicResponse, final X509Certificate issuer) {
+    if (isSignedBy(basicResponse, issuer.getPublicKey())) {
+      return;
+    }
+    final JcaX509CertificateConverter converter = new JcaX509CertificateConverter();
+    for (final X509CertificateHolder responderHolder : basicResponse.getCerts()) {
+      try {
+        final X509Certificate responder = converter.getCertificate(responderHolder);
+        if ((isDelegatedResponder(responder, issuer)
+                || tslManager.getSnapshot().isOcspResponder(responder))
+            && isSignedBy(basicResponse, responder.getPublicKey())) {
+          return;
+        }
+      } catch (final CertificateException e) {
+        log.debug("Skipping unreadable certificate in OCSP response", e);
+      }
+    }
+    throw new OcspCheckException("OCSP response is not signed by an authorized responder");
+  }
+
+  private static boolean isDelegatedResponder(
+      final X509Certificate responder, final X509Certificate issuer) {
+    try {
+      final List<String> extendedKeyUsage = responder.getExtendedKeyUsage();
+      if (extendedKeyUsage == null
+          || !extendedKeyUsage.contains(KeyPurposeId.id_kp_OCSPSigning.getId())) {
+        return false;
+      }
+      responder.verify(issuer.getPublicKey());
+      return true;
+    } catch (final GeneralSecurityException e) {
+      return false;
+    }
+  }
+
+  private static boolean isSignedBy(final BasicOCSPResp basicResponse, final PublicKey publicKey) {
+    try {
+      return basicResponse.isSignatureValid(
+          new JcaContentVerifierProviderBuilder().build(publicKey));
+    } catch (final OperatorCreationException | OCSPException e) {
+      return false;
+    }
+  }
+
+  private URI getResponderUri(final X509Certificate certificate) {
+    return responderUri.orElseGet(
+        () ->
+            getOcspUriFromCertificate(certificate)
+                .orElseThrow(
+                    () -> new OcspCheckException("No OCSP responder known for certificate")));
+  }
+
+  private static Optional<URI> getOcspUriFromCertificate(final X509Certificate certificate) {
+    final byte[] extensionValue =
+        certificate.getExtensionValue(Extension.authorityInfoAccess.getId());
+    if (extensionValue == null) {
+      return Optional.empty();
+    }
+    final AuthorityInformationAccess authorityInformationAccess =
+        AuthorityInformationAccess.getInstance(
+            ASN1OctetString.getInstance(extensionValue).getOctets());
+    for (final AccessDescription accessDescription :
+        authorityInformationAccess.getAccessDescriptions()) {
+      final GeneralName location = accessDescription.getAccessLocation();
+      if (accessDescription.getAccessMethod().equals(AccessDescription.id_ad_ocsp)
+          && location.getTagNo() == GeneralName.uniformResourceIdentifier) {
+        return Optional.of(URI.create(ASN1IA5String.getInstance(location.getName()).getString()));
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static CertificateID certificateId(
+      final X509Certificate certificate, final X509Certificate issuer) {
+    try {
+      return new CertificateID(
+          new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+          new JcaX509CertificateHolder(issuer),
+          certificate.getSerialNumber());
+    } catch (final OperatorCreationException | OCSPException | CertificateEncodingException e) {
+      throw new OcspCheckException("Unable to build OCSP certificate id", e);
+    }
+  }
+
+  private static String cacheKey(final X509Certificate certificate, final X509Certificate issuer) {
+    return issuer.getSubjectX500Principal().getName()
+        + ":"
+        + certificate.getSerialNumber().toString(16);
+  }
+
+  private static OcspCheckException asOcspCheckException(final Throwable error) {
+    final Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    if (cause instanceof final OcspCheckException ocspCheckException) {
+      return ocspCheckException;
+    }
+    if (cause instanceof final TimeoutException e) {
+      return new OcspCheckException("No OCSP response in time", e);
+    }
+    return new OcspCheckException(
+        "OCSP request failed", cause instanceof final Exception e ? e : new Exception(cause));
+  }
+}
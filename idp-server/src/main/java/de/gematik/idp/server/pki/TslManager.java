@@ -0,0 +1,240 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_CH_AUT_ECC;
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_CH_AUT_RSA;
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HCI_AUT_ECC;
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HCI_AUT_RSA;
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HP_AUT_ECC;
+import static de.gematik.pki.gemlibpki.commons.certificate.CertificateProfile.CERT_PROFILE_C_HP_AUT_RSA;
+
+import de.gematik.idp.crypto.jfr.TslVerificationEvent;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpTslConfiguration;
+import de.gematik.idp.server.exceptions.IdpServerStartupException;
+import de.gematik.idp.server.services.TslUpdatedEvent;
+import de.gematik.pki.gemlibpki.commons.certificate.TucPki018Verifier;
+import de.gematik.pki.gemlibpki.commons.exception.GemPkiException;
+import de.gematik.pki.gemlibpki.commons.tsl.TslConverter;
+import de.gematik.pki.gemlibpki.commons.tsl.TslInformationProvider;
+import de.gematik.pki.gemlibpki.commons.tsl.TspService;
+import eu.europa.esig.trustedlist.jaxb.tsl.TrustStatusListType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Owns the TSL used for TUC_PKI_018. The TSL is read from {@code idp.tsl.path}, or from the bundled
+ * TSL_default.xml if no path is configured. A configured file is watched (unless {@code
+ * idp.tsl.watch} is false) and re-parsed on a background thread whenever it changes. The parsed
+ * {@link TslSnapshot} is swapped atomically: running verifications finish on the snapshot they
+ * started with, a TSL that can not be parsed is logged and the previous one stays active. Every
+ * swap publishes a {@link TslUpdatedEvent}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TslManager {
+
+  private static final String DEFAULT_TSL_RESOURCE = "TSL_default.xml";
+  private static final Duration WATCH_SETTLE_TIME = Duration.ofMillis(500);
+
+  private final IdpConfiguration idpConfiguration;
+  private final ApplicationEventPublisher eventPublisher;
+  private final AtomicReference<TslSnapshot> currentSnapshot = new AtomicReference<>();
+  private WatchService watchService;
+
+  @PostConstruct
+  public void setUp() {
+    try {
+      currentSnapshot.set(parse(readTsl()));
+    } catch (final IOException | RuntimeException e) {
+      throw new IdpServerStartupException("Error while reading TSL, " + e.getMessage());
+    }
+    log.info(
+        "TSL {} loaded with {} TSP services",
+        currentSnapshot.get().getTslId(),
+        currentSnapshot.get().getTspServiceCount());
+    getTslPath()
+        .filter(path -> getTslConfiguration().map(IdpTslConfiguration::isWatch).orElse(false))
+        .ifPresent(this::startWatching);
+  }
+
+  @PreDestroy
+  public void shutDown() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+  public TslSnapshot getSnapshot() {
+    return currentSnapshot.get();
+  }
+
+  public void performTucPki018Checks(final X509Certificate certificate) throws GemPkiException {
+    final TslVerificationEvent event = new TslVerificationEvent();
+    event.begin();
+    boolean valid = false;
+    try {
+      currentSnapshot.get().getVerifierFor(certificate).performTucPki018Checks(certificate);
+      valid = true;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.describe(certificate.getIssuerX500Principal().getName(), valid).commit();
+      }
+    }
+  }
+
+  /**
+   * Reads and parses the TSL again and activates it.
+   *
+   * @return false if the TSL could not be read, the previous TSL stays active in that case
+   */
+  public boolean reload() {
+    final TslSnapshot snapshot;
+    try {
+      snapshot = parse(readTsl());
+    } catch (final IOException | RuntimeException e) {
+      log.warn("Unable to reload TSL, keeping TSL {}", currentSnapshot.get().getTslId(), e);
+      return false;
+    }
+    currentSnapshot.set(snapshot);
+    log.info(
+        "TSL {} activated with {} TSP services",
+        snapshot.getTslId(),
+        snapshot.getTspServiceCount());
+    eventPublisher.publishEvent(new TslUpdatedEvent(snapshot.getTslId()));
+    return true;
+  }
+
+  private TslSnapshot parse(final byte[] tslBytes) {
+    final TrustStatusListType tsl = TslConverter.bytesToTslUnsigned(tslBytes);
+    final List<TspService> tspServices = new TslInformationProvider(tsl).getTspServices();
+    return new TslSnapshot(tsl.getId(), tspServices, this::buildVerifier);
+  }
+
+  private TucPki018Verifier buildVerifier(final List<TspService> tspServices) {
+    return TucPki018Verifier.builder()
+        .productType(idpConfiguration.getProductTypeDisplayString())
+        .tspServiceList(tspServices)
+        .certificateProfiles(
+            List.of(
+                CERT_PROFILE_C_CH_AUT_RSA,
+                CERT_PROFILE_C_CH_AUT_ECC,
+                CERT_PROFILE_C_HCI_AUT_RSA,
+                CERT_PROFILE_C_HCI_AUT_ECC,
+                CERT_PROFILE_C_HP_AUT_RSA,
+                CERT_PROFILE_C_HP_AUT_ECC))
+        .withOcspCheck(false)
+        .build();
+  }
+
+  private byte[] readTsl() throws IOException {
+    final Optional<Path> tslPath = getTslPath();
+    if (tslPath.isPresent()) {
+      return Files.readAllBytes(tslPath.get());
+    }
+    try (final InputStream tslStream =
+        Objects.requireNonNull(
+            TslManager.class.getClassLoader().getResourceAsStream(DEFAULT_TSL_RESOURCE),
+            "Resource unavailable.")) {
+      return tslStream.readAllBytes();
+    }
+  }
+
+  private Optional<IdpTslConfiguration> getTslConfiguration() {
+    return Optional.ofNullable(idpConfiguration.getTsl());
+  }
+
+  private Optional<Path> getTslPath() {
+    return getTslConfiguration()
+        .map(IdpTslConfiguration::getPath)
+        .filter(StringUtils::isNotBlank)
+        .map(Path::of)
+        .map(Path::toAbsolutePath);
+  }
+
+  private void startWatching(final Path tslPath) {
+    try {
+      watchService = tslPath.getFileSystem().newWatchService();
+      tslPath
+          .getParent()
+          .register(
+              watchService,
+              StandardWatchEventKinds.ENTRY_CREATE,
+              StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (final IOException e) {
+      throw new IdpServerStartupException("Unable to watch TSL " + tslPath + ", " + e.getMessage());
+    }
+    final Thread watcher = new Thread(() -> watch(tslPath), "idp-tsl-watcher");
+    watcher.setDaemon(true);
+    watcher.start();
+    log.info("Watching {} for TSL updates", tslPath);
+  }
+
+  private void watch(final Path tslPath) {
+    try {
+      while (true) {
+        final WatchKey watchKey = watchService.take();
+        // editors and copy tools write in several steps, let the file settle before parsing
+        Thread.sleep(WATCH_SETTLE_TIME.toMillis());
+        final boolean tslChanged = concernsTsl(watchKey.pollEvents(), tslPath);
+        watchKey.reset();
+        if (tslChanged) {
+          reload();
+        }
+      }
+    } catch (final ClosedWatchServiceException e) {
+      log.debug("TSL watcher stopped");
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean concernsTsl(final List<WatchEvent<?>> events, final Path tslPath) {
+    return events.stream()
+        .map(WatchEvent::context)
+        .filter(Path.class::isInstance)
+        .map(Path.class::cast)
+        .anyMatch(changedFile -> changedFile.equals(tslPath.getFileName()));
+  }
+}
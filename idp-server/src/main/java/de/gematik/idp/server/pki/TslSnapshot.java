@@ -0,0 +1,196 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import de.gematik.pki.gemlibpki.commons.certificate.TucPki018Verifier;
+import de.gematik.pki.gemlibpki.commons.tsl.TspService;
+import eu.europa.esig.trustedlist.jaxb.tsl.DigitalIdentityType;
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import javax.security.auth.x500.X500Principal;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Immutable view of one loaded TSL. Besides the verifier over all TSP services it holds verifiers
+ * restricted to the services of one issuing CA, indexed by subject key identifier and subject DN of
+ * the CA certificates. An end-entity certificate is checked against the services of its issuer
+ * only, certificates of unknown issuers are passed to the full verifier (which reports the error).
+ * The certificates of the OCSP services are kept to authorize OCSP responses.
+ */
+@Slf4j
+public final class TslSnapshot {
+
+  private static final String OCSP_SERVICE_TYPE_SUFFIX = "/Certstatus/OCSP";
+
+  @Getter private final String tslId;
+  @Getter private final int tspServiceCount;
+  private final TucPki018Verifier fullVerifier;
+  private final Map<String, TucPki018Verifier> verifiersByKeyIdentifier;
+  private final Map<X500Principal, TucPki018Verifier> verifiersBySubject;
+  private final Map<String, X509Certificate> caCertificatesByKeyIdentifier = new HashMap<>();
+  private final Map<X500Principal, X509Certificate> caCertificatesBySubject = new HashMap<>();
+  private final Set<X509Certificate> ocspResponderCertificates = new HashSet<>();
+
+  TslSnapshot(
+      final String tslId,
+      final List<TspService> tspServices,
+      final Function<List<TspService>, TucPki018Verifier> verifierFactory) {
+    this.tslId = tslId;
+    this.tspServiceCount = tspServices.size();
+    this.fullVerifier = verifierFactory.apply(tspServices);
+
+    final Map<String, Set<TspService>> servicesByKeyIdentifier = new HashMap<>();
+    final Map<X500Principal, Set<TspService>> servicesBySubject = new HashMap<>();
+    for (final TspService tspService : tspServices) {
+      if (isOcspService(tspService)) {
+        ocspResponderCertificates.addAll(getServiceCertificates(tspService));
+        continue;
+      }
+      for (final X509Certificate caCertificate : getServiceCertificates(tspService)) {
+        getSubjectKeyIdentifier(caCertificate)
+            .ifPresent(
+                keyIdentifier -> {
+                  servicesByKeyIdentifier
+                      .computeIfAbsent(keyIdentifier, key -> new LinkedHashSet<>())
+                      .add(tspService);
+                  caCertificatesByKeyIdentifier.putIfAbsent(keyIdentifier, caCertificate);
+                });
+        servicesBySubject
+            .computeIfAbsent(caCertificate.getSubjectX500Principal(), key -> new LinkedHashSet<>())
+            .add(tspService);
+        caCertificatesBySubject.putIfAbsent(caCertificate.getSubjectX500Principal(), caCertificate);
+      }
+    }
+    this.verifiersByKeyIdentifier = buildVerifiers(servicesByKeyIdentifier, verifierFactory);
+    this.verifiersBySubject = buildVerifiers(servicesBySubject, verifierFactory);
+  }
+
+  /** Verifier to run TUC_PKI_018 for the given end-entity certificate with. */
+  public TucPki018Verifier getVerifierFor(final X509Certificate certificate) {
+    return findIndexedVerifier(certificate).orElse(fullVerifier);
+  }
+
+  public boolean isIssuerIndexed(final X509Certificate certificate) {
+    return findIndexedVerifier(certificate).isPresent();
+  }
+
+  /** CA certificate of the TSL that issued the given end-entity certificate. */
+  public Optional<X509Certificate> findIssuerCertificate(final X509Certificate certificate) {
+    return getAuthorityKeyIdentifier(certificate)
+        .map(caCertificatesByKeyIdentifier::get)
+        .or(
+            () ->
+                Optional.ofNullable(
+                    caCertificatesBySubject.get(certificate.getIssuerX500Principal())));
+  }
+
+  /** Whether the certificate belongs to an OCSP service listed in the TSL. */
+  public boolean isOcspResponder(final X509Certificate certificate) {
+    return ocspResponderCertificates.contains(certificate);
+  }
+
+  private Optional<TucPki018Verifier> findIndexedVerifier(final X509Certificate certificate) {
+    return getAuthorityKeyIdentifier(certificate)
+        .map(verifiersByKeyIdentifier::get)
+        .or(
+            () ->
+                Optional.ofNullable(verifiersBySubject.get(certificate.getIssuerX500Principal())));
+  }
+
+  private static <K> Map<K, TucPki018Verifier> buildVerifiers(
+      final Map<K, Set<TspService>> servicesByKey,
+      final Function<List<TspService>, TucPki018Verifier> verifierFactory) {
+    final Map<K, TucPki018Verifier> verifiers = new HashMap<>();
+    servicesByKey.forEach(
+        (key, services) -> verifiers.put(key, verifierFactory.apply(new ArrayList<>(services))));
+    return Map.copyOf(verifiers);
+  }
+
+  private static boolean isOcspService(final TspService tspService) {
+    return StringUtils.endsWith(
+        tspService.getTspServiceType().getServiceInformation().getServiceTypeIdentifier(),
+        OCSP_SERVICE_TYPE_SUFFIX);
+  }
+
+  private static List<X509Certificate> getServiceCertificates(final TspService tspService) {
+    final List<X509Certificate> caCertificates = new ArrayList<>();
+    for (final DigitalIdentityType digitalIdentity :
+        tspService
+            .getTspServiceType()
+            .getServiceInformation()
+            .getServiceDigitalIdentity()
+            .getDigitalId()) {
+      if (digitalIdentity.getX509Certificate() == null) {
+        continue;
+      }
+      try {
+        caCertificates.add(
+            (X509Certificate)
+                CertificateFactory.getInstance("X.509")
+                    .generateCertificate(
+                        new ByteArrayInputStream(digitalIdentity.getX509Certificate())));
+      } catch (final CertificateException e) {
+        log.warn("Skipping unreadable certificate in TSL service", e);
+      }
+    }
+    return caCertificates;
+  }
+
+  private static Optional<String> getSubjectKeyIdentifier(final X509Certificate certificate) {
+    return Optional.ofNullable(
+            certificate.getExtensionValue(Extension.subjectKeyIdentifier.getId()))
+        .map(
+            extensionValue ->
+                SubjectKeyIdentifier.getInstance(
+                        ASN1OctetString.getInstance(extensionValue).getOctets())
+                    .getKeyIdentifier())
+        .map(Hex::toHexString);
+  }
+
+  private static Optional<String> getAuthorityKeyIdentifier(final X509Certificate certificate) {
+    return Optional.ofNullable(
+            certificate.getExtensionValue(Extension.authorityKeyIdentifier.getId()))
+        .map(
+            extensionValue ->
+                AuthorityKeyIdentifier.getInstance(
+                        ASN1OctetString.getInstance(extensionValue).getOctets())
+                    .getKeyIdentifier())
+        .map(Hex::toHexString);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import de.gematik.idp.server.configuration.IdpCertificateCacheConfiguration;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.pki.OcspStatusService;
+import de.gematik.idp.server.pki.TslManager;
+import de.gematik.pki.gemlibpki.commons.exception.GemPkiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs TUC_PKI_018 for client certificates and remembers the outcome per certificate fingerprint.
+ * Successful checks are kept for {@code idp.certificateVerificationCache.ttl} (at most until the
+ * certificate expires), failed checks for {@code negativeTtl}. The number of entries is bounded,
+ * least recently used entries are dropped first. All entries are discarded when the TSL is
+ * updated. The revocation status is not part of the cached outcome: it is checked on every call by
+ * the {@link OcspStatusService}, which caches OCSP responses by their own validity.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateVerificationCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+  public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+  public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofMinutes(1);
+  private static final String CACHE_METER = "idp.certificate.verification.cache";
+
+  private final TslManager tslManager;
+  private final OcspStatusService ocspStatusService;
+  private final IdpConfiguration idpConfiguration;
+  private final MeterRegistry meterRegistry;
+  private Map<String, VerificationOutcome> outcomes;
+  private int maxEntries;
+  private Duration ttl;
+  private Duration negativeTtl;
+  private Counter hitCounter;
+  private Counter missCounter;
+  private Counter sizeEvictionCounter;
+  private Counter expiryEvictionCounter;
+
+  @PostConstruct
+  public void setUp() {
+    final Optional<IdpCertificateCacheConfiguration> cacheConfiguration =
+        Optional.ofNullable(idpConfiguration.getCertificateVerificationCache());
+    maxEntries =
+        cacheConfiguration
+            .map(IdpCertificateCacheConfiguration::getMaxEntries)
+            .orElse(DEFAULT_MAX_ENTRIES);
+    ttl = cacheConfiguration.map(IdpCertificateCacheConfiguration::getTtl).orElse(DEFAULT_TTL);
+    negativeTtl =
+        cacheConfiguration
+            .map(IdpCertificateCacheConfiguration::getNegativeTtl)
+            .orElse(DEFAULT_NEGATIVE_TTL);
+
+    hitCounter = meterRegistry.counter(CACHE_METER, "result", "hit");
+    missCounter = meterRegistry.counter(CACHE_METER, "result", "miss");
+    sizeEvictionCounter = meterRegistry.counter(CACHE_METER + ".evictions", "cause", "size");
+    expiryEvictionCounter = meterRegistry.counter(CACHE_METER + ".evictions", "cause", "expired");
+    outcomes =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(
+                  final Map.Entry<String, VerificationOutcome> eldest) {
+                final boolean evict = size() > maxEntries;
+                if (evict) {
+                  sizeEvictionCounter.increment();
+                }
+                return evict;
+              }
+            });
+    meterRegistry.gaugeMapSize(CACHE_METER + ".size", Tags.empty(), outcomes);
+  }
+
+  /**
+   * @throws GemPkiException of the first failed check, also when the failure was taken from the
+   *     cache. Other (RuntimeException) failures, e.g. a TSL that is momentarily unavailable, are
+   *     thrown as well but not cached.
+   * @throws de.gematik.idp.server.exceptions.OcspCheckException if OCSP is enabled and the
+   *     certificate is not confirmed to be good
+   */
+  public void verifyCertificate(final X509Certificate certificate) throws GemPkiException {
+    lookUpOrPerformTucPki018Checks(certificate).replay();
+    ocspStatusService.checkRevocationStatus(certificate);
+  }
+
+  private VerificationOutcome lookUpOrPerformTucPki018Checks(final X509Certificate certificate) {
+    final String fingerprint = fingerprint(certificate);
+    final VerificationOutcome cached = outcomes.get(fingerprint);
+    if (cached != null && !cached.isExpired()) {
+      hitCounter.increment();
+      return cached;
+    }
+    if (cached != null) {
+      outcomes.remove(fingerprint, cached);
+      expiryEvictionCounter.increment();
+    }
+    missCounter.increment();
+
+    final VerificationOutcome outcome = performTucPki018Checks(certificate);
+    if (maxEntries > 0) {
+      outcomes.put(fingerprint, outcome);
+    }
+    return outcome;
+  }
+
+  @EventListener(TslUpdatedEvent.class)
+  public void invalidateAll() {
+    log.info("TSL updated, discarding {} cached certificate verifications", outcomes.size());
+    outcomes.clear();
+  }
+
+  public int size() {
+    return outcomes.size();
+  }
+
+  private VerificationOutcome performTucPki018Checks(final X509Certificate certificate) {
+    try {
+      tslManager.performTucPki018Checks(certificate);
+      final Instant validUntil = Instant.now().plus(ttl);
+      final Instant certificateNotAfter = certificate.getNotAfter().toInstant();
+      return new VerificationOutcome(
+          validUntil.isBefore(certificateNotAfter) ? validUntil : certificateNotAfter, null);
+    } catch (final GemPkiException e) {
+      return new VerificationOutcome(Instant.now().plus(negativeTtl), e);
+    }
+  }
+
+  private static String fingerprint(final X509Certificate certificate) {
+    try {
+      return DigestUtils.sha256Hex(certificate.getEncoded());
+    } catch (final CertificateEncodingException e) {
+      throw new IllegalArgumentException("Unable to encode certificate", e);
+    }
+  }
+
+  private record VerificationOutcome(Instant expiresAt, GemPkiException failure) {
+
+    boolean isExpired() {
+      return !Instant.now().isBefore(expiresAt);
+    }
+
+    void replay() throws GemPkiException {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+}
@@ -27,7 +27,7 @@ import static de.gematik.idp.field.ClaimName.KEY_IDENTIFIER;
 import static de.gematik.idp.field.ClaimName.SE_SUBJECT_PUBLIC_KEY_INFO;
 
 import de.gematik.idp.authentication.AuthenticationChallengeVerifier;
-import de.gematik.idp.crypto.CryptoLoader;
+import de.gematik.idp.authentication.ChallengeVerificationContext;
 import de.gematik.idp.crypto.X509ClaimExtraction;
 import de.gematik.idp.data.IdpErrorResponse;
 import de.gematik.idp.error.IdpErrorType;
@@ -35,14 +35,15 @@ import de.gematik.idp.field.ClaimName;
 import de.gematik.idp.server.data.DeviceInformation;
 import de.gematik.idp.server.devicevalidation.DeviceValidationState;
 import de.gematik.idp.server.exceptions.IdpServerException;
+import de.gematik.idp.server.pairing.PairingCache;
 import de.gematik.idp.server.pairing.PairingData;
-import de.gematik.idp.server.pairing.PairingRepository;
+import de.gematik.idp.server.pairing.PairingPublicKeyCache;
+import de.gematik.idp.server.services.FlowStageMetrics.Stage;
 import de.gematik.idp.token.JsonWebToken;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -59,12 +60,23 @@ import tools.jackson.databind.json.JsonMapper;
 @Service
 public class ChallengeTokenValidationService {
 
-  private final PairingRepository pairingRepository;
+  private final PairingCache pairingCache;
+  private final PairingPublicKeyCache pairingPublicKeyCache;
   private final AuthenticationChallengeVerifier authenticationChallengeVerifier;
   private final DeviceValidationService deviceValidationService;
   private final DataVersionService dataVersionService;
+  private final FlowStageMetrics flowStageMetrics;
 
   public void validateChallengeToken(final JsonWebToken signedChallenge) {
+    validateChallengeToken(new ChallengeVerificationContext(signedChallenge));
+  }
+
+  public void validateChallengeToken(final ChallengeVerificationContext context) {
+    flowStageMetrics.run(Stage.VALIDATE_CHALLENGE_TOKEN, () -> verifyChallengeToken(context));
+  }
+
+  private void verifyChallengeToken(final ChallengeVerificationContext context) {
+    final JsonWebToken signedChallenge = context.getSignedChallenge();
     final Set<String> amr =
         signedChallenge
             .getBodyClaim(ClaimName.AUTHENTICATION_METHODS_REFERENCE)
@@ -88,7 +100,7 @@ public class ChallengeTokenValidationService {
         throw new IdpServerException(2000, IdpErrorType.ACCESS_DENIED, e.getMessage(), e);
       }
     } else {
-      authenticationChallengeVerifier.verifyResponseAndThrowExceptionIfFail(signedChallenge);
+      authenticationChallengeVerifier.verifyChallengeAndThrowExceptionIfFail(context);
     }
   }
 
@@ -114,7 +126,7 @@ public class ChallengeTokenValidationService {
                         HttpStatus.BAD_REQUEST));
     final String idNumber = getIdNumberFromAuthDataCertClaims(authDataCert);
     final PairingData pairingData =
-        pairingRepository
+        pairingCache
             .findByIdNumberAndKeyIdentifier(idNumber, keyIdentifier)
             .orElseThrow(
                 () ->
@@ -130,26 +142,31 @@ public class ChallengeTokenValidationService {
     dataVersionService.checkDataVersion(deviceInformation);
     dataVersionService.checkDataVersion(deviceInformation.getDeviceType());
 
-    if (deviceValidationService
-        .assess(deviceInformation.getDeviceType())
-        .equals(DeviceValidationState.BLOCK)) {
+    final DeviceValidationState deviceValidationState =
+        deviceValidationService.assess(deviceInformation.getDeviceType());
+    if (deviceValidationState == DeviceValidationState.BLOCK) {
       throw new IdpServerException(
           "Device validation matched with not allowed devices!",
           IdpErrorType.INVALID_REQUEST,
           HttpStatus.BAD_REQUEST);
-    } else if (deviceValidationService
-            .assess(deviceInformation.getDeviceType())
-            .equals(DeviceValidationState.UNKNOWN)
+    } else if (deviceValidationState == DeviceValidationState.UNKNOWN
         && pairingData.getTimestampPairing().isBefore(ZonedDateTime.now().minusMonths(6))) {
       throw new IdpServerException(
           "Device validation failed. Pairing expired!",
           IdpErrorType.INVALID_REQUEST,
           HttpStatus.BAD_REQUEST);
     }
+    if (pairingData.hasVerifiedKeyMaterial()) {
+      // verified at registration, see PairingService
+      validateCertSn(authDataCert, pairingData.getCertificateSerialNumber());
+      signedAuthData.verify(
+          pairingPublicKeyCache.getEcPublicKey(pairingData.getSeSubjectPublicKeyInfo()));
+      return;
+    }
     final JsonWebToken signedPairingDataFromDto =
         new JsonWebToken(pairingData.getSignedPairingData());
     signedPairingDataFromDto.verify(
-        retrieveKeyFromPairingDto(pairingData, AUTH_CERT_SUBJECT_PUBLIC_KEY_INFO));
+        retrieveKeyFromPairingDto(signedPairingDataFromDto, AUTH_CERT_SUBJECT_PUBLIC_KEY_INFO));
     validateCertSn(
         authDataCert,
         signedPairingDataFromDto
@@ -160,7 +177,8 @@ public class ChallengeTokenValidationService {
                         "CertID not found in pairing data",
                         IdpErrorType.INVALID_REQUEST,
                         HttpStatus.BAD_REQUEST)));
-    signedAuthData.verify(retrieveKeyFromPairingDto(pairingData, SE_SUBJECT_PUBLIC_KEY_INFO));
+    signedAuthData.verify(
+        retrieveKeyFromPairingDto(signedPairingDataFromDto, SE_SUBJECT_PUBLIC_KEY_INFO));
   }
 
   private void validateCertSn(final X509Certificate authDataCert, final String pairingCertSN) {
@@ -171,11 +189,10 @@ public class ChallengeTokenValidationService {
   }
 
   private PublicKey retrieveKeyFromPairingDto(
-      final PairingData pairingData, final ClaimName claimName) {
-    return new JsonWebToken(pairingData.getSignedPairingData())
+      final JsonWebToken signedPairingData, final ClaimName claimName) {
+    return signedPairingData
         .getStringBodyClaim(claimName)
-        .map(Base64.getUrlDecoder()::decode)
-        .map(CryptoLoader::getEcPublicKeyFromBytes)
+        .map(pairingPublicKeyCache::getEcPublicKey)
         .orElseThrow(
             () ->
                 new IdpServerException(
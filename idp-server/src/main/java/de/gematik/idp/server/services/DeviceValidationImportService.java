@@ -0,0 +1,232 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.data.DeviceValidationDto;
+import de.gematik.idp.server.data.DeviceValidationImportResult;
+import de.gematik.idp.server.devicevalidation.DeviceKey;
+import de.gematik.idp.server.devicevalidation.DeviceRule;
+import de.gematik.idp.server.devicevalidation.DeviceValidationData;
+import de.gematik.idp.server.devicevalidation.DeviceValidationState;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams device rules into the device_validation table. Existing rules (same manufacturer,
+ * product, model, os and os_version) get the new state, others are inserted. Rows are written with
+ * JDBC batches of {@value #BATCH_SIZE}; an invalid row rolls back the whole import. The caller
+ * has to refresh the {@link DeviceValidationService} afterwards.
+ *
+ * <p>CSV rows have the columns {@code manufacturer;product;model;os;os_version;state}, separated
+ * by semicolons since version ranges contain commas. Empty lines, lines starting with # and a
+ * header line are skipped. JSON is an array of {@link DeviceValidationDto}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceValidationImportService {
+
+  public static final int BATCH_SIZE = 1000;
+  private static final String CSV_SEPARATOR = ";";
+  private static final String CSV_HEADER_START = "manufacturer";
+  private static final String SELECT_KEYS =
+      "SELECT manufacturer, product, model, os, os_version FROM IDP.device_validation";
+  private static final String INSERT =
+      "INSERT INTO IDP.device_validation (manufacturer, product, model, os, os_version, state)"
+          + " VALUES (?, ?, ?, ?, ?, ?)";
+  private static final String UPDATE =
+      "UPDATE IDP.device_validation SET state = ? WHERE manufacturer = ? AND product = ?"
+          + " AND model = ? AND os = ? AND os_version = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Transactional
+  public DeviceValidationImportResult importCsv(final InputStream csv) {
+    final BatchWriter batchWriter = new BatchWriter();
+    try (final BufferedReader reader =
+        new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        final String trimmed = line.strip();
+        if (trimmed.isEmpty()
+            || trimmed.startsWith("#")
+            || (lineNumber == 1 && trimmed.toLowerCase().startsWith(CSV_HEADER_START))) {
+          continue;
+        }
+        batchWriter.add(parseCsvLine(trimmed, lineNumber), "line " + lineNumber);
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return batchWriter.finish();
+  }
+
+  @Transactional
+  public DeviceValidationImportResult importJson(final InputStream json) {
+    final BatchWriter batchWriter = new BatchWriter();
+    try (final MappingIterator<DeviceValidationDto> iterator =
+        JsonMapper.builder().build().readerFor(DeviceValidationDto.class).readValues(json)) {
+      int index = 0;
+      while (iterator.hasNext()) {
+        final DeviceValidationDto dto = iterator.next();
+        batchWriter.add(
+            DeviceValidationData.builder()
+                .manufacturer(dto.getManufacturer())
+                .product(dto.getProduct())
+                .model(dto.getModel())
+                .os(dto.getOs())
+                .osVersion(dto.getOsVersion())
+                .state(dto.getState())
+                .build(),
+            "entry " + index++);
+      }
+    } catch (final JacksonException e) {
+      throw invalidImport("Invalid JSON: " + e.getOriginalMessage());
+    }
+    return batchWriter.finish();
+  }
+
+  private static DeviceValidationData parseCsvLine(final String line, final int lineNumber) {
+    final String[] columns = line.split(CSV_SEPARATOR, -1);
+    if (columns.length != 6) {
+      throw invalidImport("line " + lineNumber + ": expected 6 columns, got " + columns.length);
+    }
+    final DeviceValidationState state;
+    try {
+      state = DeviceValidationState.valueOf(columns[5].strip().toUpperCase());
+    } catch (final IllegalArgumentException e) {
+      throw invalidImport("line " + lineNumber + ": unknown state " + columns[5].strip());
+    }
+    return DeviceValidationData.builder()
+        .manufacturer(columns[0])
+        .product(columns[1])
+        .model(columns[2])
+        .os(columns[3])
+        .osVersion(columns[4])
+        .state(state)
+        .build();
+  }
+
+  private static IdpServerException invalidImport(final String message) {
+    return new IdpServerException(
+        "Device validation import failed, " + message,
+        IdpErrorType.INVALID_REQUEST,
+        HttpStatus.BAD_REQUEST);
+  }
+
+  private class BatchWriter {
+
+    private final Set<DeviceKey> existingKeys = new HashSet<>();
+    private final List<Object[]> inserts = new ArrayList<>(BATCH_SIZE);
+    private final List<Object[]> updates = new ArrayList<>(BATCH_SIZE);
+    private int inserted;
+    private int updated;
+
+    BatchWriter() {
+      jdbcTemplate.query(
+          SELECT_KEYS,
+          resultSet -> {
+            existingKeys.add(
+                new DeviceKey(
+                    resultSet.getString(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    resultSet.getString(4),
+                    resultSet.getString(5)));
+          });
+    }
+
+    void add(final DeviceValidationData deviceValidation, final String position) {
+      final DeviceRule rule;
+      try {
+        rule = DeviceRule.compile(deviceValidation);
+      } catch (final IllegalArgumentException e) {
+        throw invalidImport(position + ": " + e.getMessage());
+      }
+      final DeviceKey key = rule.toKey();
+      if (existingKeys.add(key)) {
+        inserts.add(
+            new Object[] {
+              key.manufacturer(),
+              key.product(),
+              key.model(),
+              key.os(),
+              key.osVersion(),
+              rule.state().name()
+            });
+        inserted++;
+      } else {
+        updates.add(
+            new Object[] {
+              rule.state().name(),
+              key.manufacturer(),
+              key.product(),
+              key.model(),
+              key.os(),
+              key.osVersion()
+            });
+        updated++;
+      }
+      if (inserts.size() >= BATCH_SIZE || updates.size() >= BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    DeviceValidationImportResult finish() {
+      flush();
+      log.info("Imported device rules: {} inserted, {} updated", inserted, updated);
+      return DeviceValidationImportResult.builder().inserted(inserted).updated(updated).build();
+    }
+
+    private void flush() {
+      // inserts first, a later row of the same import may update a row inserted in this batch
+      if (!inserts.isEmpty()) {
+        jdbcTemplate.batchUpdate(INSERT, inserts);
+        inserts.clear();
+      }
+      if (!updates.isEmpty()) {
+        jdbcTemplate.batchUpdate(UPDATE, updates);
+        updates.clear();
+      }
+    }
+  }
+}
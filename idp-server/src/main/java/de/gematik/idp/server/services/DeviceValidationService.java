@@ -21,23 +21,41 @@
 package de.gematik.idp.server.services;
 
 import de.gematik.idp.server.data.DeviceType;
+import de.gematik.idp.server.devicevalidation.DeviceKey;
+import de.gematik.idp.server.devicevalidation.DevicePolicyIndex;
 import de.gematik.idp.server.devicevalidation.DeviceValidationData;
 import de.gematik.idp.server.devicevalidation.DeviceValidationRepository;
 import de.gematik.idp.server.devicevalidation.DeviceValidationState;
 import jakarta.annotation.PostConstruct;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Assesses devices against the allow/block list. The list is held in memory as a {@link
+ * DevicePolicyIndex} and reloaded every {@code idp.deviceValidationRefreshInterval} and after each
+ * change made through this service, so {@link #assess(DeviceType)} never queries the database.
+ * The example devices are only inserted if they are missing, so restarts against a persistent
+ * database do not collide with the unique index. Reloads are serialized by a lock rather than a
+ * monitor, a virtual thread waiting on the database inside a synchronized block would pin its
+ * carrier thread.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DeviceValidationService {
 
   private final DeviceValidationRepository deviceValidationRepository;
+  private final AtomicReference<DevicePolicyIndex> devicePolicyIndex =
+      new AtomicReference<>(DevicePolicyIndex.EMPTY);
+  private final ReentrantLock refreshLock = new ReentrantLock();
 
   @PostConstruct
   public void intDbWithDevices() {
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Samsung")
             .product("Galaxy-8")
@@ -46,7 +64,7 @@ public class DeviceValidationService {
             .osVersion("4.0.3")
             .state(DeviceValidationState.ALLOW)
             .build());
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Samsung")
             .product("Galaxy-S3")
@@ -55,7 +73,7 @@ public class DeviceValidationService {
             .osVersion("2.2")
             .state(DeviceValidationState.ALLOW)
             .build());
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Apple")
             .product("iPhone")
@@ -64,7 +82,7 @@ public class DeviceValidationService {
             .osVersion("14.4.2")
             .state(DeviceValidationState.ALLOW)
             .build());
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Google")
             .product("Pixel 2")
@@ -73,7 +91,7 @@ public class DeviceValidationService {
             .osVersion("11.0.0")
             .state(DeviceValidationState.BLOCK)
             .build());
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Google")
             .product("Pixel 2")
@@ -82,7 +100,7 @@ public class DeviceValidationService {
             .osVersion("10.0.0")
             .state(DeviceValidationState.BLOCK)
             .build());
-    deviceValidationRepository.save(
+    saveIfAbsent(
         DeviceValidationData.builder()
             .manufacturer("Apple")
             .product("iPhone")
@@ -91,33 +109,56 @@ public class DeviceValidationService {
             .osVersion("6.1.6")
             .state(DeviceValidationState.BLOCK)
             .build());
+    refresh();
   }
 
-  public DeviceValidationState assess(final DeviceType deviceType) {
-    final Optional<DeviceValidationData> deviceValidation = getDeviceValidation(deviceType);
-    return deviceValidation
-        .map(DeviceValidationData::getState)
-        .orElse(DeviceValidationState.UNKNOWN);
+  @Scheduled(
+      initialDelayString = "${idp.deviceValidationRefreshInterval:PT5M}",
+      fixedDelayString = "${idp.deviceValidationRefreshInterval:PT5M}")
+  public void refresh() {
+    refreshLock.lock();
+    try {
+      final DevicePolicyIndex index = DevicePolicyIndex.of(deviceValidationRepository.findAll());
+      devicePolicyIndex.set(index);
+      log.debug("Loaded {} device validation entries", index.size());
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  public DeviceValidationData save(final DeviceValidationData deviceValidationData) {
+    final DeviceValidationData saved = deviceValidationRepository.save(deviceValidationData);
+    refresh();
+    return saved;
   }
 
-  private Optional<DeviceValidationData> getDeviceValidation(final DeviceType deviceType) {
-    final DeviceValidationData deviceData = convertDeviceTypeToDeviceValidationData(deviceType);
-    return deviceValidationRepository.findByManufacturerAndProductAndModelAndOsAndOsVersion(
-        deviceData.getManufacturer(),
-        deviceData.getProduct(),
-        deviceData.getModel(),
-        deviceData.getOs(),
-        deviceData.getOsVersion());
+  public void delete(final DeviceValidationData deviceValidationData) {
+    deviceValidationRepository.delete(deviceValidationData);
+    refresh();
   }
 
-  private DeviceValidationData convertDeviceTypeToDeviceValidationData(
-      final DeviceType deviceType) {
-    return DeviceValidationData.builder()
-        .manufacturer(deviceType.getManufacturer())
-        .product(deviceType.getProduct())
-        .model(deviceType.getModel())
-        .os(deviceType.getOs())
-        .osVersion(deviceType.getOsVersion())
-        .build();
+  private void saveIfAbsent(final DeviceValidationData deviceValidationData) {
+    if (deviceValidationRepository
+        .findByManufacturerAndProductAndModelAndOsAndOsVersion(
+            deviceValidationData.getManufacturer(),
+            deviceValidationData.getProduct(),
+            deviceValidationData.getModel(),
+            deviceValidationData.getOs(),
+            deviceValidationData.getOsVersion())
+        .isEmpty()) {
+      deviceValidationRepository.save(deviceValidationData);
+    }
+  }
+
+  public DeviceValidationState assess(final DeviceType deviceType) {
+    return devicePolicyIndex
+        .get()
+        .getState(
+            new DeviceKey(
+                deviceType.getManufacturer(),
+                deviceType.getProduct(),
+                deviceType.getModel(),
+                deviceType.getOs(),
+                deviceType.getOsVersion()));
   }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.data.IdpDiscoveryDocument;
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.ServerUrlService;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.controllers.IdpKey;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Holds the signed discovery document per resolved server url. Documents are re-signed in the
+ * background every {@code idp.discoveryDocumentRefreshInterval}, so a request is served from
+ * memory. An entry that is older than twice the interval (e.g. because the scheduler is stalled) is
+ * re-signed synchronously. Without a configured {@code idp.serverUrl} the url is taken from the
+ * Host header, so the cache holds at most {@link #MAX_DOCUMENTS} urls (least recently used are
+ * dropped) and the background job only re-signs documents requested since its previous run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DiscoveryDocumentService {
+
+  public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(20);
+  public static final int MAX_DOCUMENTS = 32;
+
+  private final IdpKey discSig;
+  private final ServerUrlService serverUrlService;
+  private final DiscoveryDocumentBuilder discoveryDocumentBuilder;
+  private final ScopeService scopeService;
+  private final String fedAuthEndpoint;
+  private final IdpConfiguration idpConfiguration;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, CachedDocument> signedDocuments =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedDocument> eldest) {
+              return size() > MAX_DOCUMENTS;
+            }
+          });
+  private IdpJwtProcessor jwtProcessor;
+  private Counter hitCounter;
+  private Counter missCounter;
+  private Timer signTimer;
+
+  @PostConstruct
+  public void setUp() {
+    jwtProcessor = new IdpJwtProcessor(discSig.getIdentity(), discSig.getKeyId());
+    hitCounter = meterRegistry.counter("idp.discovery.document.cache", "result", "hit");
+    missCounter = meterRegistry.counter("idp.discovery.document.cache", "result", "miss");
+    signTimer =
+        Timer.builder("idp.discovery.document.sign")
+            .description("Time to build and sign the discovery document")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+  }
+
+  public SignedDiscoveryDocument getSignedDiscoveryDocument(final String serverUrl) {
+    final CachedDocument cached = signedDocuments.get(serverUrl);
+    if (cached != null && !cached.document().isOlderThan(getRefreshInterval().multipliedBy(2))) {
+      hitCounter.increment();
+      return cached.markRequested();
+    }
+    missCounter.increment();
+    return signedDocuments
+        .compute(
+            serverUrl,
+            (url, current) ->
+                current != null && current != cached
+                    ? current
+                    : new CachedDocument(createSignedDiscoveryDocument(url), new AtomicBoolean()))
+        .markRequested();
+  }
+
+  @Scheduled(
+      initialDelayString = "${idp.discoveryDocumentRefreshInterval:PT20S}",
+      fixedDelayString = "${idp.discoveryDocumentRefreshInterval:PT20S}")
+  public void refreshSignedDiscoveryDocuments() {
+    final Map<String, CachedDocument> snapshot;
+    synchronized (signedDocuments) {
+      snapshot = Map.copyOf(signedDocuments);
+    }
+    snapshot.forEach(
+        (serverUrl, cached) -> {
+          if (!cached.requested().get()) {
+            signedDocuments.remove(serverUrl, cached);
+            return;
+          }
+          try {
+            signedDocuments.replace(
+                serverUrl,
+                cached,
+                new CachedDocument(createSignedDiscoveryDocument(serverUrl), new AtomicBoolean()));
+          } catch (final RuntimeException e) {
+            log.warn("Unable to re-sign discovery document for {}", serverUrl, e);
+          }
+        });
+  }
+
+  public int size() {
+    return signedDocuments.size();
+  }
+
+  private Duration getRefreshInterval() {
+    return Optional.ofNullable(idpConfiguration.getDiscoveryDocumentRefreshInterval())
+        .orElse(DEFAULT_REFRESH_INTERVAL);
+  }
+
+  private SignedDiscoveryDocument createSignedDiscoveryDocument(final String serverUrl) {
+    return signTimer.record(
+        () ->
+            new SignedDiscoveryDocument(
+                signDiscoveryDocument(
+                    discoveryDocumentBuilder.buildDiscoveryDocument(
+                        serverUrl,
+                        serverUrlService.getIssuerUrl(),
+                        scopeService.getScopes().toArray(new String[0]),
+                        fedAuthEndpoint))));
+  }
+
+  private String signDiscoveryDocument(final IdpDiscoveryDocument discoveryDocument) {
+    final String payload;
+    try {
+      payload = JsonMapper.builder().build().writeValueAsString(discoveryDocument);
+    } catch (final JacksonException e) {
+      throw new IdpServerException(
+          2100, IdpErrorType.SERVER_ERROR, "Ein Fehler ist aufgetreten", e);
+    }
+
+    return jwtProcessor
+        .buildJws(payload, Map.ofEntries(Map.entry("typ", "JWT")), true)
+        .getRawString();
+  }
+
+  private record CachedDocument(SignedDiscoveryDocument document, AtomicBoolean requested) {
+
+    SignedDiscoveryDocument markRequested() {
+      requested.set(true);
+      return document;
+    }
+  }
+
+  @Getter
+  public static class SignedDiscoveryDocument {
+
+    private final String jws;
+    private final String etag;
+    private final Instant signedAt;
+
+    public SignedDiscoveryDocument(final String jws) {
+      this.jws = jws;
+      this.etag =
+          "\"" + DigestUtils.md5DigestAsHex(jws.getBytes(StandardCharsets.US_ASCII)) + "\"";
+      this.signedAt = Instant.now();
+    }
+
+    public boolean isOlderThan(final Duration maxAge) {
+      return signedAt.plus(maxAge).isBefore(Instant.now());
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import de.gematik.idp.server.exceptions.IdpServerException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers and error counters for the single stages of the flows. Every stage gets a timer with a
+ * percentile histogram per outcome, failed stages additionally count the gematik error code of the
+ * {@link IdpServerException} they ended with.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlowStageMetrics {
+
+  public static final String STAGE_TIMER = "idp.flow.stage";
+  public static final String STAGE_ERRORS = "idp.flow.stage.errors";
+  private static final String NO_ERROR_CODE = "none";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<Stage, Timer> successTimers = new EnumMap<>(Stage.class);
+  private final Map<Stage, Timer> errorTimers = new EnumMap<>(Stage.class);
+
+  @PostConstruct
+  public void setUp() {
+    for (final Stage stage : Stage.values()) {
+      successTimers.put(stage, createTimer(stage, "success"));
+      errorTimers.put(stage, createTimer(stage, "error"));
+    }
+  }
+
+  public <T> T time(final Stage stage, final Supplier<T> body) {
+    final long start = System.nanoTime();
+    try {
+      final T result = body.get();
+      successTimers.get(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return result;
+    } catch (final RuntimeException e) {
+      errorTimers.get(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      countError(stage, e);
+      throw e;
+    }
+  }
+
+  public void run(final Stage stage, final Runnable body) {
+    time(
+        stage,
+        () -> {
+          body.run();
+          return null;
+        });
+  }
+
+  private void countError(final Stage stage, final RuntimeException e) {
+    final String errorCode =
+        e instanceof final IdpServerException idpServerException
+            ? idpServerException.getErrorCode()
+            : NO_ERROR_CODE;
+    meterRegistry
+        .counter(
+            STAGE_ERRORS,
+            "stage",
+            stage.getTagValue(),
+            "gematik_code",
+            errorCode,
+            "exception",
+            e.getClass().getSimpleName())
+        .increment();
+  }
+
+  private Timer createTimer(final Stage stage, final String outcome) {
+    return Timer.builder(STAGE_TIMER)
+        .tag("stage", stage.getTagValue())
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Stage {
+    DECRYPT_CHALLENGE("decrypt_challenge"),
+    VALIDATE_CHALLENGE_TOKEN("validate_challenge_token"),
+    VERIFY_CLIENT_CERTIFICATE("verify_client_certificate"),
+    VALIDATE_SSO_TOKEN("validate_sso_token"),
+    BUILD_AUTHENTICATION_TOKEN("build_authentication_token"),
+    BUILD_SSO_TOKEN("build_sso_token"),
+    DECRYPT_AUTHORIZATION_CODE("decrypt_authorization_code"),
+    DECRYPT_KEY_VERIFIER("decrypt_key_verifier"),
+    VERIFY_AUTHORIZATION_CODE("verify_authorization_code"),
+    BUILD_ACCESS_TOKEN("build_access_token"),
+    BUILD_ID_TOKEN("build_id_token"),
+    ENCRYPT_TOKEN("encrypt_token"),
+    PAIRING_LIST("pairing_list"),
+    PAIRING_REGISTRATION("pairing_registration"),
+    PAIRING_DELETION("pairing_deletion");
+
+    private final String tagValue;
+  }
+}
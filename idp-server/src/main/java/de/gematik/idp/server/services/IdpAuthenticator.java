@@ -25,13 +25,12 @@ import static de.gematik.idp.field.ClaimName.AUTHENTICATION_METHODS_REFERENCE;
 import static de.gematik.idp.field.ClaimName.CHALLENGE_TOKEN;
 import static de.gematik.idp.field.ClaimName.CLIENT_ID;
 import static de.gematik.idp.field.ClaimName.CONTENT_TYPE;
-import static de.gematik.idp.field.ClaimName.EPHEMERAL_PUBLIC_KEY;
 import static de.gematik.idp.field.ClaimName.EXPIRES_AT;
-import static de.gematik.idp.field.ClaimName.NESTED_JWT;
 import static de.gematik.idp.field.ClaimName.REDIRECT_URI;
 import static de.gematik.idp.field.ClaimName.STATE;
 
 import de.gematik.idp.authentication.AuthenticationTokenBuilder;
+import de.gematik.idp.authentication.ChallengeVerificationContext;
 import de.gematik.idp.error.IdpErrorType;
 import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.field.ClaimName;
@@ -40,15 +39,15 @@ import de.gematik.idp.server.data.IdpClientConfiguration;
 import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.exceptions.authentication.IdpServerLocationBuildException;
 import de.gematik.idp.server.exceptions.oauth2spec.IdpServerInvalidRequestException;
+import de.gematik.idp.server.services.FlowStageMetrics.Stage;
+import de.gematik.idp.server.services.JwePreValidator.Profile;
 import de.gematik.idp.token.IdpJwe;
 import de.gematik.idp.token.JsonWebToken;
 import de.gematik.idp.token.SsoTokenBuilder;
 import de.gematik.idp.token.TokenClaimExtraction;
-import de.gematik.pki.gemlibpki.commons.certificate.TucPki018Verifier;
 import de.gematik.pki.gemlibpki.commons.exception.GemPkiException;
 import java.net.URISyntaxException;
 import java.security.cert.X509Certificate;
-import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
@@ -72,39 +71,25 @@ public class IdpAuthenticator {
   private final AuthenticationTokenBuilder authenticationTokenBuilder;
   private final IdpKey idpSig;
   private final IdpKey idpEnc;
-  private final TucPki018Verifier tucPki018Verifier;
+  private final CertificateVerificationCache certificateVerificationCache;
   private final ChallengeTokenValidationService challengeTokenValidationService;
   private final ClientRegistrationService clientRegistrationService;
+  private final FlowStageMetrics flowStageMetrics;
+  private final JwePreValidator jwePreValidator;
 
   public String getBasicFlowTokenLocation(final IdpJwe signedChallenge) {
     try {
-      verifyJweHeaderClaims(signedChallenge);
-      final JsonWebToken decryptedChallenge = decryptChallenge(signedChallenge);
-      verifyExpInChallenge(signedChallenge);
-      verifyExpInChallengeEqualsExpInSignedChallenge(signedChallenge, decryptedChallenge);
-      verifyCtyHeaderClaimInJws(decryptedChallenge);
-      return buildBasicFlowTokenLocation(decryptedChallenge).build().toString();
+      jwePreValidator.check(signedChallenge, Profile.SIGNED_CHALLENGE);
+      final ChallengeVerificationContext context =
+          new ChallengeVerificationContext(signedChallenge, decryptChallenge(signedChallenge));
+      verifyExpInChallengeEqualsExpInSignedChallenge(context);
+      verifyCtyHeaderClaimInJws(context.getSignedChallenge());
+      return buildBasicFlowTokenLocation(context).build().toString();
     } catch (final URISyntaxException e) {
       throw new IdpServerLocationBuildException(e);
     }
   }
 
-  private void verifyJweHeaderClaims(final IdpJwe signedChallenge) {
-    if (signedChallenge.getHeaderClaim(CONTENT_TYPE).filter("NJWT"::equals).isEmpty()) {
-      log.error(signedChallenge.getHeaderDecoded());
-      throw new IdpServerException(2030, INVALID_REQUEST, "CTY fehlerhaft");
-    }
-    if (signedChallenge
-        .getHeaderClaim(EPHEMERAL_PUBLIC_KEY)
-        .filter(Map.class::isInstance)
-        .map(Map.class::cast)
-        .filter(epkMap -> "BP-256".equals(epkMap.get("crv")))
-        .isEmpty()) {
-      log.error(signedChallenge.getHeaderDecoded());
-      throw new IdpServerException(2030, INVALID_REQUEST, "EPK-Typ fehlerhaft");
-    }
-  }
-
   private void verifyCtyHeaderClaimInJws(final JsonWebToken signedChallenge) {
     if (signedChallenge.getHeaderClaim(CONTENT_TYPE).filter("NJWT"::equals).isEmpty()) {
       log.error(signedChallenge.getHeaderDecoded());
@@ -114,7 +99,7 @@ public class IdpAuthenticator {
 
   public String getAlternateFlowTokenLocation(final IdpJwe signedAuthData) {
     try {
-      verifyExpInChallenge(signedAuthData);
+      jwePreValidator.check(signedAuthData, Profile.AUTHENTICATION_DATA);
       return buildAlternateFlowTokenLocation(decryptChallenge(signedAuthData)).build().toString();
     } catch (final URISyntaxException e) {
       throw new IdpServerLocationBuildException(e);
@@ -122,44 +107,33 @@ public class IdpAuthenticator {
   }
 
   private JsonWebToken decryptChallenge(final IdpJwe signedChallenge) {
-    try {
-      return signedChallenge.decryptNestedJwt(idpEnc.getIdentity().getPrivateKey());
-    } catch (final RuntimeException e) {
-      if (e instanceof IdpServerException) {
-        throw e;
-      } else {
-        throw new IdpServerException(2030, INVALID_REQUEST, "Challenge ist ungültig", e);
-      }
-    }
-  }
-
-  private void verifyExpInChallenge(final IdpJwe signedChallenge) {
-    if (signedChallenge.getHeaderClaim(EXPIRES_AT).isEmpty()) {
-      log.error(signedChallenge.getHeaderDecoded());
-      throw new IdpServerException(2031, INVALID_REQUEST, "exp wurde nicht übermittelt");
-    }
-    if (signedChallenge
-        .getHeaderClaim(EXPIRES_AT)
-        .filter(Long.class::isInstance)
-        .map(Long.class::cast)
-        .map(Instant::ofEpochSecond)
-        .map(expInstant -> Instant.now().isAfter(expInstant))
-        .orElse(true)) {
-      throw new IdpServerException(2032, INVALID_REQUEST, "Challenge ist abgelaufen");
-    }
+    return flowStageMetrics.time(
+        Stage.DECRYPT_CHALLENGE,
+        () -> {
+          try {
+            return signedChallenge.decryptNestedJwt(idpEnc.getIdentity().getPrivateKey());
+          } catch (final RuntimeException e) {
+            if (e instanceof IdpServerException) {
+              throw e;
+            } else {
+              throw new IdpServerException(2030, INVALID_REQUEST, "Challenge ist ungültig", e);
+            }
+          }
+        });
   }
 
   public void verifyExpInChallengeEqualsExpInSignedChallenge(
       final IdpJwe signedChallenge, final JsonWebToken decryptedChallenge) {
-    final Long expInEncHeader = (Long) signedChallenge.getHeaderClaim(EXPIRES_AT).orElseThrow();
+    verifyExpInChallengeEqualsExpInSignedChallenge(
+        new ChallengeVerificationContext(signedChallenge, decryptedChallenge));
+  }
+
+  private void verifyExpInChallengeEqualsExpInSignedChallenge(
+      final ChallengeVerificationContext context) {
+    final Long expInEncHeader =
+        (Long) context.getEncryptedChallenge().getHeaderClaim(EXPIRES_AT).orElseThrow();
     final Long expInChallenge =
-        (Long)
-            decryptedChallenge
-                .getStringBodyClaim(NESTED_JWT)
-                .map(JsonWebToken::new)
-                .orElseThrow()
-                .getBodyClaim(EXPIRES_AT)
-                .orElseThrow();
+        (Long) context.getServerChallenge().orElseThrow().getBodyClaim(EXPIRES_AT).orElseThrow();
 
     if (!expInChallenge.equals(expInEncHeader)) {
       throw new IdpServerException(
@@ -191,14 +165,14 @@ public class IdpAuthenticator {
     }
   }
 
-  private URIBuilder buildBasicFlowTokenLocation(final JsonWebToken signedChallenge) {
-    final Map<String, Object> serverChallengeClaims = getServerChallengeClaims(signedChallenge);
+  private URIBuilder buildBasicFlowTokenLocation(final ChallengeVerificationContext context) {
+    final Map<String, Object> serverChallengeClaims = getServerChallengeClaims(context);
 
-    challengeTokenValidationService.validateChallengeToken(signedChallenge);
+    challengeTokenValidationService.validateChallengeToken(context);
 
     final X509Certificate nestedX509ClientCertificate =
-        signedChallenge
-            .getClientCertificateFromHeader()
+        context
+            .getClientCertificate()
             .orElseThrow(
                 () ->
                     new IdpServerException(
@@ -222,11 +196,10 @@ public class IdpAuthenticator {
     }
   }
 
-  private Map<String, Object> getServerChallengeClaims(final JsonWebToken signedChallenge) {
+  private Map<String, Object> getServerChallengeClaims(final ChallengeVerificationContext context) {
     try {
-      return signedChallenge
-          .getStringBodyClaim(ClaimName.NESTED_JWT)
-          .map(TokenClaimExtraction::extractClaimsFromJwtBody)
+      return context
+          .getServerChallengeClaims()
           .orElseThrow(
               () ->
                   new IdpServerInvalidRequestException(
@@ -311,8 +284,12 @@ public class IdpAuthenticator {
     final ZonedDateTime authTime = ZonedDateTime.now();
     locationBuilder.addParameter(
         "code",
-        authenticationTokenBuilder
-            .buildAuthenticationToken(certificate, claimsMap, authTime)
+        flowStageMetrics
+            .time(
+                Stage.BUILD_AUTHENTICATION_TOKEN,
+                () ->
+                    authenticationTokenBuilder.buildAuthenticationToken(
+                        certificate, claimsMap, authTime))
             .getRawString());
 
     final Optional<Boolean> addSsoToken =
@@ -322,8 +299,12 @@ public class IdpAuthenticator {
     if (addSsoToken.orElse(false)) {
       locationBuilder.addParameter(
           "ssotoken",
-          ssoTokenBuilder
-              .buildSsoToken(certificate, authTime, getAmrString(claimsMap))
+          flowStageMetrics
+              .time(
+                  Stage.BUILD_SSO_TOKEN,
+                  () ->
+                      ssoTokenBuilder.buildSsoToken(
+                          certificate, authTime, getAmrString(claimsMap)))
               .getRawString());
     }
 
@@ -337,13 +318,21 @@ public class IdpAuthenticator {
     final ZonedDateTime authTime = ZonedDateTime.now();
     locationBuilder.addParameter(
         "code",
-        authenticationTokenBuilder
-            .buildAuthenticationTokenFromSektoralIdToken(idToken, authTime, sessionData)
+        flowStageMetrics
+            .time(
+                Stage.BUILD_AUTHENTICATION_TOKEN,
+                () ->
+                    authenticationTokenBuilder.buildAuthenticationTokenFromSektoralIdToken(
+                        idToken, authTime, sessionData))
             .getRawString());
     locationBuilder.addParameter("state", sessionData.get(STATE.getJoseName()));
     locationBuilder.addParameter(
         "ssotoken",
-        ssoTokenBuilder.buildSsoTokenFromSektoralIdToken(idToken, authTime).getRawString());
+        flowStageMetrics
+            .time(
+                Stage.BUILD_SSO_TOKEN,
+                () -> ssoTokenBuilder.buildSsoTokenFromSektoralIdToken(idToken, authTime))
+            .getRawString());
   }
 
   private List<String> getAmrString(final Map<String, Object> claimsMap) {
@@ -361,11 +350,16 @@ public class IdpAuthenticator {
   }
 
   private void verifyClientCertificate(final X509Certificate nestedX509ClientCertificate) {
-    try {
-      tucPki018Verifier.performTucPki018Checks(nestedX509ClientCertificate);
-    } catch (final GemPkiException | RuntimeException e) {
-      throw new IdpServerException(2020, INVALID_REQUEST, "Das AUT Zertifikat ist ungültig", e);
-    }
+    flowStageMetrics.run(
+        Stage.VERIFY_CLIENT_CERTIFICATE,
+        () -> {
+          try {
+            certificateVerificationCache.verifyCertificate(nestedX509ClientCertificate);
+          } catch (final GemPkiException | RuntimeException e) {
+            throw new IdpServerException(
+                2020, INVALID_REQUEST, "Das AUT Zertifikat ist ungültig", e);
+          }
+        });
   }
 
   private void buildSsoTokenLocation(
@@ -385,13 +379,20 @@ public class IdpAuthenticator {
     } catch (final Exception e) {
       throw new IdpServerException(2030, INVALID_REQUEST, "Challenge ist ungültig");
     }
-    final JsonWebToken ssoToken = ssoTokenValidator.decryptAndValidateSsoToken(encryptedSsoToken);
+    final JsonWebToken ssoToken =
+        flowStageMetrics.time(
+            Stage.VALIDATE_SSO_TOKEN,
+            () -> ssoTokenValidator.decryptAndValidateSsoToken(encryptedSsoToken));
 
     final ZonedDateTime authTime = ZonedDateTime.now();
     locationBuilder.addParameter(
         "code",
-        authenticationTokenBuilder
-            .buildAuthenticationTokenFromSsoToken(ssoToken, challengeToken, authTime)
+        flowStageMetrics
+            .time(
+                Stage.BUILD_AUTHENTICATION_TOKEN,
+                () ->
+                    authenticationTokenBuilder.buildAuthenticationTokenFromSsoToken(
+                        ssoToken, challengeToken, authTime))
             .getRawString());
 
     locationBuilder.addParameter(
@@ -0,0 +1,249 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import static de.gematik.idp.error.IdpErrorType.INVALID_GRANT;
+import static de.gematik.idp.error.IdpErrorType.INVALID_REQUEST;
+
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.field.ClaimName;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import de.gematik.idp.token.CompactSerialization;
+import de.gematik.idp.token.IdpJwe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checks received JWEs before anything is decrypted. The gates run from cheap to expensive: length
+ * and compact serialization shape are checked on the raw string without allocations, only then
+ * the protected header is decoded once (later header lookups reuse it) and checked for alg, enc,
+ * the ephemeral key, cty and exp. A rejection at any gate is counted per token type and gate.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JwePreValidator {
+
+  public static final String REJECTED_METER = "idp.jwe.prevalidation.rejected";
+  public static final int DEFAULT_MAX_LENGTH = 65_536;
+  private static final String EPK_CURVE = "BP-256";
+  private static final int EPK_COORDINATE_LENGTH = 43;
+  private static final int IV_LENGTH = 16;
+  private static final int TAG_LENGTH = 22;
+
+  private final IdpConfiguration idpConfiguration;
+  private final MeterRegistry meterRegistry;
+  private final Map<Profile, Map<Gate, Counter>> rejectionCounters = new EnumMap<>(Profile.class);
+  private int maxLength;
+
+  @PostConstruct
+  public void setUp() {
+    maxLength = Optional.ofNullable(idpConfiguration.getJweMaxLength()).orElse(DEFAULT_MAX_LENGTH);
+    for (final Profile profile : Profile.values()) {
+      final Map<Gate, Counter> counters = new EnumMap<>(Gate.class);
+      for (final Gate gate : Gate.values()) {
+        counters.put(
+            gate,
+            meterRegistry.counter(
+                REJECTED_METER, "token", profile.getTagValue(), "gate", gate.getTagValue()));
+      }
+      rejectionCounters.put(profile, counters);
+    }
+  }
+
+  /**
+   * @throws IdpServerException with the error code of the profile if a gate rejects the token
+   */
+  public void check(final IdpJwe jwe, final Profile profile) {
+    final String rawString = jwe.getRawString();
+    if (rawString == null || rawString.isEmpty() || rawString.length() > maxLength) {
+      throw reject(profile, Gate.SIZE, profile.getInvalidMessage());
+    }
+    if (!hasCompactShape(rawString, jwe.getCompactSerialization())) {
+      throw reject(profile, Gate.SHAPE, profile.getInvalidMessage());
+    }
+    final Map<String, Object> header;
+    try {
+      header = jwe.getHeaderClaims();
+    } catch (final RuntimeException e) {
+      throw reject(profile, Gate.SHAPE, profile.getInvalidMessage());
+    }
+    if (!profile.getAlgorithm().equals(header.get(ClaimName.ALGORITHM.getJoseName()))
+        || !ContentEncryptionAlgorithmIdentifiers.AES_256_GCM.equals(
+            header.get(ClaimName.ENCRYPTION_ALGORITHM.getJoseName()))) {
+      throw reject(profile, Gate.ALGORITHM, profile.getInvalidMessage());
+    }
+    if (isEcdhEs(profile)
+        && !hasValidEphemeralKey(header.get(ClaimName.EPHEMERAL_PUBLIC_KEY.getJoseName()))) {
+      throw reject(profile, Gate.EPHEMERAL_KEY, "EPK-Typ fehlerhaft");
+    }
+    if (profile.getContentType() != null
+        && !profile.getContentType().equals(header.get(ClaimName.CONTENT_TYPE.getJoseName()))) {
+      throw reject(profile, Gate.CONTENT_TYPE, "CTY fehlerhaft");
+    }
+    checkExpiry(header.get(ClaimName.EXPIRES_AT.getJoseName()), profile);
+  }
+
+  private void checkExpiry(final Object exp, final Profile profile) {
+    if (exp == null) {
+      if (profile.isExpiryRequired()) {
+        rejectionCounters.get(profile).get(Gate.EXPIRY).increment();
+        throw new IdpServerException(2031, INVALID_REQUEST, "exp wurde nicht übermittelt");
+      }
+      return;
+    }
+    if (!(exp instanceof final Long expSeconds)
+        || Instant.now().isAfter(Instant.ofEpochSecond(expSeconds))) {
+      rejectionCounters.get(profile).get(Gate.EXPIRY).increment();
+      throw new IdpServerException(
+          profile.getExpiredCode(), profile.getErrorType(), profile.getExpiredMessage());
+    }
+  }
+
+  /**
+   * Five parts, only base64url characters, no encrypted key (ECDH-ES and dir both use direct key
+   * agreement), a 96 bit IV and a 128 bit tag as A256GCM requires.
+   */
+  private static boolean hasCompactShape(
+      final String rawString, final CompactSerialization serialization) {
+    if (serialization.getPartCount() != IdpJwe.JWE_PART_COUNT
+        || serialization.getPartLength(0) == 0
+        || serialization.getPartLength(1) != 0
+        || serialization.getPartLength(2) != IV_LENGTH
+        || serialization.getPartLength(3) == 0
+        || serialization.getPartLength(4) != TAG_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < rawString.length(); i++) {
+      final char c = rawString.charAt(i);
+      if (!(c >= 'A' && c <= 'Z'
+          || c >= 'a' && c <= 'z'
+          || c >= '0' && c <= '9'
+          || c == '-'
+          || c == '_'
+          || c == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean hasValidEphemeralKey(final Object epk) {
+    return epk instanceof final Map<?, ?> epkMap
+        && "EC".equals(epkMap.get("kty"))
+        && EPK_CURVE.equals(epkMap.get("crv"))
+        && epkMap.get("x") instanceof final String x
+        && x.length() == EPK_COORDINATE_LENGTH
+        && epkMap.get("y") instanceof final String y
+        && y.length() == EPK_COORDINATE_LENGTH;
+  }
+
+  private static boolean isEcdhEs(final Profile profile) {
+    return KeyManagementAlgorithmIdentifiers.ECDH_ES.equals(profile.getAlgorithm());
+  }
+
+  private IdpServerException reject(final Profile profile, final Gate gate, final String message) {
+    rejectionCounters.get(profile).get(gate).increment();
+    log.debug("Rejected {} at gate {}", profile.getTagValue(), gate.getTagValue());
+    return new IdpServerException(profile.getInvalidCode(), profile.getErrorType(), message);
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Gate {
+    SIZE("size"),
+    SHAPE("shape"),
+    ALGORITHM("algorithm"),
+    EPHEMERAL_KEY("epk"),
+    CONTENT_TYPE("cty"),
+    EXPIRY("exp");
+
+    private final String tagValue;
+  }
+
+  /** Expected header values and error codes per received token. */
+  @Getter
+  @RequiredArgsConstructor
+  public enum Profile {
+    SIGNED_CHALLENGE(
+        KeyManagementAlgorithmIdentifiers.ECDH_ES,
+        "NJWT",
+        true,
+        INVALID_REQUEST,
+        2030,
+        "Challenge ist ungültig",
+        2032,
+        "Challenge ist abgelaufen"),
+    AUTHENTICATION_DATA(
+        KeyManagementAlgorithmIdentifiers.ECDH_ES,
+        null,
+        true,
+        INVALID_REQUEST,
+        2030,
+        "Challenge ist ungültig",
+        2032,
+        "Challenge ist abgelaufen"),
+    AUTHORIZATION_CODE(
+        KeyManagementAlgorithmIdentifiers.DIRECT,
+        "NJWT",
+        false,
+        INVALID_GRANT,
+        3013,
+        "Authorization Code ist nicht lesbar",
+        3011,
+        "Authorization Code ist abgelaufen"),
+    KEY_VERIFIER(
+        KeyManagementAlgorithmIdentifiers.ECDH_ES,
+        null,
+        false,
+        INVALID_REQUEST,
+        -1,
+        "Error during decryption of key_verifier",
+        -1,
+        "key_verifier ist abgelaufen");
+
+    private final String algorithm;
+    private final String contentType;
+    private final boolean expiryRequired;
+    private final IdpErrorType errorType;
+    private final int invalidCode;
+    private final String invalidMessage;
+    private final int expiredCode;
+    private final String expiredMessage;
+
+    public String getTagValue() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import de.gematik.idp.data.IdpJwksDocument;
+import de.gematik.idp.data.IdpKeyDescriptor;
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.controllers.IdpKey;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Keeps the serialized jwks and jwk.json documents. The idp keys are loaded once at startup by the
+ * {@link de.gematik.idp.server.KeyConfiguration}, so the bytes are built once as well.
+ */
+@Service
+@RequiredArgsConstructor
+public class JwkDocumentService {
+
+  public static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(5);
+
+  private final IdpKey idpSig;
+  private final IdpKey idpEnc;
+  private final IdpConfiguration idpConfiguration;
+  private final JsonMapper jsonMapper;
+  private JwkDocuments jwkDocuments;
+
+  @PostConstruct
+  public void setUp() {
+    jwkDocuments = buildJwkDocuments();
+  }
+
+  public ResponseEntity<byte[]> getJwks() {
+    return toResponse(jwkDocuments.jwks());
+  }
+
+  public ResponseEntity<byte[]> getSigJwk() {
+    return toResponse(jwkDocuments.sigJwk());
+  }
+
+  public ResponseEntity<byte[]> getEncJwk() {
+    return toResponse(jwkDocuments.encJwk());
+  }
+
+  private ResponseEntity<byte[]> toResponse(final SerializedDocument document) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(
+            CacheControl.maxAge(
+                Optional.ofNullable(idpConfiguration.getJwksMaxAge()).orElse(DEFAULT_MAX_AGE)))
+        .eTag(document.etag())
+        .body(document.content());
+  }
+
+  private JwkDocuments buildJwkDocuments() {
+    return new JwkDocuments(
+        serialize(
+            IdpJwksDocument.builder()
+                .keys(List.of(buildJwksEntry(idpSig), buildJwksEntry(idpEnc)))
+                .build()),
+        serialize(idpSig.buildJwk()),
+        serialize(idpEnc.buildJwk()));
+  }
+
+  private static IdpKeyDescriptor buildJwksEntry(final IdpKey identity) {
+    final IdpKeyDescriptor keyDesc =
+        IdpKeyDescriptor.constructFromX509Certificate(
+            identity.getIdentity().getCertificate(),
+            identity.getKeyId().orElse("null"),
+            identity.getKeyId().map(id -> !id.equals("puk_idp_enc")).orElse(false));
+    keyDesc.setPublicKeyUse(identity.getUse().orElse(null));
+    return keyDesc;
+  }
+
+  private SerializedDocument serialize(final Object document) {
+    try {
+      final byte[] content = jsonMapper.writeValueAsBytes(document);
+      return new SerializedDocument(content, "\"" + DigestUtils.md5DigestAsHex(content) + "\"");
+    } catch (final JacksonException e) {
+      throw new IdpServerException(
+          2100, IdpErrorType.SERVER_ERROR, "Ein Fehler ist aufgetreten", e);
+    }
+  }
+
+  private record SerializedDocument(byte[] content, String etag) {}
+
+  private record JwkDocuments(
+      SerializedDocument jwks, SerializedDocument sigJwk, SerializedDocument encJwk) {}
+}
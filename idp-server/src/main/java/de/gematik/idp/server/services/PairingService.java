@@ -33,22 +33,30 @@ import static de.gematik.idp.field.ClaimName.SE_SUBJECT_PUBLIC_KEY_INFO;
 import de.gematik.idp.authentication.AuthenticationChallengeVerifier;
 import de.gematik.idp.crypto.CryptoLoader;
 import de.gematik.idp.crypto.X509ClaimExtraction;
+import de.gematik.idp.crypto.exceptions.IdpCryptoException;
 import de.gematik.idp.error.IdpErrorType;
 import de.gematik.idp.exceptions.ChallengeSignatureInvalidException;
+import de.gematik.idp.exceptions.IdpJoseException;
 import de.gematik.idp.field.ClaimName;
 import de.gematik.idp.server.controllers.IdpKey;
 import de.gematik.idp.server.data.DeviceInformation;
 import de.gematik.idp.server.data.PairingDto;
+import de.gematik.idp.server.data.PairingList;
 import de.gematik.idp.server.data.RegistrationData;
 import de.gematik.idp.server.devicevalidation.DeviceValidationState;
 import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.exceptions.oauth2spec.IdpServerInvalidRequestException;
+import de.gematik.idp.server.pairing.PairingCache;
 import de.gematik.idp.server.pairing.PairingData;
+import de.gematik.idp.server.pairing.PairingListEntry;
+import de.gematik.idp.server.pairing.PairingPublicKeyCache;
 import de.gematik.idp.server.pairing.PairingRepository;
+import de.gematik.idp.server.services.FlowStageMetrics.Stage;
 import de.gematik.idp.token.IdpJwe;
 import de.gematik.idp.token.JsonWebToken;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
 import java.time.ZonedDateTime;
 import java.util.Base64;
@@ -57,8 +65,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -75,18 +85,87 @@ public class PairingService {
           SE_SUBJECT_PUBLIC_KEY_INFO,
           CERTIFICATE_ISSUER,
           DEVICE_PRODUCT);
+  public static final int DEFAULT_PAGE_SIZE = 20;
+  public static final int MAX_PAGE_SIZE = 100;
+  private static final int STREAM_PAGE_SIZE = 100;
+  private static final String FIRST_KEY_IDENTIFIER = "";
+  private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
   private final PairingRepository pairingRepository;
+  private final PairingCache pairingCache;
+  private final PairingPublicKeyCache pairingPublicKeyCache;
   private final DeviceValidationService deviceValidationService;
   private final AuthenticationChallengeVerifier authenticationChallengeVerifier;
   private final IdpKey idpEnc;
   private final Validator validator;
   private final DataVersionService dataVersionService;
+  private final FlowStageMetrics flowStageMetrics;
 
   public List<PairingDto> validateTokenAndGetPairingList(final JsonWebToken accessToken) {
     validateAccessTokenClaims(accessToken);
-    final List<PairingData> pairingDataList =
-        getPairingList(retrieveIdNumberFromAccessToken(accessToken));
-    return pairingDataList.stream().map(this::convertToDto).toList();
+    final String idNumber = retrieveIdNumberFromAccessToken(accessToken);
+    return flowStageMetrics.time(
+        Stage.PAIRING_LIST,
+        () ->
+            pairingRepository
+                .findByIdNumberAndKeyIdentifierGreaterThanOrderByKeyIdentifier(
+                    idNumber, FIRST_KEY_IDENTIFIER, Limit.unlimited())
+                .stream()
+                .map(this::convertToDto)
+                .toList());
+  }
+
+  /**
+   * Returns one page of the pairing list. Pages are cut by key identifier, so the page token is
+   * the (base64url encoded) last key identifier of the previous page and does not shift when
+   * pairings are added or deleted in between.
+   */
+  public PairingList validateTokenAndGetPairingPage(
+      final JsonWebToken accessToken, final Integer pageSize, final String pageToken) {
+    validateAccessTokenClaims(accessToken);
+    final int size = Optional.ofNullable(pageSize).orElse(DEFAULT_PAGE_SIZE);
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new IdpServerInvalidRequestException(
+          "page_size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    final String idNumber = retrieveIdNumberFromAccessToken(accessToken);
+    final String lastKeyIdentifier = decodePageToken(pageToken);
+    final List<PairingListEntry> entries =
+        flowStageMetrics.time(
+            Stage.PAIRING_LIST,
+            () ->
+                pairingRepository.findByIdNumberAndKeyIdentifierGreaterThanOrderByKeyIdentifier(
+                    idNumber, lastKeyIdentifier, Limit.of(size + 1)));
+    if (entries.size() <= size) {
+      return new PairingList(entries.stream().map(this::convertToDto).toList());
+    }
+    final List<PairingListEntry> page = entries.subList(0, size);
+    return new PairingList(
+        page.stream().map(this::convertToDto).toList(),
+        encodePageToken(page.getLast().keyIdentifier()));
+  }
+
+  /**
+   * Writes the pairing list as newline delimited JSON, one pairing per line. The rows are read page
+   * by page, so neither the whole list nor a database connection is held while the client reads.
+   */
+  public StreamingResponseBody validateTokenAndStreamPairingList(final JsonWebToken accessToken) {
+    validateAccessTokenClaims(accessToken);
+    final String idNumber = retrieveIdNumberFromAccessToken(accessToken);
+    return outputStream -> {
+      String lastKeyIdentifier = FIRST_KEY_IDENTIFIER;
+      List<PairingListEntry> page;
+      do {
+        page =
+            pairingRepository.findByIdNumberAndKeyIdentifierGreaterThanOrderByKeyIdentifier(
+                idNumber, lastKeyIdentifier, Limit.of(STREAM_PAGE_SIZE));
+        for (final PairingListEntry entry : page) {
+          outputStream.write(JSON_MAPPER.writeValueAsBytes(convertToDto(entry)));
+          outputStream.write('\n');
+          lastKeyIdentifier = entry.keyIdentifier();
+        }
+        outputStream.flush();
+      } while (page.size() == STREAM_PAGE_SIZE);
+    };
   }
 
   public List<PairingData> getPairingList(final String idNumber) {
@@ -96,11 +175,14 @@ public class PairingService {
   public void validateTokenAndDeleteSelectedPairing(
       final JsonWebToken accessToken, final String keyIdentifier) {
     validateAccessTokenClaims(accessToken);
-    deleteSelectedPairing(retrieveIdNumberFromAccessToken(accessToken), keyIdentifier);
+    final String idNumber = retrieveIdNumberFromAccessToken(accessToken);
+    flowStageMetrics.run(
+        Stage.PAIRING_DELETION, () -> deleteSelectedPairing(idNumber, keyIdentifier));
   }
 
   public void deleteSelectedPairing(final String idNumber, final String keyIdentifier) {
     final long result = pairingRepository.deleteByIdNumberAndKeyIdentifier(idNumber, keyIdentifier);
+    pairingCache.invalidate(idNumber, keyIdentifier);
     if (result == 0) {
       throw new IdpServerException(
           4000,
@@ -112,10 +194,18 @@ public class PairingService {
 
   public void deleteAllPairing(final String idNumber) {
     pairingRepository.deleteByIdNumber(idNumber);
+    pairingCache.invalidateAll(idNumber);
   }
 
   public PairingDto validatePairingData(
       final JsonWebToken accessToken, final IdpJwe encryptedRegistrationData) {
+    return flowStageMetrics.time(
+        Stage.PAIRING_REGISTRATION,
+        () -> registerPairing(accessToken, encryptedRegistrationData));
+  }
+
+  private PairingDto registerPairing(
+      final JsonWebToken accessToken, final IdpJwe encryptedRegistrationData) {
     final RegistrationData registrationData =
         decryptAndValidateRegistrationData(encryptedRegistrationData);
 
@@ -156,6 +246,7 @@ public class PairingService {
     final PairingData data =
         createPairingDtoFromRegistrationData(
             signedPairingData, idNumber, deviceInformation.getName());
+    addVerifiedKeyMaterial(data, signedPairingData);
     return convertToDto(insertPairing(data));
   }
 
@@ -199,6 +290,7 @@ public class PairingService {
   }
 
   public PairingData insertPairing(final PairingData pairingData) {
+    // asks the database, a cached entry may belong to a pairing deleted on another instance
     if (pairingRepository
         .findByIdNumberAndKeyIdentifier(pairingData.getIdNumber(), pairingData.getKeyIdentifier())
         .isPresent()) {
@@ -208,7 +300,9 @@ public class PairingService {
           "Pairing for this ID/Key-ID combination already in DB",
           HttpStatus.CONFLICT);
     }
-    return pairingRepository.save(pairingData);
+    final PairingData saved = pairingRepository.save(pairingData);
+    pairingCache.invalidate(pairingData.getIdNumber(), pairingData.getKeyIdentifier());
+    return saved;
   }
 
   public String retrieveIdNumberFromAccessToken(final JsonWebToken accessToken) {
@@ -257,6 +351,35 @@ public class PairingService {
         .build();
   }
 
+  /**
+   * Stores the keys and the serial number of the pairing data in separate columns if the pairing
+   * data verifies with its own auth-cert key, the check every biometric login would otherwise
+   * repeat. Otherwise the columns stay empty and logins fall back to the signed pairing data.
+   */
+  private void addVerifiedKeyMaterial(
+      final PairingData pairingData, final JsonWebToken signedPairingData) {
+    final Optional<String> authCertSubjectPublicKeyInfo =
+        signedPairingData.getStringBodyClaim(AUTH_CERT_SUBJECT_PUBLIC_KEY_INFO);
+    final Optional<String> seSubjectPublicKeyInfo =
+        signedPairingData.getStringBodyClaim(SE_SUBJECT_PUBLIC_KEY_INFO);
+    final Optional<String> certificateSerialNumber =
+        signedPairingData.getStringBodyClaim(CERTIFICATE_SERIALNUMBER);
+    if (authCertSubjectPublicKeyInfo.isEmpty()
+        || seSubjectPublicKeyInfo.isEmpty()
+        || certificateSerialNumber.isEmpty()) {
+      return;
+    }
+    try {
+      signedPairingData.verify(
+          pairingPublicKeyCache.getEcPublicKey(authCertSubjectPublicKeyInfo.get()));
+    } catch (final IdpJoseException | IdpCryptoException | IllegalArgumentException e) {
+      return;
+    }
+    pairingData.setAuthCertSubjectPublicKeyInfo(authCertSubjectPublicKeyInfo.get());
+    pairingData.setSeSubjectPublicKeyInfo(seSubjectPublicKeyInfo.get());
+    pairingData.setCertificateSerialNumber(certificateSerialNumber.get());
+  }
+
   private void checkIdNumberIntegrity(final X509Certificate authCert, final String idNumber) {
     try {
       final Map<String, Object> certClaims =
@@ -297,11 +420,37 @@ public class PairingService {
 
   public Optional<PairingDto> getPairingDtoForIdNumberAndKeyIdentifier(
       final String kvnr, final String keyIdentifier) {
-    return pairingRepository
+    return pairingCache
         .findByIdNumberAndKeyIdentifier(kvnr, keyIdentifier)
         .map(this::convertToDto);
   }
 
+  private static String encodePageToken(final String keyIdentifier) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(keyIdentifier.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decodePageToken(final String pageToken) {
+    if (pageToken == null) {
+      return FIRST_KEY_IDENTIFIER;
+    }
+    try {
+      return new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+    } catch (final IllegalArgumentException e) {
+      throw new IdpServerInvalidRequestException("page_token is invalid", e);
+    }
+  }
+
+  private PairingDto convertToDto(final PairingListEntry entry) {
+    return PairingDto.builder()
+        .creationTime(entry.timestampPairing().toEpochSecond())
+        .signedPairingData(entry.signedPairingData())
+        .name(entry.deviceName())
+        .pairingEntryVersion(dataVersionService.getCurrentVersion())
+        .build();
+  }
+
   private PairingDto convertToDto(final PairingData pairingData) {
 
     return PairingDto.builder()
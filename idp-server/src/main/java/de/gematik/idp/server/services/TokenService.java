@@ -30,6 +30,8 @@ import de.gematik.idp.field.ClaimName;
 import de.gematik.idp.server.controllers.IdpKey;
 import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.exceptions.oauth2spec.IdpServerInvalidRequestException;
+import de.gematik.idp.server.services.FlowStageMetrics.Stage;
+import de.gematik.idp.server.services.JwePreValidator.Profile;
 import de.gematik.idp.token.AccessTokenBuilder;
 import de.gematik.idp.token.IdTokenBuilder;
 import de.gematik.idp.token.IdpJoseObject;
@@ -37,6 +39,11 @@ import de.gematik.idp.token.IdpJwe;
 import de.gematik.idp.token.JsonWebToken;
 import java.security.Key;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import lombok.RequiredArgsConstructor;
@@ -53,16 +60,24 @@ public class TokenService {
   private final IdpKey idpSig;
   private final IdpKey idpEnc;
   private final Key symmetricEncryptionKey;
+  private final ExecutorService cryptoExecutor;
+  private final FlowStageMetrics flowStageMetrics;
+  private final JwePreValidator jwePreValidator;
 
   public TokenResponse getTokenResponse(
       final IdpJwe encryptedAuthenticationToken,
       final IdpJwe keyVerifier,
       final String redirectUri,
       final String clientId) {
+    jwePreValidator.check(encryptedAuthenticationToken, Profile.AUTHORIZATION_CODE);
     final JsonWebToken authenticationToken =
-        decryptEncryptedAuthenticationToken(encryptedAuthenticationToken);
-    decryptKeyVerifierAndTestStructure(keyVerifier);
+        flowStageMetrics.time(
+            Stage.DECRYPT_AUTHORIZATION_CODE,
+            () -> decryptEncryptedAuthenticationToken(encryptedAuthenticationToken));
     testAuthenticationTokenStructure(authenticationToken);
+    jwePreValidator.check(keyVerifier, Profile.KEY_VERIFIER);
+    flowStageMetrics.time(
+        Stage.DECRYPT_KEY_VERIFIER, () -> decryptKeyVerifierAndTestStructure(keyVerifier));
 
     final String codeChallenge =
         authenticationToken
@@ -79,11 +94,16 @@ public class TokenService {
                     new IdpServerException(
                         3004, INVALID_REQUEST, "key_verifier wurde nicht übermittelt")),
         codeChallenge);
-    try {
-      authenticationToken.verify(idpSig.getIdentity().getCertificate().getPublicKey());
-    } catch (final Exception e) {
-      throw new IdpServerException(3011, INVALID_GRANT, "Authorization Code ist abgelaufen");
-    }
+    flowStageMetrics.run(
+        Stage.VERIFY_AUTHORIZATION_CODE,
+        () -> {
+          try {
+            authenticationToken.verify(idpSig.getIdentity().getCertificate().getPublicKey());
+          } catch (final Exception e) {
+            throw new IdpServerException(
+                3011, INVALID_GRANT, "Authorization Code ist abgelaufen");
+          }
+        });
 
     if (StringUtils.isEmpty(redirectUri)) {
       throw new IdpServerException(1004, INVALID_REQUEST, "redirect_uri wurde nicht übermittelt");
@@ -95,7 +115,6 @@ public class TokenService {
       throw new IdpServerException(1020, INVALID_REQUEST, "redirect_uri ist ungültig");
     }
 
-    final JsonWebToken accessToken = getAccessToken(authenticationToken);
     final SecretKey tokenKey =
         keyVerifier
             .getStringBodyClaim(ClaimName.TOKEN_KEY)
@@ -105,18 +124,75 @@ public class TokenService {
                 () ->
                     new IdpServerException(
                         3015, INVALID_REQUEST, "Claims unvollständig im key_verifier"));
+    return mintTokenResponse(
+        new TokenMintingRequest(authenticationToken, tokenKey, clientId), true);
+  }
+
+  /**
+   * Mints the token responses for several already validated authentication tokens in one call (load
+   * tests, pre-warming). The requests are spread over the crypto executor, each one is minted
+   * sequentially on its worker to avoid waiting on nested tasks of the same bounded pool.
+   */
+  public List<TokenResponse> mintTokenResponses(final List<TokenMintingRequest> requests) {
+    final List<CompletableFuture<TokenResponse>> responses =
+        requests.stream()
+            .map(
+                request ->
+                    CompletableFuture.supplyAsync(
+                        () -> mintTokenResponse(request, false), cryptoExecutor))
+            .toList();
+    return responses.stream().map(TokenService::join).toList();
+  }
+
+  /**
+   * The ID token claims are built up front, the access token is signed first because the ID token
+   * contains its at_hash. With {@code encryptConcurrently} the encryption of the access token then
+   * runs on the crypto executor while the ID token is signed and encrypted on the calling thread.
+   * Both threads read the claims of the access token, so they are parsed before it is handed over:
+   * the lazily filled claim maps of {@link IdpJoseObject} must not be written concurrently.
+   */
+  private TokenResponse mintTokenResponse(
+      final TokenMintingRequest request, final boolean encryptConcurrently) {
+    final Map<String, Object> idTokenClaims =
+        idTokenBuilder.buildIdTokenClaims(request.clientId(), request.authenticationToken());
+    final JsonWebToken accessToken =
+        flowStageMetrics.time(
+            Stage.BUILD_ACCESS_TOKEN, () -> getAccessToken(request.authenticationToken()));
+    accessToken.getHeaderClaims();
+    accessToken.getBodyClaims();
+    final CompletableFuture<String> encryptedAccessToken =
+        encryptConcurrently
+            ? CompletableFuture.supplyAsync(
+                () -> encryptToken(accessToken, request.tokenKey()), cryptoExecutor)
+            : CompletableFuture.completedFuture(encryptToken(accessToken, request.tokenKey()));
+    final JsonWebToken idToken =
+        flowStageMetrics.time(
+            Stage.BUILD_ID_TOKEN, () -> idTokenBuilder.buildIdToken(idTokenClaims, accessToken));
+    final String encryptedIdToken = encryptToken(idToken, request.tokenKey());
     return TokenResponse.builder()
         .tokenType("Bearer")
         .expiresIn(300)
-        .accessToken(accessToken.encryptAsNjwt(tokenKey).getRawString())
-        .idToken(
-            idTokenBuilder
-                .buildIdToken(clientId, authenticationToken, accessToken)
-                .encryptAsNjwt(tokenKey)
-                .getRawString())
+        .accessToken(join(encryptedAccessToken))
+        .idToken(encryptedIdToken)
         .build();
   }
 
+  private String encryptToken(final JsonWebToken token, final SecretKey tokenKey) {
+    return flowStageMetrics.time(
+        Stage.ENCRYPT_TOKEN, () -> token.encryptAsNjwt(tokenKey).getRawString());
+  }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof final RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
   private void testAuthenticationTokenStructure(final JsonWebToken authenticationToken) {
     try {
       authenticationToken.getBodyClaims();
@@ -24,6 +24,7 @@ import static de.gematik.idp.IdpConstants.DISCOVERY_DOCUMENT_ENDPOINT;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import de.gematik.idp.server.controllers.IdpKey;
+import de.gematik.idp.server.controllers.KeyInformationController;
 import de.gematik.idp.tests.Afo;
 import de.gematik.idp.tests.Rfc;
 import de.gematik.idp.token.TokenClaimExtraction;
@@ -32,6 +33,7 @@ import kong.unirest.core.HttpResponse;
 import kong.unirest.core.JsonNode;
 import kong.unirest.core.Unirest;
 import kong.unirest.core.UnirestException;
+import org.apache.http.HttpStatus;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
 import org.jose4j.lang.JoseException;
@@ -175,6 +177,35 @@ class KeyRetrievalTest {
     assertThat(keySet.findJsonWebKey(keyIdFromIndividual, null, null, null)).isNotNull();
   }
 
+  @Test
+  void retrieveJwks_shouldBeCacheableWithStrongEtag() throws UnirestException {
+    final HttpResponse<String> jwks = Unirest.get(testHostUrl + "/jwks").asString();
+    final String etag = jwks.getHeaders().getFirst("ETag");
+
+    assertThat(etag).startsWith("\"");
+    assertThat(jwks.getHeaders().getFirst("Cache-Control")).contains("max-age=");
+    assertThat(
+            Unirest.get(testHostUrl + "/jwks")
+                .header("If-None-Match", etag)
+                .asString()
+                .getStatus())
+        .isEqualTo(HttpStatus.SC_NOT_MODIFIED);
+  }
+
+  @Test
+  void retrieveJwk_etagShouldDifferPerKey() throws UnirestException {
+    assertThat(
+            Unirest.get(testHostUrl + KeyInformationController.PUK_URI_SIG)
+                .asString()
+                .getHeaders()
+                .getFirst("ETag"))
+        .isNotEqualTo(
+            Unirest.get(testHostUrl + KeyInformationController.PUK_URI_ENC)
+                .asString()
+                .getHeaders()
+                .getFirst("ETag"));
+  }
+
   private JsonWebKeySet constructKeySetFromJwkBody(final HttpResponse<String> jwks)
       throws JoseException {
     final JsonWebKeySet keySet = new JsonWebKeySet("{\"keys\" : [" + jwks.getBody() + "]}");
@@ -0,0 +1,113 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.idp.IdpConstants;
+import de.gematik.idp.TestConstants;
+import de.gematik.idp.client.IdpClient;
+import de.gematik.idp.client.IdpTokenResult;
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.tests.PkiKeyResolver;
+import de.gematik.idp.tests.PkiKeyResolver.Filename;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Complete logins fired all at once against the embedded server. Only runs when {@code
+ * idp.loadtest.logins} is set. Run it once per threading mode and compare the logged throughput,
+ * e.g. {@code mvn test -pl idp-server -Dtest=LoginLoadTest -Didp.loadtest.logins=5000
+ * -Dspring.threads.virtual.enabled=true}. Admission control is switched off, it would reject most
+ * of the burst by design.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@ExtendWith(PkiKeyResolver.class)
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "server.tomcat.max-connections=10000",
+      "server.tomcat.accept-count=10000",
+      "idp.admissionControl.enabled=false"
+    })
+@EnabledIfSystemProperty(named = "idp.loadtest.logins", matches = "\\d+")
+class LoginLoadTest {
+
+  @LocalServerPort private int localServerPort;
+
+  @Value("${spring.threads.virtual.enabled:false}")
+  private boolean virtualThreads;
+
+  private IdpClient idpClient;
+  private PkiIdentity egkIdentity;
+
+  @BeforeEach
+  void startup(@Filename("109500969_X114428530-2_c.ch.aut-ecc") final PkiIdentity egkIdentity) {
+    idpClient =
+        IdpClient.builder()
+            .clientId(TestConstants.CLIENT_ID_E_REZEPT_APP)
+            .discoveryDocumentUrl(
+                "http://localhost:" + localServerPort + IdpConstants.DISCOVERY_DOCUMENT_ENDPOINT)
+            .redirectUrl(TestConstants.REDIRECT_URI_E_REZEPT_APP)
+            .build();
+    idpClient.initialize();
+    this.egkIdentity = egkIdentity;
+  }
+
+  @Test
+  void concurrentLoginsShouldAllSucceed() {
+    final int logins = Integer.getInteger("idp.loadtest.logins");
+    idpClient.login(egkIdentity);
+
+    final long start = System.nanoTime();
+    final List<IdpTokenResult> results;
+    try (final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      final List<CompletableFuture<IdpTokenResult>> futures =
+          IntStream.range(0, logins)
+              .mapToObj(
+                  i -> CompletableFuture.supplyAsync(() -> idpClient.login(egkIdentity), clients))
+              .toList();
+      results = futures.stream().map(CompletableFuture::join).toList();
+    }
+    final long duration = System.nanoTime() - start;
+
+    log.info(
+        "{} concurrent logins on {} threads in {} ms ({} logins/s)",
+        logins,
+        virtualThreads ? "virtual" : "platform",
+        duration / 1_000_000,
+        logins * 1_000_000_000L / Math.max(duration, 1));
+    assertThat(results).hasSize(logins).allMatch(result -> result.getAccessToken() != null);
+  }
+}
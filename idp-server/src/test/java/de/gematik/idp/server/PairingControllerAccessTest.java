@@ -49,6 +49,7 @@ import de.gematik.idp.server.data.DeviceType;
 import de.gematik.idp.server.data.RegistrationData;
 import de.gematik.idp.server.devicevalidation.DeviceValidationData;
 import de.gematik.idp.server.devicevalidation.DeviceValidationRepository;
+import de.gematik.idp.server.pairing.PairingCache;
 import de.gematik.idp.server.pairing.PairingRepository;
 import de.gematik.idp.server.services.PairingService;
 import de.gematik.idp.tests.PkiKeyResolver;
@@ -88,6 +89,7 @@ class PairingControllerAccessTest {
   @Autowired private IdpKey idpEnc;
   @Autowired private PairingService pairingService;
   @Autowired private PairingRepository pairingRepository;
+  @Autowired private PairingCache pairingCache;
   @Autowired private DeviceValidationRepository deviceValidationRepository;
   @LocalServerPort private int localServerPort;
   private IdpClient idpClient;
@@ -123,6 +125,7 @@ class PairingControllerAccessTest {
   @AfterEach
   public void cleanUp() {
     pairingRepository.deleteAll();
+    pairingCache.clear();
     deviceValidationRepository.deleteAll();
   }
 
@@ -311,6 +314,85 @@ class PairingControllerAccessTest {
     assertThat(httpResponse.getStatus()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR.value());
   }
 
+  @Test
+  void listPairings_pageSizeGiven_expectKeysetPages()
+      throws UnirestException, CertificateEncodingException {
+    idpClient.setScopes(Set.of(OPENID, PAIRING));
+    accessToken = idpClient.login(egkUserIdentity).getAccessToken();
+    registerPairing("key-1");
+    registerPairing("key-2");
+    registerPairing("key-3");
+
+    final JsonNode firstPage =
+        Unirest.get("http://localhost:" + localServerPort + IdpConstants.PAIRING_ENDPOINT)
+            .queryString("page_size", 2)
+            .header(HttpHeaders.AUTHORIZATION, buildAccessTokenString())
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .asJson()
+            .getBody();
+    assertThat(firstPage.getObject().getJSONArray("pairing_entries").length()).isEqualTo(2);
+
+    final JsonNode secondPage =
+        Unirest.get("http://localhost:" + localServerPort + IdpConstants.PAIRING_ENDPOINT)
+            .queryString("page_size", 2)
+            .queryString("page_token", firstPage.getObject().getString("next_page_token"))
+            .header(HttpHeaders.AUTHORIZATION, buildAccessTokenString())
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .asJson()
+            .getBody();
+    assertThat(secondPage.getObject().getJSONArray("pairing_entries").length()).isEqualTo(1);
+    assertThat(secondPage.getObject().has("next_page_token")).isFalse();
+  }
+
+  @Test
+  void listPairings_pageSizeTooLarge_expect400() throws UnirestException {
+    idpClient.setScopes(Set.of(OPENID, PAIRING));
+    accessToken = idpClient.login(egkUserIdentity).getAccessToken();
+
+    assertThat(
+            Unirest.get("http://localhost:" + localServerPort + IdpConstants.PAIRING_ENDPOINT)
+                .queryString("page_size", PairingService.MAX_PAGE_SIZE + 1)
+                .header(HttpHeaders.AUTHORIZATION, buildAccessTokenString())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .asString()
+                .getStatus())
+        .isEqualTo(HttpStatus.BAD_REQUEST.value());
+  }
+
+  @Test
+  void streamPairings_correctToken_expectOneLinePerPairing()
+      throws UnirestException, CertificateEncodingException {
+    idpClient.setScopes(Set.of(OPENID, PAIRING));
+    accessToken = idpClient.login(egkUserIdentity).getAccessToken();
+    registerPairing("key-1");
+    registerPairing("key-2");
+
+    final HttpResponse<String> httpResponse =
+        Unirest.get("http://localhost:" + localServerPort + IdpConstants.PAIRING_ENDPOINT)
+            .queryString("stream", true)
+            .header(HttpHeaders.AUTHORIZATION, buildAccessTokenString())
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE)
+            .asString();
+
+    assertThat(httpResponse.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(httpResponse.getBody().lines().filter(line -> !line.isBlank()).count())
+        .isEqualTo(2);
+  }
+
+  private void registerPairing(final String keyIdentifier) throws CertificateEncodingException {
+    assertThat(
+            Unirest.post("http://localhost:" + localServerPort + IdpConstants.PAIRING_ENDPOINT)
+                .field(
+                    "encrypted_registration_data",
+                    createIdpJweFromRegistrationData(createValidRegistrationData(keyIdentifier)))
+                .header(HttpHeaders.AUTHORIZATION, buildAccessTokenString())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                .asString()
+                .getStatus())
+        .isEqualTo(HttpStatus.OK.value());
+  }
+
   private String createIdpJweFromRegistrationData(final RegistrationData registrationData) {
     return IdpJwe.createWithPayloadAndEncryptWithKey(
             registrationData.toJSONString(),
@@ -0,0 +1,98 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.zaxxer.hikari.HikariDataSource;
+import de.gematik.idp.server.ReadWriteRoutingDataSource.Route;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpPersistenceConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class PersistenceConfigurationTest {
+
+  private ReadWriteRoutingDataSource routingDataSource;
+
+  @BeforeEach
+  void init() {
+    final MockEnvironment environment =
+        new MockEnvironment()
+            .withProperty("spring.datasource.url", "jdbc:h2:mem:primary")
+            .withProperty("spring.datasource.username", "idp")
+            .withProperty("spring.datasource.password", "secret");
+    final IdpConfiguration idpConfiguration =
+        IdpConfiguration.builder()
+            .persistence(
+                IdpPersistenceConfiguration.builder()
+                    .readReplicaUrl("jdbc:h2:mem:replica")
+                    .readReplicaUsername("")
+                    .readReplicaPassword("")
+                    .build())
+            .build();
+    routingDataSource =
+        new PersistenceConfiguration(environment, idpConfiguration).readWriteRoutingDataSource();
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReadWriteRoutingDataSource.disallowReadReplica();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    routingDataSource.close();
+  }
+
+  @Test
+  void replicaWithoutCredentialsShouldUseThePrimaryCredentials() {
+    final HikariDataSource readDataSource =
+        (HikariDataSource) routingDataSource.getResolvedDataSources().get(Route.READ);
+
+    assertThat(readDataSource.getJdbcUrl()).isEqualTo("jdbc:h2:mem:replica");
+    assertThat(readDataSource.getUsername()).isEqualTo("idp");
+    assertThat(readDataSource.getPassword()).isEqualTo("secret");
+    assertThat(readDataSource.isReadOnly()).isTrue();
+  }
+
+  @Test
+  void readOnlyTransactionShouldStayOnThePrimaryWithoutOptIn() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(Route.WRITE);
+  }
+
+  @Test
+  void readOnlyTransactionShouldUseTheReplicaAfterOptIn() {
+    ReadWriteRoutingDataSource.allowReadReplica();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(Route.READ);
+  }
+
+  @Test
+  void writeTransactionShouldUseThePrimaryAfterOptIn() {
+    ReadWriteRoutingDataSource.allowReadReplica();
+
+    assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(Route.WRITE);
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.idp.server.admission.AdaptiveBulkhead.Permit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class AdaptiveBulkheadTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void requestBeyondLimitShouldBeRejectedWhenQueueIsFull() {
+    final AdaptiveBulkhead bulkhead = createBulkhead(2, 0, Duration.ofSeconds(1), null);
+
+    assertThat(bulkhead.tryAcquire()).isPresent();
+    assertThat(bulkhead.tryAcquire()).isPresent();
+    assertThat(bulkhead.tryAcquire()).isEmpty();
+    assertThat(rejected("full")).isEqualTo(1);
+  }
+
+  @Test
+  void queuedRequestShouldBeRejectedAfterMaxWait() {
+    final AdaptiveBulkhead bulkhead = createBulkhead(1, 1, Duration.ofMillis(10), null);
+    assertThat(bulkhead.tryAcquire()).isPresent();
+
+    assertThat(bulkhead.tryAcquire()).isEmpty();
+    assertThat(rejected("timeout")).isEqualTo(1);
+    assertThat(meterRegistry.get(AdaptiveBulkhead.QUEUED_METER).counter().count()).isEqualTo(1);
+    assertThat(bulkhead.getQueued()).isZero();
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  void queuedRequestShouldBeAdmittedOnceAPermitIsReleased() throws InterruptedException {
+    final AdaptiveBulkhead bulkhead = createBulkhead(1, 1, Duration.ofSeconds(10), null);
+    final Permit permit = bulkhead.tryAcquire().orElseThrow();
+
+    final CompletableFuture<Optional<Permit>> queued =
+        CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+    while (bulkhead.getQueued() == 0) {
+      Thread.sleep(1);
+    }
+    permit.close();
+
+    assertThat(queued.join()).isPresent();
+    assertThat(bulkhead.getInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  void newRequestShouldNotOvertakeQueuedRequest() throws InterruptedException {
+    final AdaptiveBulkhead bulkhead = createBulkhead(1, 1, Duration.ofSeconds(1), null);
+    final Permit permit = bulkhead.tryAcquire().orElseThrow();
+    final CompletableFuture<Optional<Permit>> queued =
+        CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+    while (bulkhead.getQueued() == 0) {
+      Thread.sleep(1);
+    }
+
+    permit.close();
+
+    assertThat(bulkhead.tryAcquire()).isEmpty();
+    assertThat(queued.join()).isPresent();
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  void queuedRequestsShouldBeAdmittedInArrivalOrder() throws InterruptedException {
+    final AdaptiveBulkhead bulkhead = createBulkhead(2, 2, Duration.ofSeconds(10), null);
+    final Permit first = bulkhead.tryAcquire().orElseThrow();
+    final Permit second = bulkhead.tryAcquire().orElseThrow();
+    final CompletableFuture<Optional<Permit>> queuedFirst =
+        CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+    while (bulkhead.getQueued() == 0) {
+      Thread.sleep(1);
+    }
+    final CompletableFuture<Optional<Permit>> queuedSecond =
+        CompletableFuture.supplyAsync(bulkhead::tryAcquire);
+    while (bulkhead.getQueued() == 1) {
+      Thread.sleep(1);
+    }
+
+    first.close();
+
+    assertThat(queuedFirst.join()).isPresent();
+    assertThat(queuedSecond).isNotDone();
+    second.close();
+    assertThat(queuedSecond.join()).isPresent();
+  }
+
+  @Test
+  void closingPermitTwiceShouldReleaseOnce() {
+    final AdaptiveBulkhead bulkhead = createBulkhead(2, 0, Duration.ofSeconds(1), clock::get);
+    final Permit permit = bulkhead.tryAcquire().orElseThrow();
+    bulkhead.tryAcquire().orElseThrow();
+
+    permit.close();
+    permit.close();
+
+    assertThat(bulkhead.getInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  void limitShouldGrowWhileLatencyIsStable() {
+    final AdaptiveBulkhead bulkhead = createBulkhead(10, 0, Duration.ZERO, clock::get);
+
+    IntStream.range(0, 5).forEach(i -> runRound(bulkhead, Duration.ofMillis(10)));
+
+    assertThat(bulkhead.getLimit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+  }
+
+  @Test
+  void limitShouldShrinkWhenLatencyRises() {
+    final AdaptiveBulkhead bulkhead = createBulkhead(20, 0, Duration.ZERO, clock::get);
+    IntStream.range(0, 5).forEach(i -> runRound(bulkhead, Duration.ofMillis(10)));
+    final int stableLimit = bulkhead.getLimit();
+
+    runRound(bulkhead, Duration.ofMillis(100));
+
+    assertThat(bulkhead.getLimit()).isLessThan(stableLimit / 2).isGreaterThanOrEqualTo(2);
+    assertThat(meterRegistry.get(AdaptiveBulkhead.LIMIT_METER).gauge().value())
+        .isEqualTo(bulkhead.getLimit());
+  }
+
+  private void runRound(final AdaptiveBulkhead bulkhead, final Duration latency) {
+    final List<Permit> permits =
+        IntStream.range(0, bulkhead.getLimit())
+            .mapToObj(i -> bulkhead.tryAcquire().orElseThrow())
+            .toList();
+    clock.addAndGet(latency.toNanos());
+    permits.forEach(Permit::close);
+  }
+
+  private AdaptiveBulkhead createBulkhead(
+      final int initialLimit,
+      final int maxQueue,
+      final Duration maxWait,
+      final LongSupplier nanoClock) {
+    return AdaptiveBulkhead.builder()
+        .name("test")
+        .initialLimit(initialLimit)
+        .minLimit(1)
+        .maxLimit(100)
+        .maxQueue(maxQueue)
+        .maxWait(maxWait)
+        .latencyTolerance(2.0)
+        .meterRegistry(meterRegistry)
+        .nanoClock(nanoClock)
+        .build();
+  }
+
+  private double rejected(final String reason) {
+    return meterRegistry
+        .get(AdaptiveBulkhead.REJECTED_METER)
+        .tag("reason", reason)
+        .counter()
+        .count();
+  }
+}
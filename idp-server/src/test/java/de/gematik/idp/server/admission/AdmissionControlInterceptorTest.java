@@ -0,0 +1,119 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import de.gematik.idp.IdpConstants;
+import de.gematik.idp.TestConstants;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.exceptions.IdpServerOverloadedException;
+import de.gematik.idp.server.services.TokenService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import kong.unirest.core.HttpResponse;
+import kong.unirest.core.JsonNode;
+import kong.unirest.core.Unirest;
+import kong.unirest.core.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "idp.admissionControl.enabled=true",
+      "idp.admissionControl.bulkheads.token.initialLimit=1",
+      "idp.admissionControl.bulkheads.token.minLimit=1",
+      "idp.admissionControl.bulkheads.token.maxLimit=1",
+      "idp.admissionControl.bulkheads.token.maxQueue=0"
+    })
+class AdmissionControlInterceptorTest {
+
+  @LocalServerPort private int port;
+  @Autowired private IdpConfiguration idpConfiguration;
+  @MockitoBean private TokenService tokenService;
+  private final CountDownLatch requestStarted = new CountDownLatch(1);
+  private final CountDownLatch requestReleased = new CountDownLatch(1);
+  private Integer rejectionStatus;
+
+  @BeforeEach
+  void init() {
+    rejectionStatus = idpConfiguration.getAdmissionControl().getRejectionStatus();
+    Unirest.config().reset();
+    Unirest.config().followRedirects(false);
+    when(tokenService.getTokenResponse(any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              requestStarted.countDown();
+              requestReleased.await();
+              return null;
+            });
+  }
+
+  @AfterEach
+  void tearDown() {
+    requestReleased.countDown();
+    idpConfiguration.getAdmissionControl().setRejectionStatus(rejectionStatus);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {503, 429})
+  void requestBeyondLimitShouldBeRejectedInIdpErrorFormat(final int status) throws Exception {
+    idpConfiguration.getAdmissionControl().setRejectionStatus(status);
+    final CompletableFuture<HttpResponse<JsonNode>> admitted =
+        CompletableFuture.supplyAsync(this::requestTokens);
+    assertThat(requestStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    final HttpResponse<JsonNode> rejected = requestTokens();
+    requestReleased.countDown();
+
+    final JSONObject errorObject = rejected.getBody().getObject();
+    assertThat(rejected.getStatus()).isEqualTo(status);
+    assertThat(errorObject.getString("error")).isEqualTo("temporarily_unavailable");
+    assertThat(errorObject.getString("gematik_code"))
+        .isEqualTo(String.valueOf(IdpServerOverloadedException.ERROR_ID_OVERLOADED));
+    assertThat(errorObject.get("gematik_uuid")).isNotNull();
+    assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    assertThat(admitted.join().getStatus()).isEqualTo(200);
+  }
+
+  private HttpResponse<JsonNode> requestTokens() {
+    return Unirest.post("http://localhost:" + port + IdpConstants.TOKEN_ENDPOINT)
+        .field("code", "code")
+        .field("key_verifier", "key_verifier")
+        .field("grant_type", "authorization_code")
+        .field("redirect_uri", TestConstants.REDIRECT_URI_E_REZEPT_APP)
+        .field("client_id", TestConstants.CLIENT_ID_E_REZEPT_APP)
+        .accept(MediaType.APPLICATION_JSON.toString())
+        .asJson();
+  }
+}
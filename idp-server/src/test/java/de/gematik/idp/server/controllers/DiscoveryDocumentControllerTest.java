@@ -20,20 +20,25 @@
 
 package de.gematik.idp.server.controllers;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import de.gematik.idp.authentication.IdpJwtProcessor;
 import de.gematik.idp.crypto.CryptoLoader;
 import de.gematik.idp.crypto.model.PkiIdentity;
 import de.gematik.idp.data.IdpDiscoveryDocument;
 import de.gematik.idp.server.ServerUrlService;
+import de.gematik.idp.server.configuration.IdpConfiguration;
 import de.gematik.idp.server.exceptions.IdpServerException;
 import de.gematik.idp.server.services.DiscoveryDocumentBuilder;
+import de.gematik.idp.server.services.DiscoveryDocumentService;
 import de.gematik.idp.server.services.ScopeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.File;
@@ -45,24 +50,28 @@ import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.json.JsonMapper;
 
 @ExtendWith(MockitoExtension.class)
 class DiscoveryDocumentControllerTest {
 
-  @InjectMocks private DiscoveryDocumentController controller;
+  private DiscoveryDocumentController controller;
+  private DiscoveryDocumentService discoveryDocumentService;
 
   @Mock private ScopeService scopeService;
 
-  @Mock private IdpJwtProcessor jwtProcessor;
-
   @Mock private ServerUrlService serverUrlService;
 
+  @Mock private IdpConfiguration idpConfiguration;
+
   @Mock private IdpKey discSig;
   @Mock private DiscoveryDocumentBuilder discoveryDocumentBuilder;
 
@@ -76,7 +85,17 @@ class DiscoveryDocumentControllerTest {
 
     when(discSig.getIdentity()).thenReturn(identity);
     when(discSig.getKeyId()).thenReturn(Optional.of("kid"));
-    controller.setUp();
+    discoveryDocumentService =
+        new DiscoveryDocumentService(
+            discSig,
+            serverUrlService,
+            discoveryDocumentBuilder,
+            scopeService,
+            "fedAuthEndpoint",
+            idpConfiguration,
+            new SimpleMeterRegistry());
+    discoveryDocumentService.setUp();
+    controller = new DiscoveryDocumentController(serverUrlService, discoveryDocumentService, null);
   }
 
   @Test
@@ -90,6 +109,7 @@ class DiscoveryDocumentControllerTest {
     when(discoveryDocumentBuilder.buildDiscoveryDocument(any(), any(), any(), any()))
         .thenReturn(discoveryDoc);
     when(scopeService.getScopes()).thenReturn(new HashSet<>(List.of("openid", "profile")));
+    when(serverUrlService.determineServerUrl(any())).thenReturn("http://localhost:8080");
 
     try (final MockedStatic<JsonMapper> jsonMapperMock = mockStatic(JsonMapper.class)) {
       final JsonMapper.Builder builder = mock(JsonMapper.Builder.class);
@@ -106,4 +126,68 @@ class DiscoveryDocumentControllerTest {
           .hasCauseInstanceOf(JacksonException.class);
     }
   }
+
+  @Test
+  void shouldServeCachedDocumentAndAnswerConditionalRequest() {
+    when(discoveryDocumentBuilder.buildDiscoveryDocument(any(), any(), any(), any()))
+        .thenReturn(
+            new DiscoveryDocumentBuilder()
+                .buildDiscoveryDocument(
+                    "http://localhost:8080", "issuer", new String[] {"openid"}, "fed"));
+    when(scopeService.getScopes()).thenReturn(new HashSet<>(List.of("openid")));
+    when(serverUrlService.determineServerUrl(any())).thenReturn("http://localhost:8080");
+
+    final MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+    final String firstDocument =
+        controller.getDiscoveryDocument(new MockHttpServletRequest("GET", "/"), firstResponse);
+    final String secondDocument =
+        controller.getDiscoveryDocument(
+            new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse());
+
+    assertThat(secondDocument).isSameAs(firstDocument);
+    verify(discoveryDocumentBuilder, times(1)).buildDiscoveryDocument(any(), any(), any(), any());
+
+    final String etag = firstResponse.getHeader(HttpHeaders.ETAG);
+    assertThat(etag).startsWith("\"");
+    final MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/");
+    conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    final MockHttpServletResponse conditionalResponse = new MockHttpServletResponse();
+
+    assertThat(controller.getDiscoveryDocument(conditionalRequest, conditionalResponse)).isNull();
+    assertThat(conditionalResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+  }
+
+  @Test
+  void shouldOnlyResignRequestedDocuments() {
+    when(discoveryDocumentBuilder.buildDiscoveryDocument(any(), any(), any(), any()))
+        .thenReturn(
+            new DiscoveryDocumentBuilder()
+                .buildDiscoveryDocument(
+                    "http://localhost:8080", "issuer", new String[] {"openid"}, "fed"));
+    when(scopeService.getScopes()).thenReturn(new HashSet<>(List.of("openid")));
+
+    discoveryDocumentService.getSignedDiscoveryDocument("http://localhost:8080");
+    discoveryDocumentService.refreshSignedDiscoveryDocuments();
+    assertThat(discoveryDocumentService.size()).isEqualTo(1);
+
+    discoveryDocumentService.refreshSignedDiscoveryDocuments();
+    assertThat(discoveryDocumentService.size()).isZero();
+    verify(discoveryDocumentBuilder, times(2)).buildDiscoveryDocument(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldBoundNumberOfCachedDocuments() {
+    when(discoveryDocumentBuilder.buildDiscoveryDocument(any(), any(), any(), any()))
+        .thenReturn(
+            new DiscoveryDocumentBuilder()
+                .buildDiscoveryDocument(
+                    "http://localhost:8080", "issuer", new String[] {"openid"}, "fed"));
+    when(scopeService.getScopes()).thenReturn(new HashSet<>(List.of("openid")));
+
+    for (int i = 0; i < DiscoveryDocumentService.MAX_DOCUMENTS + 10; i++) {
+      discoveryDocumentService.getSignedDiscoveryDocument("http://host-" + i);
+    }
+
+    assertThat(discoveryDocumentService.size()).isEqualTo(DiscoveryDocumentService.MAX_DOCUMENTS);
+  }
 }
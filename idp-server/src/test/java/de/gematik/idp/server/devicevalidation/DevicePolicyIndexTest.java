@@ -0,0 +1,150 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.devicevalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DevicePolicyIndexTest {
+
+  private static DeviceValidationData rule(
+      final String manufacturer,
+      final String model,
+      final String osVersion,
+      final DeviceValidationState state) {
+    return DeviceValidationData.builder()
+        .manufacturer(manufacturer)
+        .product("product")
+        .model(model)
+        .os("Android")
+        .osVersion(osVersion)
+        .state(state)
+        .build();
+  }
+
+  private static DeviceKey device(
+      final String manufacturer, final String model, final String osVersion) {
+    return new DeviceKey(manufacturer, "product", model, "Android", osVersion);
+  }
+
+  @Test
+  void exactRuleShouldMatchOnlyItsDevice() {
+    final DevicePolicyIndex index =
+        DevicePolicyIndex.of(List.of(rule("Samsung", "S8", "11.0.0", DeviceValidationState.ALLOW)));
+
+    assertThat(index.getState(device("Samsung", "S8", "11.0.0")))
+        .isEqualTo(DeviceValidationState.ALLOW);
+    assertThat(index.getState(device("Samsung", "S8", "11.0.1")))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+  }
+
+  @Test
+  void versionRangeShouldRespectBounds() {
+    final DevicePolicyIndex index =
+        DevicePolicyIndex.of(
+            List.of(rule("Google", "Pixel 2", "[10.0.0,12.0.0)", DeviceValidationState.BLOCK)));
+
+    assertThat(index.getState(device("Google", "Pixel 2", "9.9")))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+    assertThat(index.getState(device("Google", "Pixel 2", "10")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(index.getState(device("Google", "Pixel 2", "11.10.2")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(index.getState(device("Google", "Pixel 2", "12.0.0")))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+  }
+
+  @Test
+  void wildcardsShouldMatchAnyValue() {
+    final DevicePolicyIndex index =
+        DevicePolicyIndex.of(
+            List.of(
+                rule("Apple", "*", "6.*", DeviceValidationState.BLOCK),
+                rule("*", "*", "[14,)", DeviceValidationState.ALLOW)));
+
+    assertThat(index.getState(device("Apple", "iPhone 3G", "6.1.6")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(index.getState(device("Apple", "iPhone Xs", "14.4.2")))
+        .isEqualTo(DeviceValidationState.ALLOW);
+    assertThat(index.getState(device("Apple", "iPhone Xs", "13")))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+  }
+
+  @Test
+  void blockShouldWinOverAllow() {
+    final DevicePolicyIndex index =
+        DevicePolicyIndex.of(
+            List.of(
+                rule("Samsung", "S8", "11.0.0", DeviceValidationState.ALLOW),
+                rule("Samsung", "*", "*", DeviceValidationState.BLOCK)));
+
+    assertThat(index.getState(device("Samsung", "S8", "11.0.0")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+  }
+
+  @Test
+  void invalidRulesShouldBeIgnored() {
+    final DevicePolicyIndex index =
+        DevicePolicyIndex.of(
+            List.of(
+                rule("Samsung", "S8", "[12,10]", DeviceValidationState.BLOCK),
+                rule("Samsung", "S9", "11", DeviceValidationState.UNKNOWN)));
+
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void malformedRangeShouldBeRejected() {
+    assertThatThrownBy(() -> VersionPattern.compile("[1,2,3]"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> VersionPattern.compile(" "))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void manyRulesShouldBeIndexed() {
+    final List<DeviceValidationData> rules = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      rules.add(
+          rule(
+              "manufacturer" + (i % 100),
+              "model" + i,
+              i % 2 == 0 ? "1." + i : "[" + i + ",)",
+              i % 3 == 0 ? DeviceValidationState.BLOCK : DeviceValidationState.ALLOW));
+    }
+
+    final DevicePolicyIndex index = DevicePolicyIndex.of(rules);
+
+    assertThat(index.size()).isEqualTo(100_000);
+    assertThat(index.getState(device("manufacturer42", "model99942", "1.99942")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(index.getState(device("manufacturer43", "model99943", "100000")))
+        .isEqualTo(DeviceValidationState.ALLOW);
+    assertThat(index.getState(device("manufacturer3", "model3", "4")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(index.getState(device("manufacturer3", "model3", "2")))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pairing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpPairingCacheConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PairingCacheTest {
+
+  private static final String ID_NUMBER = "X114428530";
+  private static final String KEY_IDENTIFIER = "key-1";
+
+  private PairingRepository pairingRepository;
+  private PairingData pairingData;
+
+  @BeforeEach
+  void init() {
+    pairingRepository = mock(PairingRepository.class);
+    pairingData =
+        PairingData.builder()
+            .idNumber(ID_NUMBER)
+            .keyIdentifier(KEY_IDENTIFIER)
+            .deviceName("device")
+            .signedPairingData("signed")
+            .timestampPairing(ZonedDateTime.now())
+            .build();
+    when(pairingRepository.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER))
+        .thenReturn(Optional.of(pairingData));
+  }
+
+  private PairingCache createCache(final Duration ttl) {
+    final PairingCache pairingCache =
+        new PairingCache(
+            pairingRepository,
+            IdpConfiguration.builder()
+                .pairingCache(
+                    IdpPairingCacheConfiguration.builder().maxEntries(10).ttl(ttl).build())
+                .build(),
+            new SimpleMeterRegistry());
+    pairingCache.setUp();
+    return pairingCache;
+  }
+
+  @Test
+  void secondLookupShouldBeServedFromCache() {
+    final PairingCache pairingCache = createCache(Duration.ofMinutes(1));
+
+    assertThat(pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER))
+        .contains(pairingData);
+    assertThat(pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER))
+        .contains(pairingData);
+
+    verify(pairingRepository, times(1)).findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+  }
+
+  @Test
+  void missingPairingShouldNotBeCached() {
+    final PairingCache pairingCache = createCache(Duration.ofMinutes(1));
+
+    assertThat(pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, "unknown")).isEmpty();
+    assertThat(pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, "unknown")).isEmpty();
+
+    verify(pairingRepository, times(2)).findByIdNumberAndKeyIdentifier(ID_NUMBER, "unknown");
+    assertThat(pairingCache.size()).isZero();
+  }
+
+  @Test
+  void invalidateShouldEvictPairing() {
+    final PairingCache pairingCache = createCache(Duration.ofMinutes(1));
+    pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+
+    pairingCache.invalidate(ID_NUMBER, KEY_IDENTIFIER);
+    pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+
+    verify(pairingRepository, times(2)).findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+  }
+
+  @Test
+  void invalidateAllShouldEvictPairingsOfIdNumber() {
+    final PairingCache pairingCache = createCache(Duration.ofMinutes(1));
+    pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+
+    pairingCache.invalidateAll(ID_NUMBER);
+
+    assertThat(pairingCache.size()).isZero();
+  }
+
+  @Test
+  void expiredPairingShouldBeLoadedAgain() {
+    final PairingCache pairingCache = createCache(Duration.ZERO);
+
+    pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+    pairingCache.findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+
+    verify(pairingRepository, times(2)).findByIdNumberAndKeyIdentifier(ID_NUMBER, KEY_IDENTIFIER);
+  }
+}
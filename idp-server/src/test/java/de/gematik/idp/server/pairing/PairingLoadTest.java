@@ -0,0 +1,226 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pairing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mysql.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Pairing lookups with the "persistent" profile against a MySQL container, i.e. with the read/write
+ * routing data source, the Hikari settings of that profile (auto-commit off) and the Liquibase
+ * schema. The table is filled with {@code idp.loadtest.rows} rows, every id number gets {@link
+ * #PAIRINGS_PER_ID_NUMBER} pairings. Only runs when the property is set and Docker is available,
+ * e.g. {@code mvn test -pl idp-server -Dtest=PairingLoadTest -Didp.loadtest.rows=10000000}. {@code
+ * idp.loadtest.threads} (default 16) lookups run concurrently; throughput and latency percentiles
+ * are logged, the test only asserts that every lookup finds its pairings.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("persistent")
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "idp.loadtest.rows", matches = "\\d+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PairingLoadTest {
+
+  private static final int PAIRINGS_PER_ID_NUMBER = 2;
+  private static final int INSERT_BATCH_SIZE = 10_000;
+  private static final int LOOKUPS = 200_000;
+  private static final int DEFAULT_THREADS = 16;
+
+  @Container
+  private static final MySQLContainer MYSQL =
+      new MySQLContainer(DockerImageName.parse("mysql:9.7.0")).withDatabaseName("IDP");
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PairingRepository pairingRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private int idNumbers;
+
+  @DynamicPropertySource
+  static void mysqlProperties(final DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+    registry.add("spring.datasource.username", MYSQL::getUsername);
+    registry.add("spring.datasource.password", MYSQL::getPassword);
+  }
+
+  @BeforeAll
+  void fillPairingTable() {
+    final int rows = Integer.getInteger("idp.loadtest.rows");
+    idNumbers = rows / PAIRINGS_PER_ID_NUMBER;
+    jdbcTemplate.execute("TRUNCATE TABLE IDP.pairing");
+
+    final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    final long start = System.nanoTime();
+    final List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+    for (int row = 0; row < idNumbers * PAIRINGS_PER_ID_NUMBER; row++) {
+      batch.add(
+          new Object[] {
+            idNumber(row / PAIRINGS_PER_ID_NUMBER),
+            keyIdentifier(row % PAIRINGS_PER_ID_NUMBER),
+            "device",
+            "signed_pairing_data",
+            now
+          });
+      if (batch.size() == INSERT_BATCH_SIZE) {
+        insert(transaction, batch);
+      }
+    }
+    insert(transaction, batch);
+    final long duration = System.nanoTime() - start;
+    log.info(
+        "insert: {} rows in {} ms ({} rows/s)",
+        idNumbers * PAIRINGS_PER_ID_NUMBER,
+        duration / 1_000_000,
+        idNumbers * PAIRINGS_PER_ID_NUMBER * 1_000_000_000L / Math.max(duration, 1));
+  }
+
+  @Test
+  void lookupByIdNumberAndKeyIdentifier() {
+    final long found =
+        runLookups(
+            "findByIdNumberAndKeyIdentifier",
+            i ->
+                pairingRepository
+                    .findByIdNumberAndKeyIdentifier(
+                        idNumber(ThreadLocalRandom.current().nextInt(idNumbers)),
+                        keyIdentifier(i % PAIRINGS_PER_ID_NUMBER))
+                    .isPresent());
+
+    assertThat(found).isEqualTo(LOOKUPS);
+  }
+
+  @Test
+  void pairingListInReadOnlyTransaction() {
+    final TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    final long complete =
+        runLookups("findByIdNumber", i -> countPairings(readOnly) == PAIRINGS_PER_ID_NUMBER);
+
+    assertThat(complete).isEqualTo(LOOKUPS);
+  }
+
+  /**
+   * Runs {@link #LOOKUPS} lookups on {@code idp.loadtest.threads} threads and logs throughput and
+   * latency percentiles.
+   *
+   * @return number of lookups that succeeded
+   */
+  @SneakyThrows
+  private long runLookups(final String operation, final IntPredicate lookup) {
+    final int threads = Integer.getInteger("idp.loadtest.threads", DEFAULT_THREADS);
+    final long[] latencies = new long[LOOKUPS];
+    final long start = System.nanoTime();
+    final List<Future<Long>> results;
+    try (final ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+      results =
+          executor.invokeAll(
+              IntStream.range(0, threads)
+                  .<Callable<Long>>mapToObj(
+                      thread ->
+                          () -> {
+                            long succeeded = 0;
+                            for (int i = thread; i < LOOKUPS; i += threads) {
+                              final long lookupStart = System.nanoTime();
+                              if (lookup.test(i)) {
+                                succeeded++;
+                              }
+                              latencies[i] = System.nanoTime() - lookupStart;
+                            }
+                            return succeeded;
+                          })
+                  .toList());
+    }
+    final long duration = System.nanoTime() - start;
+    long succeeded = 0;
+    for (final Future<Long> result : results) {
+      succeeded += result.get();
+    }
+
+    Arrays.sort(latencies);
+    log.info(
+        "{}: {} lookups on {} threads in {} ms ({} ops/s), p50 {} µs, p99 {} µs, max {} µs",
+        operation,
+        LOOKUPS,
+        threads,
+        duration / 1_000_000,
+        LOOKUPS * 1_000_000_000L / Math.max(duration, 1),
+        latencies[LOOKUPS / 2] / 1_000,
+        latencies[LOOKUPS * 99 / 100] / 1_000,
+        latencies[LOOKUPS - 1] / 1_000);
+    return succeeded;
+  }
+
+  private int countPairings(final TransactionTemplate readOnly) {
+    final String idNumber = idNumber(ThreadLocalRandom.current().nextInt(idNumbers));
+    return readOnly.execute(status -> pairingRepository.findByIdNumber(idNumber).size());
+  }
+
+  /** Auto-commit is off in the persistent profile, so every batch gets its own transaction. */
+  private void insert(final TransactionTemplate transaction, final List<Object[]> batch) {
+    transaction.executeWithoutResult(
+        status ->
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO IDP.pairing (id_number, key_identifier, device_name,"
+                    + " signed_pairing_data, timestamp_pairing) VALUES (?, ?, ?, ?, ?)",
+                batch));
+    batch.clear();
+  }
+
+  private static String idNumber(final int index) {
+    return String.format("X%09d", index);
+  }
+
+  private static String keyIdentifier(final int index) {
+    return "key-" + index;
+  }
+}
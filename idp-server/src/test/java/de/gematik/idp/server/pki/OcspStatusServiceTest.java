@@ -0,0 +1,338 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import de.gematik.idp.crypto.SecureRandomProvider;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpOcspConfiguration;
+import de.gematik.idp.server.exceptions.OcspCheckException;
+import de.gematik.idp.server.pki.OcspStatusService.CertificateStatus;
+import de.gematik.idp.server.pki.OcspStatusService.Status;
+import de.gematik.idp.tests.OcspResponderStandIn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class OcspStatusServiceTest {
+
+  private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+  private KeyPair caKeyPair;
+  private X509Certificate caCertificate;
+  private X509Certificate clientCertificate;
+  private TslManager tslManager;
+  private OcspResponderStandIn ocspResponder;
+  private OcspStatusService ocspStatusService;
+
+  @BeforeEach
+  @SneakyThrows
+  void init() {
+    caKeyPair = generateKeyPair();
+    caCertificate =
+        certificate("CN=Test CA", BigInteger.ONE, "CN=Test CA", caKeyPair.getPublic(), caKeyPair);
+    clientCertificate =
+        certificate(
+            "CN=Test Client",
+            BigInteger.TEN,
+            "CN=Test CA",
+            generateKeyPair().getPublic(),
+            caKeyPair);
+    final TslSnapshot tslSnapshot = mock(TslSnapshot.class);
+    when(tslSnapshot.findIssuerCertificate(clientCertificate))
+        .thenReturn(Optional.of(caCertificate));
+    tslManager = mock(TslManager.class);
+    when(tslManager.getSnapshot()).thenReturn(tslSnapshot);
+    ocspResponder =
+        new OcspResponderStandIn(caCertificate, caKeyPair.getPrivate(), SIGNATURE_ALGORITHM)
+            .start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (ocspStatusService != null) {
+      ocspStatusService.shutDown();
+    }
+    ocspResponder.close();
+  }
+
+  private OcspStatusService createService(final OcspMode mode, final Duration timeout) {
+    return createService(mode, timeout, new MockEnvironment());
+  }
+
+  private OcspStatusService createService(
+      final OcspMode mode, final Duration timeout, final MockEnvironment environment) {
+    final OcspStatusService service =
+        new OcspStatusService(
+            IdpConfiguration.builder()
+                .ocsp(
+                    IdpOcspConfiguration.builder()
+                        .mode(mode)
+                        .responderUrl(ocspResponder.getUrl())
+                        .timeout(timeout)
+                        .maxConcurrentRequests(4)
+                        .maxEntries(10)
+                        .defaultValidity(Duration.ofMinutes(1))
+                        .staleWhileRevalidate(Duration.ofSeconds(10))
+                        .clockSkew(Duration.ofSeconds(30))
+                        .maxResponseAge(Duration.ofMinutes(15))
+                        .build())
+                .build(),
+            tslManager,
+            new SimpleMeterRegistry(),
+            environment,
+            SecureRandomProvider.getDefault());
+    service.setUp();
+    return service;
+  }
+
+  @Test
+  void goodStatusShouldBeCachedUntilNextUpdate() {
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    ocspStatusService.checkRevocationStatus(clientCertificate);
+    ocspStatusService.checkRevocationStatus(clientCertificate);
+
+    assertThat(ocspResponder.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  void statusShouldBeFetchedOnVirtualThreads() {
+    ocspStatusService =
+        createService(
+            OcspMode.CACHED,
+            Duration.ofSeconds(5),
+            new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"));
+
+    assertThatNoException()
+        .isThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate));
+    assertThat(ocspResponder.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  void revokedCertificateShouldBeRejected() {
+    ocspResponder.setStatus(
+        clientCertificate.getSerialNumber(), OcspResponderStandIn.Status.REVOKED);
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("REVOKED");
+  }
+
+  @Test
+  void unknownCertificateShouldBeRejected() {
+    ocspResponder.setStatus(
+        clientCertificate.getSerialNumber(), OcspResponderStandIn.Status.UNKNOWN);
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("UNKNOWN");
+  }
+
+  @Test
+  void concurrentRequestsShouldShareOneOcspRequest() {
+    ocspResponder.setDelay(Duration.ofMillis(300));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    final List<CompletableFuture<CertificateStatus>> statuses =
+        IntStream.range(0, 8)
+            .mapToObj(i -> ocspStatusService.getStatus(clientCertificate, caCertificate))
+            .toList();
+
+    assertThat(statuses)
+        .allSatisfy(status -> assertThat(status.join().status()).isEqualTo(Status.GOOD));
+    assertThat(ocspResponder.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  @SneakyThrows
+  void staleStatusShouldBeServedWhileRevalidating() {
+    ocspResponder.setValidity(Duration.ofSeconds(5));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+    ocspStatusService.checkRevocationStatus(clientCertificate);
+    ocspResponder.setDelay(Duration.ofMillis(500));
+
+    final CompletableFuture<CertificateStatus> staleStatus =
+        ocspStatusService.getStatus(clientCertificate, caCertificate);
+
+    assertThat(staleStatus).isDone();
+    assertThat(staleStatus.join().status()).isEqualTo(Status.GOOD);
+    final Instant deadline = Instant.now().plusSeconds(10);
+    while (ocspResponder.getRequestCount() < 2 && Instant.now().isBefore(deadline)) {
+      Thread.sleep(20);
+    }
+    assertThat(ocspResponder.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  @SneakyThrows
+  void expiredStatusShouldNotBeServed() {
+    ocspResponder.setValidity(Duration.ofSeconds(1));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+    ocspStatusService.checkRevocationStatus(clientCertificate);
+    ocspResponder.setStatus(
+        clientCertificate.getSerialNumber(), OcspResponderStandIn.Status.REVOKED);
+
+    Thread.sleep(1500);
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("REVOKED");
+    assertThat(ocspResponder.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  void expiredResponseShouldBeRejected() {
+    ocspResponder.setAge(Duration.ofMinutes(5));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("expired");
+  }
+
+  @Test
+  void replayedResponseShouldBeRejected() {
+    ocspResponder.setValidity(Duration.ofDays(1));
+    ocspResponder.setAge(Duration.ofHours(1));
+    ocspResponder.setEchoNonce(false);
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("older than");
+  }
+
+  @Test
+  void olderResponseWithMatchingNonceShouldBeAccepted() {
+    ocspResponder.setValidity(Duration.ofDays(1));
+    ocspResponder.setAge(Duration.ofHours(1));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatNoException()
+        .isThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate));
+  }
+
+  @Test
+  void responseFromTheFutureShouldBeRejected() {
+    ocspResponder.setAge(Duration.ofMinutes(-5));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("in the future");
+  }
+
+  @Test
+  void slowResponderShouldRejectCertificate() {
+    ocspResponder.setDelay(Duration.ofSeconds(2));
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofMillis(200));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class);
+  }
+
+  @Test
+  @SneakyThrows
+  void responseOfUnauthorizedResponderShouldBeRejected() {
+    final KeyPair foreignKeyPair = generateKeyPair();
+    final X509Certificate foreignCertificate =
+        certificate(
+            "CN=Foreign", BigInteger.TWO, "CN=Foreign", foreignKeyPair.getPublic(), foreignKeyPair);
+    ocspResponder.close();
+    ocspResponder =
+        new OcspResponderStandIn(
+                foreignCertificate, foreignKeyPair.getPrivate(), SIGNATURE_ALGORITHM)
+            .start();
+    ocspStatusService = createService(OcspMode.CACHED, Duration.ofSeconds(5));
+
+    assertThatThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate))
+        .isInstanceOf(OcspCheckException.class)
+        .hasMessageContaining("authorized responder");
+  }
+
+  @Test
+  void disabledModeShouldNotContactResponder() {
+    ocspResponder.setStatus(
+        clientCertificate.getSerialNumber(), OcspResponderStandIn.Status.REVOKED);
+    ocspStatusService = createService(OcspMode.OFF, Duration.ofSeconds(5));
+
+    assertThatNoException()
+        .isThrownBy(() -> ocspStatusService.checkRevocationStatus(clientCertificate));
+    assertThat(ocspResponder.getRequestCount()).isZero();
+    verifyNoInteractions(tslManager);
+  }
+
+  private static KeyPair generateKeyPair() throws Exception {
+    final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+    keyPairGenerator.initialize(256);
+    return keyPairGenerator.generateKeyPair();
+  }
+
+  private static X509Certificate certificate(
+      final String subject,
+      final BigInteger serialNumber,
+      final String issuer,
+      final PublicKey publicKey,
+      final KeyPair issuerKeyPair)
+      throws Exception {
+    final Instant now = Instant.now();
+    return new JcaX509CertificateConverter()
+        .getCertificate(
+            new JcaX509v3CertificateBuilder(
+                    new X500Name(issuer),
+                    serialNumber,
+                    Date.from(now.minus(Duration.ofDays(1))),
+                    Date.from(now.plus(Duration.ofDays(1))),
+                    new X500Name(subject),
+                    publicKey)
+                .build(
+                    new JcaContentSignerBuilder(SIGNATURE_ALGORITHM)
+                        .build(issuerKeyPair.getPrivate())));
+  }
+}
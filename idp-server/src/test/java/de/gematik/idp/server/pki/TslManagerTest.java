@@ -0,0 +1,132 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.pki;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.configuration.IdpTslConfiguration;
+import de.gematik.idp.server.services.TslUpdatedEvent;
+import de.gematik.idp.tests.PkiKeyResolver;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(PkiKeyResolver.class)
+class TslManagerTest {
+
+  @TempDir private Path tempDir;
+  private ApplicationEventPublisher eventPublisher;
+  private TslManager tslManager;
+  private Path tslFile;
+
+  @BeforeEach
+  void init() throws IOException {
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    tslFile = tempDir.resolve("tsl.xml");
+    Files.write(tslFile, defaultTsl());
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (tslManager != null) {
+      tslManager.shutDown();
+    }
+  }
+
+  private TslManager createTslManager(final String path, final boolean watch) {
+    final TslManager manager =
+        new TslManager(
+            IdpConfiguration.builder()
+                .productTypeDisplayString("IDP")
+                .tsl(IdpTslConfiguration.builder().path(path).watch(watch).build())
+                .build(),
+            eventPublisher);
+    manager.setUp();
+    return manager;
+  }
+
+  @Test
+  void bundledTslShouldIndexIssuingCas(
+      @PkiKeyResolver.Filename("c.ch.aut-ecc") final PkiIdentity egkIdentity) {
+    tslManager = createTslManager(null, false);
+
+    assertThat(tslManager.getSnapshot().getTspServiceCount()).isPositive();
+    assertThat(tslManager.getSnapshot().isIssuerIndexed(egkIdentity.getCertificate())).isTrue();
+  }
+
+  @Test
+  void reloadShouldSwapSnapshotAndPublishEvent() {
+    tslManager = createTslManager(tslFile.toString(), false);
+    final TslSnapshot initialSnapshot = tslManager.getSnapshot();
+
+    assertThat(tslManager.reload()).isTrue();
+
+    assertThat(tslManager.getSnapshot()).isNotSameAs(initialSnapshot);
+    verify(eventPublisher).publishEvent(any(TslUpdatedEvent.class));
+  }
+
+  @Test
+  void unreadableTslShouldKeepPreviousSnapshot() throws IOException {
+    tslManager = createTslManager(tslFile.toString(), false);
+    final TslSnapshot initialSnapshot = tslManager.getSnapshot();
+    Files.writeString(tslFile, "<kaputt/>", StandardCharsets.UTF_8);
+
+    assertThat(tslManager.reload()).isFalse();
+
+    assertThat(tslManager.getSnapshot()).isSameAs(initialSnapshot);
+    verify(eventPublisher, never()).publishEvent(any(TslUpdatedEvent.class));
+  }
+
+  @Test
+  void changedTslFileShouldBeReloadedInBackground() throws IOException {
+    tslManager = createTslManager(tslFile.toString(), true);
+    final TslSnapshot initialSnapshot = tslManager.getSnapshot();
+
+    Files.write(tslFile, defaultTsl());
+
+    verify(eventPublisher, timeout(10_000)).publishEvent(any(TslUpdatedEvent.class));
+    assertThat(tslManager.getSnapshot()).isNotSameAs(initialSnapshot);
+  }
+
+  private byte[] defaultTsl() throws IOException {
+    try (final InputStream tslStream =
+        Objects.requireNonNull(
+            getClass().getClassLoader().getResourceAsStream("TSL_default.xml"))) {
+      return tslStream.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.server.configuration.IdpCertificateCacheConfiguration;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.exceptions.OcspCheckException;
+import de.gematik.idp.server.pki.OcspStatusService;
+import de.gematik.idp.server.pki.TslManager;
+import de.gematik.idp.tests.PkiKeyResolver;
+import de.gematik.pki.gemlibpki.commons.exception.GemPkiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class CertificateVerificationCacheTest {
+
+  private TslManager tslManager;
+  private OcspStatusService ocspStatusService;
+  private SimpleMeterRegistry meterRegistry;
+  private CertificateVerificationCache certificateVerificationCache;
+  private X509Certificate certificate;
+  private X509Certificate otherCertificate;
+
+  @BeforeEach
+  void init(
+      @PkiKeyResolver.Filename("c.ch.aut-ecc") final PkiIdentity egkIdentity,
+      @PkiKeyResolver.Filename("C_HP_AUT_E256") final PkiIdentity hbaIdentity) {
+    certificate = egkIdentity.getCertificate();
+    otherCertificate = hbaIdentity.getCertificate();
+    tslManager = mock(TslManager.class);
+    ocspStatusService = mock(OcspStatusService.class);
+    meterRegistry = new SimpleMeterRegistry();
+    certificateVerificationCache = createCache(10, Duration.ofMinutes(10));
+  }
+
+  private CertificateVerificationCache createCache(final int maxEntries, final Duration ttl) {
+    final CertificateVerificationCache cache =
+        new CertificateVerificationCache(
+            tslManager,
+            ocspStatusService,
+            IdpConfiguration.builder()
+                .certificateVerificationCache(
+                    IdpCertificateCacheConfiguration.builder()
+                        .maxEntries(maxEntries)
+                        .ttl(ttl)
+                        .negativeTtl(ttl)
+                        .build())
+                .build(),
+            meterRegistry);
+    cache.setUp();
+    return cache;
+  }
+
+  private double count(final String name, final String tagKey, final String tagValue) {
+    return meterRegistry.get(name).tag(tagKey, tagValue).counter().count();
+  }
+
+  @SneakyThrows
+  @Test
+  void secondVerificationShouldBeServedFromCache() {
+    certificateVerificationCache.verifyCertificate(certificate);
+    certificateVerificationCache.verifyCertificate(certificate);
+
+    verify(tslManager, times(1)).performTucPki018Checks(certificate);
+    assertThat(count("idp.certificate.verification.cache", "result", "hit")).isEqualTo(1);
+    assertThat(count("idp.certificate.verification.cache", "result", "miss")).isEqualTo(1);
+  }
+
+  @SneakyThrows
+  @Test
+  void failedVerificationShouldBeCachedAndRethrown() {
+    final GemPkiException failure = mock(GemPkiException.class);
+    doThrow(failure).when(tslManager).performTucPki018Checks(certificate);
+
+    assertThatThrownBy(() -> certificateVerificationCache.verifyCertificate(certificate))
+        .isSameAs(failure);
+    assertThatThrownBy(() -> certificateVerificationCache.verifyCertificate(certificate))
+        .isSameAs(failure);
+    verify(tslManager, times(1)).performTucPki018Checks(certificate);
+  }
+
+  @SneakyThrows
+  @Test
+  void unexpectedFailureShouldNotBeCached() {
+    final IllegalStateException failure = new IllegalStateException("TSL not available");
+    doThrow(failure).when(tslManager).performTucPki018Checks(certificate);
+
+    assertThatThrownBy(() -> certificateVerificationCache.verifyCertificate(certificate))
+        .isSameAs(failure);
+    assertThatThrownBy(() -> certificateVerificationCache.verifyCertificate(certificate))
+        .isSameAs(failure);
+    verify(tslManager, times(2)).performTucPki018Checks(certificate);
+    assertThat(certificateVerificationCache.size()).isZero();
+  }
+
+  @SneakyThrows
+  @Test
+  void revocationStatusShouldBeCheckedAlsoForCachedOutcomes() {
+    certificateVerificationCache.verifyCertificate(certificate);
+    doThrow(new OcspCheckException("OCSP status of certificate is REVOKED"))
+        .when(ocspStatusService)
+        .checkRevocationStatus(certificate);
+
+    assertThatThrownBy(() -> certificateVerificationCache.verifyCertificate(certificate))
+        .isInstanceOf(OcspCheckException.class);
+    verify(tslManager, times(1)).performTucPki018Checks(certificate);
+    verify(ocspStatusService, times(2)).checkRevocationStatus(certificate);
+  }
+
+  @SneakyThrows
+  @Test
+  void tslUpdateShouldDiscardCachedOutcomes() {
+    certificateVerificationCache.verifyCertificate(certificate);
+
+    certificateVerificationCache.invalidateAll();
+    certificateVerificationCache.verifyCertificate(certificate);
+
+    verify(tslManager, times(2)).performTucPki018Checks(certificate);
+  }
+
+  @SneakyThrows
+  @Test
+  void expiredOutcomeShouldBeVerifiedAgain() {
+    certificateVerificationCache = createCache(10, Duration.ZERO);
+
+    certificateVerificationCache.verifyCertificate(certificate);
+    certificateVerificationCache.verifyCertificate(certificate);
+
+    verify(tslManager, times(2)).performTucPki018Checks(certificate);
+    assertThat(count("idp.certificate.verification.cache.evictions", "cause", "expired"))
+        .isEqualTo(1);
+  }
+
+  @SneakyThrows
+  @Test
+  void leastRecentlyUsedOutcomeShouldBeEvicted() {
+    certificateVerificationCache = createCache(1, Duration.ofMinutes(10));
+
+    certificateVerificationCache.verifyCertificate(certificate);
+    certificateVerificationCache.verifyCertificate(otherCertificate);
+    certificateVerificationCache.verifyCertificate(certificate);
+
+    assertThat(certificateVerificationCache.size()).isEqualTo(1);
+    verify(tslManager, times(2)).performTucPki018Checks(certificate);
+    assertThat(count("idp.certificate.verification.cache.evictions", "cause", "size")).isEqualTo(2);
+  }
+}
@@ -34,6 +34,7 @@ import static de.gematik.idp.field.ClaimName.ID_NUMBER;
 import static de.gematik.idp.field.ClaimName.KEY_IDENTIFIER;
 import static de.gematik.idp.field.ClaimName.SE_SUBJECT_PUBLIC_KEY_INFO;
 import static de.gematik.idp.field.ClaimName.TYPE;
+import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.jose4j.jws.AlgorithmIdentifiers.RSA_PSS_USING_SHA256;
 
@@ -99,6 +100,28 @@ class ChallengeTokenValidationServiceTest {
         createSignedAuthenticationData(altIdentity, new String[] {"mfa", "hwk", "face"}));
   }
 
+  @Test
+  void validatePairingChallengeWithStoredKeyMaterial() {
+    final PairingData pairingData = createPairingDtoFromRegistrationData();
+    final JsonWebToken signedPairingData = new JsonWebToken(pairingData.getSignedPairingData());
+    pairingData.setAuthCertSubjectPublicKeyInfo(
+        signedPairingData.getStringBodyClaim(AUTH_CERT_SUBJECT_PUBLIC_KEY_INFO).orElseThrow());
+    pairingData.setSeSubjectPublicKeyInfo(
+        signedPairingData.getStringBodyClaim(SE_SUBJECT_PUBLIC_KEY_INFO).orElseThrow());
+    pairingData.setCertificateSerialNumber(
+        signedPairingData.getStringBodyClaim(CERTIFICATE_SERIALNUMBER).orElseThrow());
+    // the stored columns are used, the signed pairing data is not parsed again
+    pairingData.setSignedPairingData("not-parsed");
+    pairingService.insertPairing(pairingData);
+
+    assertThatNoException()
+        .isThrownBy(
+            () ->
+                challengeTokenValidationService.validateChallengeToken(
+                    createSignedAuthenticationData(
+                        altIdentity, new String[] {"mfa", "hwk", "face"})));
+  }
+
   @Test
   void validateInvalidPairingChallenge(
       @PkiKeyResolver.Filename("109500969_X114428530-2_c.ch.aut-ecc") final PkiIdentity egkIdentity,
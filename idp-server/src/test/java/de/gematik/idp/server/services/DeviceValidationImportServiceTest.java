@@ -0,0 +1,118 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.server.data.DeviceType;
+import de.gematik.idp.server.data.DeviceValidationImportResult;
+import de.gematik.idp.server.devicevalidation.DeviceValidationRepository;
+import de.gematik.idp.server.devicevalidation.DeviceValidationState;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import jakarta.transaction.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+@Transactional
+class DeviceValidationImportServiceTest {
+
+  @Autowired private DeviceValidationImportService deviceValidationImportService;
+  @Autowired private DeviceValidationService deviceValidationService;
+  @Autowired private DeviceValidationRepository deviceValidationRepository;
+
+  @AfterEach
+  void cleanUp() {
+    deviceValidationRepository.deleteAll();
+    deviceValidationService.refresh();
+  }
+
+  @Test
+  void csvImportShouldInsertNewAndUpdateExistingRules() {
+    final long initialCount = deviceValidationRepository.count();
+
+    final DeviceValidationImportResult result =
+        deviceValidationImportService.importCsv(
+            stream(
+                """
+                manufacturer;product;model;os;os_version;state
+                # comment
+                TestManufacturer;TestProduct;TestModel;Android;[10,12);ALLOW
+                TestManufacturer;TestProduct;*;Android;13.*;ALLOW
+                TestManufacturer;TestProduct;TestModel;Android;[10,12);BLOCK
+                """));
+    deviceValidationService.refresh();
+
+    assertThat(result.getInserted()).isEqualTo(2);
+    assertThat(result.getUpdated()).isEqualTo(1);
+    assertThat(deviceValidationRepository.count()).isEqualTo(initialCount + 2);
+    assertThat(deviceValidationService.assess(deviceType("TestModel", "11.4")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    assertThat(deviceValidationService.assess(deviceType("OtherModel", "13.1")))
+        .isEqualTo(DeviceValidationState.ALLOW);
+  }
+
+  @Test
+  void jsonImportShouldInsertRules() {
+    final DeviceValidationImportResult result =
+        deviceValidationImportService.importJson(
+            stream(
+                """
+                [{"manufacturer": "TestManufacturer", "product": "TestProduct",
+                  "model": "TestModel", "os": "Android", "os_version": "*", "state": "BLOCK"}]
+                """));
+    deviceValidationService.refresh();
+
+    assertThat(result.getInserted()).isEqualTo(1);
+    assertThat(deviceValidationService.assess(deviceType("TestModel", "1.0")))
+        .isEqualTo(DeviceValidationState.BLOCK);
+  }
+
+  @Test
+  void invalidRowShouldFailImport() {
+    assertThatThrownBy(
+            () ->
+                deviceValidationImportService.importCsv(
+                    stream("TestManufacturer;TestProduct;TestModel;Android;[12,10];BLOCK")))
+        .isInstanceOf(IdpServerException.class)
+        .hasMessageContaining("line 1");
+  }
+
+  private static InputStream stream(final String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static DeviceType deviceType(final String model, final String osVersion) {
+    return DeviceType.builder()
+        .manufacturer("TestManufacturer")
+        .product("TestProduct")
+        .model(model)
+        .os("Android")
+        .osVersion(osVersion)
+        .build();
+  }
+}
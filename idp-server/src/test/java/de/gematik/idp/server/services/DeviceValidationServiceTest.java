@@ -51,13 +51,39 @@ class DeviceValidationServiceTest {
   @Test
   void testAssessWithExistingDeviceValidation() {
     final DeviceValidationData deviceValidationData = createDeviceValidationData();
-    deviceValidationRepository.save(deviceValidationData);
+    deviceValidationService.save(deviceValidationData);
     final DeviceType deviceType = createDeviceType(deviceValidationData);
     final DeviceValidationState state = deviceValidationService.assess(deviceType);
     assertThat(state).isEqualTo(DeviceValidationState.ALLOW);
     cleanUp();
   }
 
+  @Test
+  void testAssessUsesIndexUntilRefresh() {
+    final DeviceValidationData deviceValidationData = createDeviceValidationData();
+    deviceValidationData.setState(DeviceValidationState.BLOCK);
+    deviceValidationRepository.save(deviceValidationData);
+    final DeviceType deviceType = createDeviceType(deviceValidationData);
+    assertThat(deviceValidationService.assess(deviceType))
+        .isEqualTo(DeviceValidationState.UNKNOWN);
+    deviceValidationService.refresh();
+    assertThat(deviceValidationService.assess(deviceType)).isEqualTo(DeviceValidationState.BLOCK);
+    cleanUp();
+  }
+
+  @Test
+  void testBlockWinsForOverlappingRules() {
+    final DeviceValidationData deviceValidationData = createDeviceValidationData();
+    deviceValidationService.save(deviceValidationData);
+    final DeviceValidationData blockedVersions = createDeviceValidationData();
+    blockedVersions.setOsVersion("*");
+    blockedVersions.setState(DeviceValidationState.BLOCK);
+    deviceValidationService.save(blockedVersions);
+    assertThat(deviceValidationService.assess(createDeviceType(deviceValidationData)))
+        .isEqualTo(DeviceValidationState.BLOCK);
+    cleanUp();
+  }
+
   @Test
   void testValidationRepository() {
     final DeviceValidationData expected =
@@ -104,5 +130,6 @@ class DeviceValidationServiceTest {
 
   private void cleanUp() {
     deviceValidationRepository.deleteAll();
+    deviceValidationService.refresh();
   }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import de.gematik.idp.server.services.FlowStageMetrics.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FlowStageMetricsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private FlowStageMetrics flowStageMetrics;
+
+  @BeforeEach
+  void init() {
+    meterRegistry = new SimpleMeterRegistry();
+    flowStageMetrics = new FlowStageMetrics(meterRegistry);
+    flowStageMetrics.setUp();
+  }
+
+  @Test
+  void successfulStageShouldBeTimed() {
+    assertThat(flowStageMetrics.time(Stage.DECRYPT_CHALLENGE, () -> "challenge"))
+        .isEqualTo("challenge");
+
+    assertThat(
+            meterRegistry
+                .get(FlowStageMetrics.STAGE_TIMER)
+                .tag("stage", "decrypt_challenge")
+                .tag("outcome", "success")
+                .timer()
+                .count())
+        .isEqualTo(1);
+    assertThat(meterRegistry.find(FlowStageMetrics.STAGE_ERRORS).counters()).isEmpty();
+  }
+
+  @Test
+  void failedStageShouldCountGematikErrorCode() {
+    assertThatThrownBy(
+            () ->
+                flowStageMetrics.run(
+                    Stage.VERIFY_CLIENT_CERTIFICATE,
+                    () -> {
+                      throw new IdpServerException(
+                          2020, IdpErrorType.INVALID_REQUEST, "Das AUT Zertifikat ist ungültig");
+                    }))
+        .isInstanceOf(IdpServerException.class);
+
+    assertThat(
+            meterRegistry
+                .get(FlowStageMetrics.STAGE_TIMER)
+                .tag("stage", "verify_client_certificate")
+                .tag("outcome", "error")
+                .timer()
+                .count())
+        .isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get(FlowStageMetrics.STAGE_ERRORS)
+                .tag("stage", "verify_client_certificate")
+                .tag("gematik_code", "2020")
+                .counter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void otherExceptionsShouldBeCountedWithoutErrorCode() {
+    assertThatThrownBy(
+            () ->
+                flowStageMetrics.run(
+                    Stage.ENCRYPT_TOKEN,
+                    () -> {
+                      throw new IllegalStateException("no key");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(
+            meterRegistry
+                .get(FlowStageMetrics.STAGE_ERRORS)
+                .tag("gematik_code", "none")
+                .tag("exception", "IllegalStateException")
+                .counter()
+                .count())
+        .isEqualTo(1);
+  }
+}
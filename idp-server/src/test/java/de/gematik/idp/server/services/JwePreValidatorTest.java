@@ -0,0 +1,192 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+
+package de.gematik.idp.server.services;
+
+import static de.gematik.idp.token.IdpJwe.createWithPayloadAndExpiryAndEncryptWithKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.error.IdpErrorType;
+import de.gematik.idp.server.configuration.IdpConfiguration;
+import de.gematik.idp.server.exceptions.IdpServerException;
+import de.gematik.idp.server.services.JwePreValidator.Profile;
+import de.gematik.idp.tests.PkiKeyResolver;
+import de.gematik.idp.token.IdpJwe;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class JwePreValidatorTest {
+
+  private static final String PAYLOAD = "{\"njwt\":\"foo.bar.baz\"}";
+
+  private SimpleMeterRegistry meterRegistry;
+  private JwePreValidator jwePreValidator;
+  private PublicKey encryptionKey;
+
+  @BeforeEach
+  void init(final PkiIdentity ecc) {
+    meterRegistry = new SimpleMeterRegistry();
+    jwePreValidator = createValidator(IdpConfiguration.builder().build());
+    encryptionKey = ecc.getCertificate().getPublicKey();
+  }
+
+  @Test
+  void validChallengeShouldPass() {
+    final IdpJwe challenge = createChallenge(ZonedDateTime.now().plusMinutes(5), "NJWT");
+
+    assertThatNoException()
+        .isThrownBy(() -> jwePreValidator.check(challenge, Profile.SIGNED_CHALLENGE));
+    assertThat(meterRegistry.get(JwePreValidator.REJECTED_METER).counters())
+        .allMatch(counter -> counter.count() == 0);
+  }
+
+  @Test
+  void validAuthorizationCodeShouldPass() {
+    final IdpJwe authorizationCode =
+        createWithPayloadAndExpiryAndEncryptWithKey(
+            PAYLOAD, Optional.empty(), new SecretKeySpec(new byte[32], "AES"), "NJWT");
+
+    assertThatNoException()
+        .isThrownBy(() -> jwePreValidator.check(authorizationCode, Profile.AUTHORIZATION_CODE));
+  }
+
+  @Test
+  void oversizedTokenShouldBeRejected() {
+    jwePreValidator = createValidator(IdpConfiguration.builder().jweMaxLength(100).build());
+    final IdpJwe challenge = createChallenge(ZonedDateTime.now().plusMinutes(5), "NJWT");
+
+    assertRejected(challenge, 2030, "size");
+  }
+
+  @Test
+  void tokenWithMissingPartShouldBeRejected() {
+    final String rawString =
+        createChallenge(ZonedDateTime.now().plusMinutes(5), "NJWT").getRawString();
+
+    assertRejected(new IdpJwe(rawString.substring(0, rawString.lastIndexOf('.'))), 2030, "shape");
+  }
+
+  @Test
+  void tokenWithNonBase64UrlCharacterShouldBeRejected() {
+    final String rawString =
+        createChallenge(ZonedDateTime.now().plusMinutes(5), "NJWT").getRawString();
+    final int ciphertextStart = rawString.indexOf('.', rawString.indexOf("..") + 2) + 1;
+
+    final String patched =
+        rawString.substring(0, ciphertextStart) + "+" + rawString.substring(ciphertextStart + 1);
+
+    assertRejected(new IdpJwe(patched), 2030, "shape");
+  }
+
+  @Test
+  void directlyEncryptedChallengeShouldBeRejected() {
+    final IdpJwe challenge =
+        createWithPayloadAndExpiryAndEncryptWithKey(
+            PAYLOAD,
+            Optional.of(ZonedDateTime.now().plusMinutes(5)),
+            new SecretKeySpec(new byte[32], "AES"),
+            "NJWT");
+
+    assertRejected(challenge, 2030, "algorithm");
+  }
+
+  @Test
+  void ephemeralKeyOnWrongCurveShouldBeRejected() {
+    final IdpJwe challenge =
+        patchHeader(
+            createChallenge(ZonedDateTime.now().plusMinutes(5), "NJWT"),
+            header -> header.replace("\"BP-256\"", "\"P-256\""));
+
+    assertRejected(challenge, 2030, "epk");
+  }
+
+  @Test
+  void wrongContentTypeShouldBeRejected() {
+    assertRejected(createChallenge(ZonedDateTime.now().plusMinutes(5), "JWT"), 2030, "cty");
+  }
+
+  @Test
+  void missingExpiryShouldBeRejected() {
+    final IdpJwe challenge =
+        createWithPayloadAndExpiryAndEncryptWithKey(
+            PAYLOAD, Optional.empty(), encryptionKey, "NJWT");
+
+    assertRejected(challenge, 2031, "exp");
+  }
+
+  @Test
+  void expiredChallengeShouldBeRejected() {
+    assertRejected(createChallenge(ZonedDateTime.now().minusMinutes(1), "NJWT"), 2032, "exp");
+  }
+
+  private JwePreValidator createValidator(final IdpConfiguration idpConfiguration) {
+    final JwePreValidator validator = new JwePreValidator(idpConfiguration, meterRegistry);
+    validator.setUp();
+    return validator;
+  }
+
+  private IdpJwe createChallenge(final ZonedDateTime expiry, final String contentType) {
+    return createWithPayloadAndExpiryAndEncryptWithKey(
+        PAYLOAD, Optional.of(expiry), encryptionKey, contentType);
+  }
+
+  private void assertRejected(final IdpJwe jwe, final int errorCode, final String gate) {
+    assertThatThrownBy(() -> jwePreValidator.check(jwe, Profile.SIGNED_CHALLENGE))
+        .isInstanceOf(IdpServerException.class)
+        .hasFieldOrPropertyWithValue("errorCode", String.valueOf(errorCode))
+        .hasFieldOrPropertyWithValue("errorType", IdpErrorType.INVALID_REQUEST);
+    assertThat(
+            meterRegistry
+                .get(JwePreValidator.REJECTED_METER)
+                .tag("token", "signed_challenge")
+                .tag("gate", gate)
+                .counter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  private static IdpJwe patchHeader(final IdpJwe jwe, final UnaryOperator<String> headerPatch) {
+    final String rawString = jwe.getRawString();
+    final int headerEnd = rawString.indexOf('.');
+    final String header =
+        new String(
+            Base64.getUrlDecoder().decode(rawString.substring(0, headerEnd)),
+            StandardCharsets.UTF_8);
+    return new IdpJwe(
+        Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(headerPatch.apply(header).getBytes(StandardCharsets.UTF_8))
+            + rawString.substring(headerEnd));
+  }
+}
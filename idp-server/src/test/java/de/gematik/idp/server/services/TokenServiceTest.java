@@ -0,0 +1,157 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.server.services;
+
+import static de.gematik.idp.IdpConstants.EREZEPT;
+import static de.gematik.idp.IdpConstants.OPENID;
+import static de.gematik.idp.field.ClaimName.ACCESS_TOKEN_HASH;
+import static de.gematik.idp.field.ClaimName.AUDIENCE;
+import static de.gematik.idp.field.ClaimName.CLIENT_ID;
+import static de.gematik.idp.field.ClaimName.FAMILY_NAME;
+import static de.gematik.idp.field.ClaimName.GIVEN_NAME;
+import static de.gematik.idp.field.ClaimName.ID_NUMBER;
+import static de.gematik.idp.field.ClaimName.SCOPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import de.gematik.idp.TestConstants;
+import de.gematik.idp.authentication.IdpJwtProcessor;
+import de.gematik.idp.authentication.JwtBuilder;
+import de.gematik.idp.crypto.model.PkiIdentity;
+import de.gematik.idp.data.TokenResponse;
+import de.gematik.idp.server.controllers.IdpKey;
+import de.gematik.idp.tests.PkiKeyResolver;
+import de.gematik.idp.token.AccessTokenBuilder;
+import de.gematik.idp.token.IdTokenBuilder;
+import de.gematik.idp.token.IdpJwe;
+import de.gematik.idp.token.JsonWebToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.Security;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(PkiKeyResolver.class)
+class TokenServiceTest {
+
+  private static final String ISSUER = "https://idp.example.com";
+  private static final String AUDIENCE_URL = "https://erp.example.com";
+  private static final int REQUESTS = 16;
+
+  static {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+    Security.insertProviderAt(new BouncyCastleProvider(), 1);
+  }
+
+  private PkiIdentity idpIdentity;
+  private ExecutorService cryptoExecutor;
+  private TokenService tokenService;
+
+  @BeforeEach
+  void init(@PkiKeyResolver.Filename("c.ch.aut-ecc") final PkiIdentity identity) {
+    idpIdentity = identity;
+    cryptoExecutor = Executors.newFixedThreadPool(4);
+    final IdpJwtProcessor jwtProcessor = new IdpJwtProcessor(identity);
+    final FlowStageMetrics flowStageMetrics = new FlowStageMetrics(new SimpleMeterRegistry());
+    flowStageMetrics.setUp();
+    tokenService =
+        new TokenService(
+            new IdTokenBuilder(jwtProcessor, ISSUER, "salt"),
+            mock(PkceChecker.class),
+            new AccessTokenBuilder(jwtProcessor, ISSUER, "salt", Map.of(EREZEPT, AUDIENCE_URL)),
+            new IdpKey(identity),
+            new IdpKey(identity),
+            new SecretKeySpec(new byte[32], "AES"),
+            cryptoExecutor,
+            flowStageMetrics,
+            mock(JwePreValidator.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    cryptoExecutor.shutdownNow();
+  }
+
+  @Test
+  void mintTokenResponsesShouldMintEveryRequest() {
+    final List<TokenMintingRequest> requests =
+        IntStream.range(0, REQUESTS).mapToObj(this::mintingRequest).toList();
+
+    final List<TokenResponse> responses = tokenService.mintTokenResponses(requests);
+
+    assertThat(responses).hasSize(REQUESTS);
+    for (int i = 0; i < REQUESTS; i++) {
+      final SecretKey tokenKey = requests.get(i).tokenKey();
+      final JsonWebToken accessToken =
+          new IdpJwe(responses.get(i).getAccessToken()).decryptNestedJwt(tokenKey);
+      final JsonWebToken idToken =
+          new IdpJwe(responses.get(i).getIdToken()).decryptNestedJwt(tokenKey);
+
+      accessToken.verify(idpIdentity.getCertificate().getPublicKey());
+      idToken.verify(idpIdentity.getCertificate().getPublicKey());
+      assertThat(accessToken.getBodyClaims())
+          .containsEntry(ID_NUMBER.getJoseName(), idNumber(i))
+          .containsEntry(AUDIENCE.getJoseName(), AUDIENCE_URL);
+      assertThat(idToken.getBodyClaims())
+          .containsEntry(ID_NUMBER.getJoseName(), idNumber(i))
+          .containsEntry(AUDIENCE.getJoseName(), TestConstants.CLIENT_ID_E_REZEPT_APP)
+          .containsKey(ACCESS_TOKEN_HASH.getJoseName());
+    }
+  }
+
+  private TokenMintingRequest mintingRequest(final int index) {
+    final JsonWebToken authenticationToken =
+        new JwtBuilder()
+            .replaceAllBodyClaims(
+                Map.of(
+                    ID_NUMBER.getJoseName(),
+                    idNumber(index),
+                    GIVEN_NAME.getJoseName(),
+                    "given_name",
+                    FAMILY_NAME.getJoseName(),
+                    "family_name",
+                    CLIENT_ID.getJoseName(),
+                    TestConstants.CLIENT_ID_E_REZEPT_APP,
+                    SCOPE.getJoseName(),
+                    OPENID + " " + EREZEPT))
+            .setSignerKey(idpIdentity.getPrivateKey())
+            .buildJwt();
+    final byte[] tokenKey = new byte[32];
+    tokenKey[0] = (byte) index;
+    return new TokenMintingRequest(
+        authenticationToken,
+        new SecretKeySpec(tokenKey, "AES"),
+        TestConstants.CLIENT_ID_E_REZEPT_APP);
+  }
+
+  private static String idNumber(final int index) {
+    return "X11442853" + index;
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * *******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+ */
+
+package de.gematik.idp.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+/**
+ * Minimal OCSP responder on a random local port, for tests and benchmarks that must not depend on a
+ * real responder. Answers every request with a response signed by the given certificate, the status
+ * is good unless configured otherwise per serial number. The nonce of the request is echoed unless
+ * switched off. Responses can be delayed to simulate a slow responder and backdated to simulate a
+ * replayed one; the number of answered requests is counted.
+ */
+public class OcspResponderStandIn implements AutoCloseable {
+
+  public enum Status {
+    GOOD,
+    REVOKED,
+    UNKNOWN
+  }
+
+  private static final String OCSP_RESPONSE_CONTENT_TYPE = "application/ocsp-response";
+
+  private final X509Certificate responderCertificate;
+  private final PrivateKey responderKey;
+  private final String signatureAlgorithm;
+  private final Map<BigInteger, Status> statusBySerialNumber = new ConcurrentHashMap<>();
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private volatile Duration validity = Duration.ofMinutes(1);
+  private volatile Duration delay = Duration.ZERO;
+  private volatile Duration age = Duration.ZERO;
+  private volatile boolean echoNonce = true;
+  private HttpServer httpServer;
+  private ExecutorService executor;
+
+  /**
+   * @param responderCertificate certificate of the issuing CA or of a delegated responder
+   * @param signatureAlgorithm JCA name, e.g. SHA256withECDSA
+   */
+  public OcspResponderStandIn(
+      final X509Certificate responderCertificate,
+      final PrivateKey responderKey,
+      final String signatureAlgorithm) {
+    this.responderCertificate = responderCertificate;
+    this.responderKey = responderKey;
+    this.signatureAlgorithm = signatureAlgorithm;
+  }
+
+  public OcspResponderStandIn start() {
+    try {
+      httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    httpServer.createContext("/", this::handle);
+    executor = Executors.newCachedThreadPool();
+    httpServer.setExecutor(executor);
+    httpServer.start();
+    return this;
+  }
+
+  public String getUrl() {
+    return "http://"
+        + httpServer.getAddress().getHostString()
+        + ":"
+        + httpServer.getAddress().getPort()
+        + "/ocsp";
+  }
+
+  public void setStatus(final BigInteger serialNumber, final Status status) {
+    statusBySerialNumber.put(serialNumber, status);
+  }
+
+  /** Period between thisUpdate and nextUpdate of the responses, null for no nextUpdate. */
+  public void setValidity(final Duration validity) {
+    this.validity = validity;
+  }
+
+  public void setDelay(final Duration delay) {
+    this.delay = delay;
+  }
+
+  /** Shifts thisUpdate, nextUpdate and producedAt of the responses into the past. */
+  public void setAge(final Duration age) {
+    this.age = age;
+  }
+
+  public void setEchoNonce(final boolean echoNonce) {
+    this.echoNonce = echoNonce;
+  }
+
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public void close() {
+    if (httpServer != null) {
+      httpServer.stop(0);
+      executor.shutdownNow();
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final byte[] request;
+      try (final InputStream requestBody = exchange.getRequestBody()) {
+        request = requestBody.readAllBytes();
+      }
+      sleep(delay);
+      final byte[] response = respond(new OCSPReq(request));
+      requestCount.incrementAndGet();
+      exchange.getResponseHeaders().add("Content-Type", OCSP_RESPONSE_CONTENT_TYPE);
+      exchange.sendResponseHeaders(200, response.length);
+      try (final OutputStream responseBody = exchange.getResponseBody()) {
+        responseBody.write(response);
+      }
+    } catch (final OCSPException | OperatorCreationException | CertificateEncodingException e) {
+      exchange.sendResponseHeaders(500, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private byte[] respond(final OCSPReq ocspRequest)
+      throws OCSPException, OperatorCreationException, CertificateEncodingException, IOException {
+    final Instant now = Instant.now().minus(age);
+    final Duration currentValidity = validity;
+    final JcaBasicOCSPRespBuilder responseBuilder =
+        new JcaBasicOCSPRespBuilder(
+            responderCertificate.getPublicKey(),
+            new JcaDigestCalculatorProviderBuilder().build().get(RespID.HASH_SHA1));
+    for (final Req request : ocspRequest.getRequestList()) {
+      responseBuilder.addResponse(
+          request.getCertID(),
+          toCertificateStatus(
+              statusBySerialNumber.getOrDefault(request.getCertID().getSerialNumber(), Status.GOOD),
+              now),
+          Date.from(now),
+          currentValidity == null ? null : Date.from(now.plus(currentValidity)),
+          null);
+    }
+    final Extension nonce = ocspRequest.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+    if (echoNonce && nonce != null) {
+      responseBuilder.setResponseExtensions(new Extensions(nonce));
+    }
+    final ContentSigner contentSigner =
+        new JcaContentSignerBuilder(signatureAlgorithm).build(responderKey);
+    final BasicOCSPResp basicResponse =
+        responseBuilder.build(
+            contentSigner,
+            new X509CertificateHolder[] {new JcaX509CertificateHolder(responderCertificate)},
+            Date.from(now));
+    return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+  }
+
+  private static CertificateStatus toCertificateStatus(final Status status, final Instant now) {
+    return switch (status) {
+      case GOOD -> CertificateStatus.GOOD;
+      case REVOKED -> new RevokedStatus(Date.from(now.minus(Duration.ofDays(1))), 1);
+      case UNKNOWN -> new UnknownStatus();
+    };
+  }
+
+  private static void sleep(final Duration duration) {
+    if (duration.isZero()) {
+      return;
+    }
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -49,7 +49,8 @@ public class PkiKeyResolver implements ParameterResolver {
   @Override
   public PkiIdentity resolveParameter(
       final ParameterContext parameterContext, final ExtensionContext extensionContext) {
-    return retrieveIdentityFromFileSystem(getFilterValueForParameter(parameterContext));
+    return retrieveIdentityFromDirectory(
+        Paths.get("src", "test", "resources"), getFilterValueForParameter(parameterContext));
   }
 
   private String getFilterValueForParameter(final ParameterContext parameterContext) {
@@ -60,10 +61,15 @@ public class PkiKeyResolver implements ParameterResolver {
     }
   }
 
-  private PkiIdentity retrieveIdentityFromFileSystem(final String fileFilter) {
+  /**
+   * Loads the first p12 identity below the given directory whose filename contains the filter
+   * (case-insensitive). Also used outside of JUnit, e.g. by the benchmarks.
+   */
+  public static PkiIdentity retrieveIdentityFromDirectory(
+      final Path directory, final String fileFilter) {
     try (final Stream<Path> pathStream =
         Files.find(
-            Paths.get("src", "test", "resources"),
+            directory,
             128,
             (p, a) ->
                 p.toString().endsWith(".p12")
@@ -86,7 +92,9 @@ public class PkiKeyResolver implements ParameterResolver {
           .orElseThrow(
               () ->
                   new IdpCryptoException(
-                      "No matching identity found in src/test/resources and filter '"
+                      "No matching identity found in "
+                          + directory
+                          + " and filter '"
                           + fileFilter
                           + "'"));
     } catch (final IOException e) {